@@ -0,0 +1,136 @@
+package com.CinemaManager.Cinema.booking.concurrency;
+
+import com.CinemaManager.Cinema.booking.exception.BusinessException;
+import com.CinemaManager.Cinema.booking.support.TransactionCallbacks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Полосатые (striped) блокировки по ID сеанса для смены статусов билетов.
+// Блокировка держится до завершения транзакции, чтобы конкурент видел уже закоммиченные данные.
+@Component
+@Slf4j
+public class SessionLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final AtomicLongArray lastSessionIds;
+    private final long maxWaitMillis;
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public SessionLockManager(@Value("${cinema.booking.lock.stripes:256}") int stripeCount,
+                              @Value("${cinema.booking.lock.max-wait-ms:2000}") long maxWaitMillis) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Lock stripe count must be positive");
+        }
+        // Количество полос округляем до степени двойки
+        int size = Integer.highestOneBit(stripeCount - 1) << 1;
+        if (stripeCount == 1) {
+            size = 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock(true);
+        }
+        this.lastSessionIds = new AtomicLongArray(size);
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    // Захватывает блокировку сеанса до конца текущей транзакции
+    public void lockForTransaction(Long sessionId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Session lock requires an active transaction");
+        }
+        int stripe = stripeIndex(sessionId);
+        ReentrantLock lock = stripes[stripe];
+
+        long started = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = lock.tryLock(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("Interrupted while waiting for session " + sessionId);
+        }
+        long waited = System.nanoTime() - started;
+        recordWait(waited);
+
+        if (!acquired) {
+            timeouts.increment();
+            log.warn("Timed out after {} ms waiting for session lock, session ID: {}, queue: {}",
+                    maxWaitMillis, sessionId, lock.getQueueLength());
+            throw new BusinessException("Session " + sessionId + " is busy, please retry");
+        }
+
+        acquisitions.increment();
+        lastSessionIds.set(stripe, sessionId);
+        TransactionCallbacks.afterCompletion(lock::unlock);
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public double getAverageWaitMillis() {
+        long count = acquisitions.sum() + timeouts.sum();
+        return count == 0 ? 0.0 : totalWaitNanos.sum() / (double) count / 1_000_000;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    public int getQueuedThreads() {
+        int queued = 0;
+        for (ReentrantLock lock : stripes) {
+            queued += lock.getQueueLength();
+        }
+        return queued;
+    }
+
+    // Полосы с очередью ожидающих потоков, начиная с самых загруженных
+    public List<HotStripe> getHotStripes(int limit) {
+        List<HotStripe> hot = new ArrayList<>();
+        for (int i = 0; i < stripes.length; i++) {
+            int queueLength = stripes[i].getQueueLength();
+            if (queueLength > 0 || stripes[i].isLocked()) {
+                hot.add(new HotStripe(i, lastSessionIds.get(i), queueLength));
+            }
+        }
+        hot.sort(Comparator.comparingInt(HotStripe::queueLength).reversed());
+        return hot.size() > limit ? hot.subList(0, limit) : hot;
+    }
+
+    int stripeIndex(Long sessionId) {
+        long h = sessionId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (stripes.length - 1);
+    }
+
+    private void recordWait(long waitedNanos) {
+        totalWaitNanos.add(waitedNanos);
+        long max;
+        do {
+            max = maxWaitNanos.get();
+        } while (waitedNanos > max && !maxWaitNanos.compareAndSet(max, waitedNanos));
+    }
+
+    public record HotStripe(int stripe, long lastSessionId, int queueLength) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.CinemaManager.Cinema.booking.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+
+// Заполняет createdAt/updatedAt в BaseEntity. Время создания брони нужно для восстановления сроков ее истечения.
+@Configuration
+@EnableJpaAuditing
+public class JpaAuditingConfig {
+}
@@ -21,6 +21,9 @@ public class SecurityConfig {
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
                 .authorizeHttpRequests(authz -> authz
+                        // Выгрузка всех билетов с именами покупателей - только администратору.
+                        // Правило стоит раньше открытого /api/tickets/**: срабатывает первое совпавшее
+                        .requestMatchers("/api/tickets/export").hasRole("ADMIN")
                         // Разрешаем доступ к публичным эндпоинтам без аутентификации
                         .requestMatchers(
                                 "/",                            // Главная страница
@@ -0,0 +1,19 @@
+package com.CinemaManager.Cinema.booking.config;
+
+import com.CinemaManager.Cinema.booking.generator.SnowflakeTicketNumberGenerator;
+import com.CinemaManager.Cinema.booking.generator.TicketNumberGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TicketNumberConfig {
+
+    // У каждого экземпляра приложения должен быть свой node-id (0..1023)
+    @Bean
+    @ConditionalOnMissingBean(TicketNumberGenerator.class)
+    public TicketNumberGenerator ticketNumberGenerator(@Value("${cinema.ticket.node-id:0}") long nodeId) {
+        return new SnowflakeTicketNumberGenerator(nodeId);
+    }
+}
@@ -1,6 +1,7 @@
 package com.CinemaManager.Cinema.booking.controller;
 
 import com.CinemaManager.Cinema.booking.dto.ApiResponse;
+import com.CinemaManager.Cinema.booking.dto.CursorPage;
 import com.CinemaManager.Cinema.booking.service.AdminService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -8,6 +9,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -38,12 +40,45 @@ public class AdminController {
         return ResponseEntity.ok(ApiResponse.success(popularMovies));
     }
 
+    @GetMapping("/tickets-by-hour")
+    public ResponseEntity<ApiResponse<Map<Integer, Long>>> getTicketsByHour(
+            @RequestParam(required = false) LocalDate startDate,
+            @RequestParam(required = false) LocalDate endDate) {
+        Map<Integer, Long> ticketsByHour = adminService.getTicketsByHour(startDate, endDate);
+        return ResponseEntity.ok(ApiResponse.success(ticketsByHour));
+    }
+
+    // Пересборка витрины продаж из билетов за период - ручная сверка закрытых дней.
+    // Первичное заполнение выполняется само при первом запуске (SalesRollupBackfill)
+    @PostMapping("/rollup/backfill")
+    public ResponseEntity<ApiResponse<Integer>> backfillSalesRollup(
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate) {
+        int rows = adminService.backfillSalesRollup(startDate, endDate);
+        return ResponseEntity.ok(ApiResponse.success(rows));
+    }
+
+    // Статистика пользователей постранично: следующая страница - ?after=<nextCursor>
+    @GetMapping("/users/stats")
+    public ResponseEntity<ApiResponse<CursorPage<UserStatsDTO>>> getAllUsersStats(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int size) {
+        CursorPage<UserStatsDTO> stats = adminService.getAllUsersStats(after, size);
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+
     @PostMapping("/sessions/{sessionId}/cancel")
     public ResponseEntity<ApiResponse<Void>> cancelSession(@PathVariable Long sessionId) {
         adminService.cancelSession(sessionId);
         return ResponseEntity.ok(ApiResponse.success("Сеанс успешно отменен", null));
     }
 
+    @GetMapping("/locks")
+    public ResponseEntity<ApiResponse<SessionLockStatsDTO>> getSessionLockStats() {
+        SessionLockStatsDTO stats = adminService.getSessionLockStats();
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+
     // DTO для статистики админ-панели
     public record DashboardStatsDTO(
             Long totalMovies,
@@ -85,6 +120,20 @@ public class AdminController {
             long activeSessions,
             LocalDateTime lastChecked
     ) {}
+
+    public record SessionLockStatsDTO(
+            long acquisitions,
+            long timeouts,
+            double averageWaitMillis,
+            double maxWaitMillis,
+            int queuedThreads,
+            List<HotSession> hotSessions
+    ) {
+        public record HotSession(
+                long sessionId,
+                int queueLength
+        ) {}
+    }
 }
 
 
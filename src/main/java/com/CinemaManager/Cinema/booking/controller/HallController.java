@@ -1,14 +1,17 @@
 package com.CinemaManager.Cinema.booking.controller;
 
 import com.CinemaManager.Cinema.booking.dto.ApiResponse;
+import com.CinemaManager.Cinema.booking.dto.CursorPage;
 import com.CinemaManager.Cinema.booking.dto.HallDTO;
 import com.CinemaManager.Cinema.booking.service.HallService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -19,8 +22,19 @@ public class HallController {
     private final HallService hallService;
 
     @GetMapping
-    public ResponseEntity<ApiResponse<List<HallDTO>>> getAllHalls() {
-        List<HallDTO> halls = hallService.getAllHalls();
+    public ResponseEntity<ApiResponse<CursorPage<HallDTO>>> getAllHalls(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int size) {
+        CursorPage<HallDTO> halls = hallService.getAllHalls(after, size);
+        return ResponseEntity.ok(ApiResponse.success(halls));
+    }
+
+    // Залы без сеансов на всем интервале [startTime, endTime)
+    @GetMapping("/available")
+    public ResponseEntity<ApiResponse<List<HallDTO>>> getAvailableHalls(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime) {
+        List<HallDTO> halls = hallService.getAvailableHalls(startTime, endTime);
         return ResponseEntity.ok(ApiResponse.success(halls));
     }
 
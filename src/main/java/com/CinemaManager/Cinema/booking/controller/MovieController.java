@@ -1,6 +1,7 @@
 package com.CinemaManager.Cinema.booking.controller;
 
 import com.CinemaManager.Cinema.booking.dto.ApiResponse;
+import com.CinemaManager.Cinema.booking.dto.CursorPage;
 import com.CinemaManager.Cinema.booking.dto.MovieDTO;
 import com.CinemaManager.Cinema.booking.service.MovieService;
 import jakarta.validation.Valid;
@@ -19,8 +20,10 @@ public class MovieController {
     private final MovieService movieService;
 
     @GetMapping
-    public ResponseEntity<ApiResponse<List<MovieDTO>>> getAllMovies() {
-        List<MovieDTO> movies = movieService.getAllMovies();
+    public ResponseEntity<ApiResponse<CursorPage<MovieDTO>>> getAllMovies(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int size) {
+        CursorPage<MovieDTO> movies = movieService.getAllMovies(after, size);
         return ResponseEntity.ok(ApiResponse.success(movies));
     }
 
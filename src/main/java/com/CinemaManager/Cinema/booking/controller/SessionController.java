@@ -1,15 +1,24 @@
 package com.CinemaManager.Cinema.booking.controller;
 
 import com.CinemaManager.Cinema.booking.dto.ApiResponse;
+import com.CinemaManager.Cinema.booking.dto.CursorPage;
+import com.CinemaManager.Cinema.booking.dto.ScheduleResultDTO;
+import com.CinemaManager.Cinema.booking.dto.SeatBitmapDTO;
+import com.CinemaManager.Cinema.booking.dto.SessionAvailabilityDTO;
 import com.CinemaManager.Cinema.booking.dto.SessionDTO;
 import com.CinemaManager.Cinema.booking.dto.SessionSeatsDTO;
+import com.CinemaManager.Cinema.booking.exception.BusinessException;
 import com.CinemaManager.Cinema.booking.service.SessionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -23,8 +32,10 @@ public class SessionController {
     private final SessionService sessionService;
 
     @GetMapping
-    public ResponseEntity<ApiResponse<List<SessionDTO>>> getAllSessions() {
-        List<SessionDTO> sessions = sessionService.getAllSessions();
+    public ResponseEntity<ApiResponse<CursorPage<SessionDTO>>> getAllSessions(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int size) {
+        CursorPage<SessionDTO> sessions = sessionService.getAllSessions(after, size);
         return ResponseEntity.ok(ApiResponse.success(sessions));
     }
 
@@ -40,6 +51,54 @@ public class SessionController {
         return ResponseEntity.ok(ApiResponse.success(sessionSeats));
     }
 
+    // Компактная карта мест: геометрия зала + упакованные биты занятости, ETag по версии карты.
+    // С Accept: application/octet-stream тело - сырые байты, геометрия - в заголовках X-Total-Rows / X-Seats-Per-Row.
+    @GetMapping("/{id}/seats/bitmap")
+    public ResponseEntity<?> getSeatBitmap(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest request) {
+        SeatBitmapDTO bitmap = sessionService.getSeatBitmap(id);
+        if (request.checkNotModified(bitmap.getVersion())) {
+            return null;
+        }
+        if (accept != null && accept.contains(MediaType.APPLICATION_OCTET_STREAM_VALUE)) {
+            return ResponseEntity.ok()
+                    .eTag(bitmap.getVersion())
+                    .header("X-Total-Rows", String.valueOf(bitmap.getTotalRows()))
+                    .header("X-Seats-Per-Row", String.valueOf(bitmap.getSeatsPerRow()))
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .body(bitmap.getOccupancy());
+        }
+        return ResponseEntity.ok()
+                .eTag(bitmap.getVersion())
+                .body(ApiResponse.success(bitmap));
+    }
+
+    // Поток изменений карты мест (SSE): событие snapshot в формате SeatBitmapDTO, затем события delta.
+    // Если клиент не успевает читать, вместо пропущенных дельт он получает новый snapshot.
+    @GetMapping(value = "/{id}/seats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSeatChanges(@PathVariable Long id) {
+        return sessionService.subscribeToSeatChanges(id);
+    }
+
+    // Остаток мест сразу для многих сеансов: по списку ID (?ids=1,2,3) или по дате и фильму (?date=...&movieId=...)
+    @GetMapping("/availability")
+    public ResponseEntity<ApiResponse<List<SessionAvailabilityDTO>>> getAvailability(
+            @RequestParam(required = false) List<Long> ids,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) Long movieId) {
+        List<SessionAvailabilityDTO> availability;
+        if (ids != null) {
+            availability = sessionService.getAvailability(ids);
+        } else if (date != null) {
+            availability = sessionService.getAvailability(date, movieId);
+        } else {
+            throw new BusinessException("Either ids or date must be specified");
+        }
+        return ResponseEntity.ok(ApiResponse.success(availability));
+    }
+
     @PostMapping
     public ResponseEntity<ApiResponse<SessionDTO>> createSession(
             @Valid @RequestBody SessionDTO sessionDTO) {
@@ -48,6 +107,15 @@ public class SessionController {
                 .body(ApiResponse.success("Сеанс успешно создан", createdSession));
     }
 
+    // Загрузка программы одним запросом: строки проверяются независимо, ошибки возвращаются по каждой строке
+    @PostMapping("/bulk")
+    public ResponseEntity<ApiResponse<ScheduleResultDTO>> scheduleSessions(
+            @RequestBody List<SessionDTO> programme) {
+        ScheduleResultDTO result = sessionService.scheduleSessions(programme);
+        return ResponseEntity.status(result.getCreated() > 0 ? HttpStatus.CREATED : HttpStatus.OK)
+                .body(ApiResponse.success("Программа сеансов загружена", result));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ApiResponse<SessionDTO>> updateSession(
             @PathVariable Long id,
@@ -70,9 +138,11 @@ public class SessionController {
     }
 
     @GetMapping("/by-movie/{movieId}")
-    public ResponseEntity<ApiResponse<List<SessionDTO>>> getSessionsByMovie(
-            @PathVariable Long movieId) {
-        List<SessionDTO> sessions = sessionService.getSessionsByMovie(movieId);
+    public ResponseEntity<ApiResponse<CursorPage<SessionDTO>>> getSessionsByMovie(
+            @PathVariable Long movieId,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int size) {
+        CursorPage<SessionDTO> sessions = sessionService.getSessionsByMovie(movieId, after, size);
         return ResponseEntity.ok(ApiResponse.success(sessions));
     }
 
@@ -84,8 +154,10 @@ public class SessionController {
     }
 
     @GetMapping("/available")
-    public ResponseEntity<ApiResponse<List<SessionDTO>>> getAvailableSessions() {
-        List<SessionDTO> sessions = sessionService.getAvailableSessions();
+    public ResponseEntity<ApiResponse<CursorPage<SessionDTO>>> getAvailableSessions(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int size) {
+        CursorPage<SessionDTO> sessions = sessionService.getAvailableSessions(after, size);
         return ResponseEntity.ok(ApiResponse.success(sessions));
     }
 }
\ No newline at end of file
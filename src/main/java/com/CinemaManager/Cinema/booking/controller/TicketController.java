@@ -1,13 +1,24 @@
 package com.CinemaManager.Cinema.booking.controller;
 
 import com.CinemaManager.Cinema.booking.dto.*;
+import com.CinemaManager.Cinema.booking.entity.Ticket;
+import com.CinemaManager.Cinema.booking.exception.BusinessException;
+import com.CinemaManager.Cinema.booking.export.TicketExportFormat;
+import com.CinemaManager.Cinema.booking.export.TicketExporter;
+import com.CinemaManager.Cinema.booking.pipeline.PurchasePipeline;
+import com.CinemaManager.Cinema.booking.service.SeatHoldService;
 import com.CinemaManager.Cinema.booking.service.TicketService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -16,13 +27,40 @@ import java.util.List;
 public class TicketController {
 
     private final TicketService ticketService;
+    private final PurchasePipeline purchasePipeline;
+    private final SeatHoldService seatHoldService;
+    private final TicketExporter ticketExporter;
 
     @GetMapping
-    public ResponseEntity<ApiResponse<List<TicketDTO>>> getAllTickets() {
-        List<TicketDTO> tickets = ticketService.getAllTickets();
+    public ResponseEntity<ApiResponse<CursorPage<TicketDTO>>> getAllTickets(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int size) {
+        CursorPage<TicketDTO> tickets = ticketService.getAllTickets(after, size);
         return ResponseEntity.ok(ApiResponse.success(tickets));
     }
 
+    // Выгрузка билетов для бухгалтерии (только ADMIN): ответ пишется потоком, без ApiResponse.
+    // from/to включительно - даты продажи для status=SOLD, иначе даты создания билета
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTickets(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Ticket.TicketStatus status) {
+        TicketExportFormat exportFormat = TicketExportFormat.fromParam(format);
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new BusinessException("Start date must not be after end date");
+        }
+        StreamingResponseBody body = out -> ticketExporter.export(from, to, status, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("tickets." + exportFormat.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<TicketDTO>> getTicketById(@PathVariable Long id) {
         TicketDTO ticket = ticketService.getTicketById(id);
@@ -32,7 +70,15 @@ public class TicketController {
     @PostMapping("/purchase")
     public ResponseEntity<ApiResponse<TicketPurchaseResponseDTO>> purchaseTickets(
             @Valid @RequestBody PurchaseTicketDTO purchaseDTO) {
-        TicketPurchaseResponseDTO response = ticketService.purchaseTickets(purchaseDTO);
+        TicketPurchaseResponseDTO response = purchasePipeline.purchase(purchaseDTO);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success("Билеты успешно куплены", response));
+    }
+
+    @PostMapping("/purchase/best-available")
+    public ResponseEntity<ApiResponse<TicketPurchaseResponseDTO>> purchaseBestAvailable(
+            @Valid @RequestBody BestAvailablePurchaseDTO purchaseDTO) {
+        TicketPurchaseResponseDTO response = ticketService.purchaseBestAvailable(purchaseDTO);
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.success("Билеты успешно куплены", response));
     }
@@ -45,6 +91,30 @@ public class TicketController {
                 .body(ApiResponse.success("Билеты успешно забронированы", reservedTickets));
     }
 
+    @PostMapping("/holds")
+    public ResponseEntity<ApiResponse<SeatHoldDTO>> holdSeats(
+            @Valid @RequestBody SeatHoldRequestDTO requestDTO) {
+        SeatHoldDTO hold = seatHoldService.holdSeats(requestDTO);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success("Места удержаны", hold));
+    }
+
+    @PostMapping("/holds/{holdId}/heartbeat")
+    public ResponseEntity<ApiResponse<SeatHoldDTO>> extendHold(
+            @PathVariable String holdId,
+            @RequestParam Long userId) {
+        SeatHoldDTO hold = seatHoldService.extendHold(holdId, userId);
+        return ResponseEntity.ok(ApiResponse.success(hold));
+    }
+
+    @DeleteMapping("/holds/{holdId}")
+    public ResponseEntity<ApiResponse<Void>> releaseHold(
+            @PathVariable String holdId,
+            @RequestParam Long userId) {
+        seatHoldService.releaseHold(holdId, userId);
+        return ResponseEntity.ok(ApiResponse.success("Удержание снято", null));
+    }
+
     @PostMapping("/{ticketNumber}/confirm")
     public ResponseEntity<ApiResponse<TicketDTO>> confirmTicket(
             @PathVariable String ticketNumber) {
@@ -67,9 +137,11 @@ public class TicketController {
     }
 
     @GetMapping("/by-user/{userId}")
-    public ResponseEntity<ApiResponse<List<TicketDTO>>> getTicketsByUser(
-            @PathVariable Long userId) {
-        List<TicketDTO> tickets = ticketService.getTicketsByUser(userId);
+    public ResponseEntity<ApiResponse<CursorPage<TicketDTO>>> getTicketsByUser(
+            @PathVariable Long userId,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int size) {
+        CursorPage<TicketDTO> tickets = ticketService.getTicketsByUser(userId, after, size);
         return ResponseEntity.ok(ApiResponse.success(tickets));
     }
 
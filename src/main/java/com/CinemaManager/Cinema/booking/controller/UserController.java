@@ -1,6 +1,7 @@
 package com.CinemaManager.Cinema.booking.controller;
 
 import com.CinemaManager.Cinema.booking.dto.ApiResponse;
+import com.CinemaManager.Cinema.booking.dto.CursorPage;
 import com.CinemaManager.Cinema.booking.dto.TicketDTO;
 import com.CinemaManager.Cinema.booking.dto.UserDTO;
 import com.CinemaManager.Cinema.booking.service.TicketService;
@@ -11,8 +12,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/users")
 @RequiredArgsConstructor
@@ -22,8 +21,10 @@ public class UserController {
     private final TicketService ticketService;
 
     @GetMapping
-    public ResponseEntity<ApiResponse<List<UserDTO>>> getAllUsers() {
-        List<UserDTO> users = userService.getAllUsers();
+    public ResponseEntity<ApiResponse<CursorPage<UserDTO>>> getAllUsers(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int size) {
+        CursorPage<UserDTO> users = userService.getAllUsers(after, size);
         return ResponseEntity.ok(ApiResponse.success(users));
     }
 
@@ -34,8 +35,11 @@ public class UserController {
     }
 
     @GetMapping("/{id}/tickets")
-    public ResponseEntity<ApiResponse<List<TicketDTO>>> getUserTickets(@PathVariable Long id) {
-        List<TicketDTO> tickets = ticketService.getTicketsByUser(id);
+    public ResponseEntity<ApiResponse<CursorPage<TicketDTO>>> getUserTickets(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int size) {
+        CursorPage<TicketDTO> tickets = ticketService.getTicketsByUser(id, after, size);
         return ResponseEntity.ok(ApiResponse.success(tickets));
     }
 
@@ -0,0 +1,22 @@
+package com.CinemaManager.Cinema.booking.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BestAvailablePurchaseDTO {
+    @NotNull(message = "ID сеанса обязательно")
+    private Long sessionId;
+
+    @NotNull(message = "Количество мест обязательно")
+    @Min(value = 1, message = "Количество мест должно быть положительным")
+    @Max(value = 50, message = "Нельзя купить больше 50 мест за раз")
+    private Integer quantity;
+
+    // Пользователь из контекста безопасности здесь не подставляется - ID обязателен
+    @NotNull(message = "ID пользователя обязательно")
+    private Long userId;
+}
@@ -0,0 +1,44 @@
+package com.CinemaManager.Cinema.booking.dto;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+// Страница списка с курсором (keyset): следующая страница запрашивается с after = nextCursor.
+// Запрос страницы - WHERE id > :after ORDER BY id LIMIT size + 1, без OFFSET и без подсчета всех строк.
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    public static final int DEFAULT_SIZE = 50;
+    public static final int MAX_SIZE = 500;
+
+    private List<T> items;
+    // null - это последняя страница
+    private Long nextCursor;
+    private boolean hasMore;
+
+    public static int boundedSize(int size) {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    public static long startAfter(Long after) {
+        return after != null ? after : 0L;
+    }
+
+    // rows - до size + 1 строк: лишняя строка только сообщает, что есть следующая страница
+    public static <E, T> CursorPage<T> of(List<E> rows, int size, Function<E, Long> idOf, Function<E, T> mapper) {
+        boolean hasMore = rows.size() > size;
+        List<E> pageRows = hasMore ? rows.subList(0, size) : rows;
+        List<T> items = new ArrayList<>(pageRows.size());
+        for (E row : pageRows) {
+            items.add(mapper.apply(row));
+        }
+        Long nextCursor = hasMore ? idOf.apply(pageRows.get(pageRows.size() - 1)) : null;
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+}
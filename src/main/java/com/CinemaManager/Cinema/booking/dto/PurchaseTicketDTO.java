@@ -17,4 +17,6 @@ public class PurchaseTicketDTO {
     private List<Long> seatIds;
 
     private Long userId; // Может быть null, если берется из контекста безопасности
+
+    private String holdId; // Необязательно: места берутся из ранее созданного удержания
 }
\ No newline at end of file
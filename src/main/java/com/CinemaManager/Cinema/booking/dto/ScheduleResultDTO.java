@@ -0,0 +1,27 @@
+package com.CinemaManager.Cinema.booking.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+// Итог загрузки программы сеансов: созданные сеансы и ошибки по строкам (индекс - позиция в запросе)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleResultDTO {
+    private int created;
+    private int rejected;
+    private List<RowResultDTO> rows;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowResultDTO {
+        private int index;
+        private boolean success;
+        private SessionDTO session;
+        private String error;
+    }
+}
@@ -0,0 +1,18 @@
+package com.CinemaManager.Cinema.booking.dto;
+
+import lombok.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatBitmapDTO {
+    private Long sessionId;
+    private Integer totalRows;
+    private Integer seatsPerRow;
+    private Integer occupiedCount;
+    private String version; // Значение ETag
+    // Бит i байта k = место с индексом 8k + i, индекс = (ряд - 1) * seatsPerRow + (место - 1).
+    // Занятыми считаются и проданные/забронированные, и удерживаемые места. В JSON передается в base64.
+    private byte[] occupancy;
+}
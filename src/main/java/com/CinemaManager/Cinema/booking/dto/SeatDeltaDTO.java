@@ -0,0 +1,17 @@
+package com.CinemaManager.Cinema.booking.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatDeltaDTO {
+    private Long sessionId;
+    private Long sequence; // Совпадает с id события SSE, растет на единицу с каждым событием сеанса
+    // Индексы мест в той же нумерации, что и в SeatBitmapDTO
+    private List<Integer> occupied;
+    private List<Integer> freed;
+}
@@ -0,0 +1,17 @@
+package com.CinemaManager.Cinema.booking.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatHoldDTO {
+    private String holdId;
+    private Long sessionId;
+    private List<Long> seatIds;
+    private LocalDateTime expiresAt;
+}
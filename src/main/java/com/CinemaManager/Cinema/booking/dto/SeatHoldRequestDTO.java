@@ -0,0 +1,22 @@
+package com.CinemaManager.Cinema.booking.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatHoldRequestDTO {
+    @NotNull(message = "ID сеанса обязательно")
+    private Long sessionId;
+
+    @NotEmpty(message = "Должно быть выбрано хотя бы одно место")
+    private List<Long> seatIds;
+
+    // Выкупить удержанные места может только тот, кто их удержал
+    @NotNull(message = "ID пользователя обязательно")
+    private Long userId;
+}
@@ -10,5 +10,5 @@ public class SeatStatusDTO {
     private Long seatId;
     private Integer rowNumber;
     private Integer seatNumber;
-    private String status; // FREE, BOOKED, SOLD
+    private String status; // FREE, OCCUPIED, HELD
 }
\ No newline at end of file
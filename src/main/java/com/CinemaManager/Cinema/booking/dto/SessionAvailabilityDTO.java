@@ -0,0 +1,19 @@
+package com.CinemaManager.Cinema.booking.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Остаток мест сеанса для страниц расписания - без карты мест
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionAvailabilityDTO {
+    private Long sessionId;
+    private LocalDateTime startTime;
+    private Integer totalSeats;
+    private Integer soldSeats;
+    private Integer bookedSeats;
+    private Integer availableSeats;
+}
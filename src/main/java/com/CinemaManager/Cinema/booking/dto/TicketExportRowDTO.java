@@ -0,0 +1,28 @@
+package com.CinemaManager.Cinema.booking.dto;
+
+import com.CinemaManager.Cinema.booking.entity.Ticket.TicketStatus;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Строка выгрузки билетов: собирается прямо в запросе, без загрузки сущностей
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketExportRowDTO {
+    private Long id;
+    private String ticketNumber;
+    private TicketStatus status;
+    private LocalDateTime createdAt;
+    private LocalDateTime purchaseTime;
+    private Long sessionId;
+    private LocalDateTime sessionTime;
+    private String movieTitle;
+    private String hallName;
+    private Integer rowNumber;
+    private Integer seatNumber;
+    private Double price;
+    private Long userId;
+    private String userName;
+}
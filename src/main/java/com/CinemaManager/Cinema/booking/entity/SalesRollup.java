@@ -0,0 +1,43 @@
+package com.CinemaManager.Cinema.booking.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+// Предагрегированные продажи: одна строка на день x час x фильм x зал.
+// Фильм и зал хранятся как ID - строки переживают удаление сеансов и не держат внешних ключей.
+@Entity
+@Table(name = "sales_rollup", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sales_rollup_bucket",
+                columnNames = {"sales_date", "sales_hour", "movie_id", "hall_id"})
+}, indexes = {
+        // Итоги по фильмам за период
+        @Index(name = "idx_sales_rollup_movie_date", columnList = "movie_id, sales_date")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SalesRollup extends BaseEntity {
+
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    @Column(name = "sales_hour", nullable = false)
+    private Integer salesHour;
+
+    @Column(name = "movie_id", nullable = false)
+    private Long movieId;
+
+    @Column(name = "hall_id", nullable = false)
+    private Long hallId;
+
+    @Column(name = "sold_count", nullable = false)
+    private Long soldCount;
+
+    // Сумма цен билетов на момент продажи (Ticket.price)
+    @Column(name = "revenue", nullable = false)
+    private Double revenue;
+}
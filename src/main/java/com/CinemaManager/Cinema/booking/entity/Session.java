@@ -2,17 +2,28 @@ package com.CinemaManager.Cinema.booking.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "sessions")
+@Table(name = "sessions", indexes = {
+        // Расписание зала и проверки пересечений
+        @Index(name = "idx_sessions_hall_start", columnList = "hall_id, start_time"),
+        @Index(name = "idx_sessions_movie_start", columnList = "movie_id, start_time"),
+        // Поиск по дате и диапазону дат
+        @Index(name = "idx_sessions_start_time", columnList = "start_time")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+// Обновляются только измененные колонки: иначе сохранение сеанса затерло бы счетчики, измененные массовым UPDATE
+@DynamicUpdate
 public class Session extends BaseEntity {
 
     @Column(name = "start_time", nullable = false)
@@ -36,11 +47,36 @@ public class Session extends BaseEntity {
     @Builder.Default
     private List<Ticket> tickets = new ArrayList<>();
 
+    // Число мест в зале на момент создания сеанса (пересчитывается при смене зала или его геометрии)
+    @Column(name = "capacity")
+    private Integer capacity;
+
+    // Счетчики занятых мест. Меняются только массовыми UPDATE вместе с переходами билетов,
+    // расхождения с билетами исправляет SessionOccupancyReconciler.
+    // DEFAULT 0 нужен, чтобы NOT NULL колонки добавились к уже существующим строкам
+    @Column(name = "sold_count", nullable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Integer soldCount = 0;
+
+    @Column(name = "booked_count", nullable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Integer bookedCount = 0;
+
+    public int getAvailableSeats() {
+        int total = capacity != null ? capacity : 0;
+        return Math.max(0, total - soldCount - bookedCount);
+    }
+
     @PrePersist
     @PreUpdate
     private void calculateEndTime() {
         if (startTime != null && movie != null && movie.getDuration() != null) {
             this.endTime = startTime.plus(movie.getDuration());
         }
+        if (capacity == null && hall != null) {
+            this.capacity = hall.getTotalRows() * hall.getSeatsPerRow();
+        }
     }
 }
\ No newline at end of file
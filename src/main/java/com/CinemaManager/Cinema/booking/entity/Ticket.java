@@ -5,7 +5,19 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "tickets")
+@EntityListeners(TicketNumberListener.class)
+@Table(name = "tickets", uniqueConstraints = {
+        // Активная заявка на место: NULL у отмененных билетов не участвует в уникальности
+        @UniqueConstraint(name = "uk_tickets_active_seat", columnNames = {"session_id", "seat_id", "active_claim"})
+}, indexes = {
+        // Подсчет проданных и забронированных билетов сеанса
+        @Index(name = "idx_tickets_session_status", columnList = "session_id, status"),
+        // Выручка и продажи за период
+        @Index(name = "idx_tickets_status_purchase_time", columnList = "status, purchase_time"),
+        @Index(name = "idx_tickets_user", columnList = "user_id"),
+        // Поиск просроченных броней
+        @Index(name = "idx_tickets_status_created_at", columnList = "status, created_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -23,6 +35,11 @@ public class Ticket extends BaseEntity {
     @Column(name = "purchase_time")
     private LocalDateTime purchaseTime;
 
+    // Цена на момент продажи: смена цены сеанса не меняет выручку уже проданных билетов.
+    // У билетов, проданных до появления колонки, пусто - отчеты берут цену сеанса
+    @Column(name = "price")
+    private Double price;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "session_id", nullable = false)
     private Session session;
@@ -35,15 +52,17 @@ public class Ticket extends BaseEntity {
     @JoinColumn(name = "user_id")
     private User user;
 
+    // TRUE пока билет занимает место, NULL после отмены
+    @Column(name = "active_claim")
+    private Boolean activeClaim;
+
+    // Номер билета присваивает TicketNumberListener
     @PrePersist
-    private void generateTicketNumber() {
-        if (this.ticketNumber == null) {
-            this.ticketNumber = "TKT-" + System.currentTimeMillis() + "-" +
-                    (int)(Math.random() * 1000);
-        }
+    private void applyDefaults() {
         if (this.status == null) {
             this.status = TicketStatus.AVAILABLE;
         }
+        syncActiveClaim();
     }
 
     @PreUpdate
@@ -51,6 +70,11 @@ public class Ticket extends BaseEntity {
         if (this.status == TicketStatus.SOLD && this.purchaseTime == null) {
             this.purchaseTime = LocalDateTime.now();
         }
+        syncActiveClaim();
+    }
+
+    private void syncActiveClaim() {
+        this.activeClaim = this.status == TicketStatus.CANCELLED ? null : Boolean.TRUE;
     }
 
     public enum TicketStatus {
@@ -0,0 +1,24 @@
+package com.CinemaManager.Cinema.booking.entity;
+
+import com.CinemaManager.Cinema.booking.generator.TicketNumberGenerator;
+import jakarta.persistence.PrePersist;
+import org.springframework.beans.factory.annotation.Autowired;
+
+// Присваивает номер новому билету. Генератор внедряется Spring-ом через контейнер бинов Hibernate.
+// Конструктора без аргументов нет намеренно: генератор с узлом по умолчанию дал бы совпадающие номера на разных узлах.
+public class TicketNumberListener {
+
+    private final TicketNumberGenerator ticketNumberGenerator;
+
+    @Autowired
+    public TicketNumberListener(TicketNumberGenerator ticketNumberGenerator) {
+        this.ticketNumberGenerator = ticketNumberGenerator;
+    }
+
+    @PrePersist
+    public void assignTicketNumber(Ticket ticket) {
+        if (ticket.getTicketNumber() == null) {
+            ticket.setTicketNumber(ticketNumberGenerator.nextTicketNumber());
+        }
+    }
+}
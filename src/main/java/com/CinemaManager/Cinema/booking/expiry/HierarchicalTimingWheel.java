@@ -0,0 +1,116 @@
+package com.CinemaManager.Cinema.booking.expiry;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+// Иерархическое колесо таймеров (как в таймерах ядра Linux).
+// Уровень L хранит задачи со сроком через [size^L, size^(L+1)) тиков; при обороте младшего уровня
+// ячейка старшего переносится вниз. Постановка и срабатывание - O(1), без просмотра всех задач.
+public class HierarchicalTimingWheel<T> {
+
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final int bits;
+    private final int mask;
+    private final long maxSpan;
+    private final ArrayDeque<Entry<T>>[][] buckets;
+    private final List<T> overdue = new ArrayList<>();
+
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        if (wheelSize < 2 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two: " + wheelSize);
+        }
+        this.tickMillis = tickMillis;
+        this.bits = Integer.numberOfTrailingZeros(wheelSize);
+        this.mask = wheelSize - 1;
+        this.maxSpan = 1L << (bits * LEVELS);
+        this.buckets = new ArrayDeque[LEVELS][wheelSize];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < wheelSize; slot++) {
+                buckets[level][slot] = new ArrayDeque<>();
+            }
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    public synchronized void schedule(T item, long deadlineMillis) {
+        // Срок округляем вверх до тика: задача не срабатывает раньше времени
+        long deadlineTick = (deadlineMillis + tickMillis - 1) / tickMillis;
+        size++;
+        if (deadlineTick <= currentTick) {
+            overdue.add(item);
+            return;
+        }
+        insert(new Entry<>(item, deadlineTick));
+    }
+
+    // Продвигает колесо до указанного момента и возвращает все истекшие задачи
+    public synchronized List<T> advanceTo(long nowMillis) {
+        List<T> expired = new ArrayList<>(overdue);
+        overdue.clear();
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            ArrayDeque<Entry<T>> bucket = buckets[0][(int) (currentTick & mask)];
+            while (!bucket.isEmpty()) {
+                Entry<T> entry = bucket.poll();
+                if (entry.deadlineTick <= currentTick) {
+                    expired.add(entry.item);
+                } else {
+                    insert(entry);
+                }
+            }
+        }
+        size -= expired.size();
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    private void insert(Entry<T> entry) {
+        long delta = entry.deadlineTick - currentTick;
+        // Слишком далекие сроки паркуются на верхнем уровне и переставляются при каждом его обороте
+        long placementTick = delta < maxSpan ? entry.deadlineTick : currentTick + maxSpan - 1;
+        delta = placementTick - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (bits * (level + 1)))) {
+            level++;
+        }
+        int slot = (int) ((placementTick >>> (bits * level)) & mask);
+        buckets[level][slot].add(entry);
+    }
+
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            // Младший уровень еще не обернулся - старшие переносить рано
+            if (((currentTick >>> (bits * (level - 1))) & mask) != 0) {
+                return;
+            }
+            ArrayDeque<Entry<T>> bucket = buckets[level][(int) ((currentTick >>> (bits * level)) & mask)];
+            List<Entry<T>> moved = new ArrayList<>(bucket);
+            bucket.clear();
+            for (Entry<T> entry : moved) {
+                insert(entry);
+            }
+        }
+    }
+
+    private record Entry<T>(T item, long deadlineTick) {
+    }
+}
@@ -0,0 +1,147 @@
+package com.CinemaManager.Cinema.booking.expiry;
+
+import com.CinemaManager.Cinema.booking.concurrency.SessionLockManager;
+import com.CinemaManager.Cinema.booking.entity.Seat;
+import com.CinemaManager.Cinema.booking.entity.Ticket;
+import com.CinemaManager.Cinema.booking.inventory.SeatInventory;
+import com.CinemaManager.Cinema.booking.repository.SessionRepository;
+import com.CinemaManager.Cinema.booking.repository.TicketRepository;
+import com.CinemaManager.Cinema.booking.support.TransactionCallbacks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Истечение броней (BOOKED) по колесу таймеров: каждая бронь регистрируется при создании
+// и отменяется в момент истечения, без периодического просмотра всей таблицы билетов.
+@Component
+@Slf4j
+public class ReservationExpiryService {
+
+    private static final int WHEEL_SIZE = 64;
+    private static final int BATCH_SIZE = 500;
+
+    private final TicketRepository ticketRepository;
+    private final SessionRepository sessionRepository;
+    private final SeatInventory seatInventory;
+    private final SessionLockManager sessionLockManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration reservationTtl;
+    private final HierarchicalTimingWheel<Expiry> wheel;
+
+    public ReservationExpiryService(TicketRepository ticketRepository,
+                                    SessionRepository sessionRepository,
+                                    SeatInventory seatInventory,
+                                    SessionLockManager sessionLockManager,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${cinema.booking.reservation-ttl:15m}") Duration reservationTtl,
+                                    @Value("${cinema.booking.expiry.tick-ms:1000}") long tickMillis) {
+        this.ticketRepository = ticketRepository;
+        this.sessionRepository = sessionRepository;
+        this.seatInventory = seatInventory;
+        this.sessionLockManager = sessionLockManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reservationTtl = reservationTtl;
+        this.wheel = new HierarchicalTimingWheel<>(tickMillis, WHEEL_SIZE, System.currentTimeMillis());
+    }
+
+    public Duration getReservationTtl() {
+        return reservationTtl;
+    }
+
+    // Брони, созданные раньше этого момента, считаются просроченными
+    public LocalDateTime expirationThreshold() {
+        return LocalDateTime.now().minus(reservationTtl);
+    }
+
+    public int getPendingCount() {
+        return wheel.size();
+    }
+
+    // Ставит брони на таймер только после коммита: откаченная бронь не должна истекать
+    public void registerAfterCommit(Collection<Ticket> tickets) {
+        List<Expiry> expiries = tickets.stream()
+                .map(ticket -> new Expiry(ticket.getId(), ticket.getSession().getId()))
+                .toList();
+        TransactionCallbacks.afterCommit(() -> {
+            long deadline = System.currentTimeMillis() + reservationTtl.toMillis();
+            expiries.forEach(expiry -> wheel.schedule(expiry, deadline));
+        });
+    }
+
+    // После рестарта колесо пустое - восстанавливаем его по незакрытым броням
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long now = System.currentTimeMillis();
+        List<Object[]> reservations = ticketRepository.findBookedReservations();
+        for (Object[] row : reservations) {
+            LocalDateTime createdAt = (LocalDateTime) row[2];
+            long createdMillis = createdAt != null
+                    ? createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                    : now;
+            wheel.schedule(new Expiry((Long) row[0], (Long) row[1]), createdMillis + reservationTtl.toMillis());
+        }
+        log.info("Reservation expiry wheel rebuilt with {} booked tickets", reservations.size());
+    }
+
+    @Scheduled(fixedDelayString = "${cinema.booking.expiry.tick-ms:1000}")
+    public void expireDue() {
+        List<Expiry> due = wheel.advanceTo(System.currentTimeMillis());
+        if (due.isEmpty()) {
+            return;
+        }
+
+        Map<Long, List<Long>> ticketIdsBySession = new LinkedHashMap<>();
+        for (Expiry expiry : due) {
+            ticketIdsBySession.computeIfAbsent(expiry.sessionId(), id -> new ArrayList<>()).add(expiry.ticketId());
+        }
+
+        ticketIdsBySession.forEach((sessionId, ticketIds) -> {
+            for (int from = 0; from < ticketIds.size(); from += BATCH_SIZE) {
+                List<Long> batch = ticketIds.subList(from, Math.min(from + BATCH_SIZE, ticketIds.size()));
+                try {
+                    Integer expired = transactionTemplate.execute(status -> expireSessionBatch(sessionId, batch));
+                    log.debug("Expired {} reservations for session ID: {}", expired, sessionId);
+                } catch (RuntimeException e) {
+                    // Сеанс занят или база недоступна - повторим на следующем тике
+                    log.warn("Failed to expire reservations for session ID: {}: {}", sessionId, e.getMessage());
+                    long retryAt = System.currentTimeMillis() + wheel.getTickMillis();
+                    batch.forEach(ticketId -> wheel.schedule(new Expiry(ticketId, sessionId), retryAt));
+                }
+            }
+        });
+    }
+
+    private int expireSessionBatch(Long sessionId, List<Long> ticketIds) {
+        sessionLockManager.lockForTransaction(sessionId);
+
+        // Подтвержденные или отмененные за это время билеты просто пропускаем
+        List<Ticket> booked = ticketRepository.findBookedWithSeatsByIdIn(ticketIds);
+        if (booked.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> bookedIds = booked.stream().map(Ticket::getId).toList();
+        List<Seat> seats = booked.stream().map(Ticket::getSeat).toList();
+        int expired = ticketRepository.expireReservations(bookedIds);
+        sessionRepository.adjustOccupancy(sessionId, 0, -expired);
+        seatInventory.releaseAfterCommit(sessionId, seats);
+        return expired;
+    }
+
+    private record Expiry(Long ticketId, Long sessionId) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.CinemaManager.Cinema.booking.export;
+
+import com.CinemaManager.Cinema.booking.exception.BusinessException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+@Getter
+@RequiredArgsConstructor
+public enum TicketExportFormat {
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+    CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    public static TicketExportFormat fromParam(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Unsupported export format: " + value);
+        }
+    }
+}
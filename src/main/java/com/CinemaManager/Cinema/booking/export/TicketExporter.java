@@ -0,0 +1,128 @@
+package com.CinemaManager.Cinema.booking.export;
+
+import com.CinemaManager.Cinema.booking.dto.TicketExportRowDTO;
+import com.CinemaManager.Cinema.booking.entity.Ticket;
+import com.CinemaManager.Cinema.booking.repository.TicketRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Выгрузка билетов в NDJSON или CSV потоком: строки читаются курсором с фиксированным fetch size
+// и пишутся в ответ по мере чтения, поэтому память не зависит от размера выгрузки.
+// Строки - DTO из запроса, а не сущности: контекст персистентности не растет.
+@Component
+@Slf4j
+public class TicketExporter {
+
+    // После стольких строк буфер отправляется клиенту
+    private static final int FLUSH_EVERY = 500;
+
+    private static final String[] CSV_HEADER = {
+            "id", "ticketNumber", "status", "createdAt", "purchaseTime", "sessionId", "sessionTime",
+            "movieTitle", "hallName", "rowNumber", "seatNumber", "price", "userId", "userName"
+    };
+
+    private final TicketRepository ticketRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    public TicketExporter(TicketRepository ticketRepository,
+                          ObjectMapper objectMapper,
+                          PlatformTransactionManager transactionManager) {
+        this.ticketRepository = ticketRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    // Интервал дат, обе границы включительно: для проданных билетов - по времени продажи,
+    // для остальных - по времени создания. Возвращает число выгруженных строк.
+    public long export(LocalDate from, LocalDate to, Ticket.TicketStatus status,
+                       TicketExportFormat format, OutputStream out) throws IOException {
+        LocalDateTime rangeFrom = from != null ? from.atStartOfDay() : null;
+        LocalDateTime rangeTo = to != null ? to.plusDays(1).atStartOfDay() : null;
+        // Бронь, выкупленная через неделю, - продажа дня выкупа, а не дня брони
+        boolean bySaleTime = status == Ticket.TicketStatus.SOLD;
+        LocalDateTime createdFrom = bySaleTime ? null : rangeFrom;
+        LocalDateTime createdTo = bySaleTime ? null : rangeTo;
+        LocalDateTime purchasedFrom = bySaleTime ? rangeFrom : null;
+        LocalDateTime purchasedTo = bySaleTime ? rangeTo : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try {
+            // Курсор открыт, пока жива транзакция - вся запись идет внутри нее
+            Long exported = transactionTemplate.execute(tx -> {
+                try (Stream<TicketExportRowDTO> rows = ticketRepository.streamForExport(
+                        createdFrom, createdTo, purchasedFrom, purchasedTo, status)) {
+                    return write(rows.iterator(), format, writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+            log.info("Exported {} tickets as {}", exported, format);
+            return exported != null ? exported : 0;
+        } catch (UncheckedIOException e) {
+            // Обычно это клиент, закрывший соединение посреди выгрузки
+            log.debug("Ticket export aborted: {}", e.getMessage());
+            throw e.getCause();
+        }
+    }
+
+    private long write(Iterator<TicketExportRowDTO> rows, TicketExportFormat format, Writer writer) throws IOException {
+        if (format == TicketExportFormat.CSV) {
+            // BOM - чтобы Excel открыл кириллицу в UTF-8
+            writer.write('\uFEFF');
+            writeCsvLine(writer, (Object[]) CSV_HEADER);
+        }
+        long count = 0;
+        while (rows.hasNext()) {
+            TicketExportRowDTO row = rows.next();
+            if (format == TicketExportFormat.CSV) {
+                writeCsvLine(writer, row.getId(), row.getTicketNumber(), row.getStatus(), row.getCreatedAt(),
+                        row.getPurchaseTime(), row.getSessionId(), row.getSessionTime(), row.getMovieTitle(),
+                        row.getHallName(), row.getRowNumber(), row.getSeatNumber(), row.getPrice(),
+                        row.getUserId(), row.getUserName());
+            } else {
+                writer.write(objectMapper.writeValueAsString(row));
+                writer.write('\n');
+            }
+            if (++count % FLUSH_EVERY == 0) {
+                writer.flush();
+            }
+        }
+        return count;
+    }
+
+    private static void writeCsvLine(Writer writer, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writer.write(csvField(values[i].toString()));
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,153 @@
+package com.CinemaManager.Cinema.booking.generator;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Номера билетов в духе Snowflake: 41 бит времени (мс от эпохи), 10 бит узла, 12 бит счетчика в миллисекунде.
+// Состояние (время + счетчик) хранится в одном AtomicLong и продвигается CAS-ом, без блокировок.
+// Формат: TKT- + 13 символов Crockford base32 + контрольный символ.
+// Контрольный символ - многочлен над GF(32): ловит любую одиночную ошибку и перестановку соседних символов.
+public class SnowflakeTicketNumberGenerator implements TicketNumberGenerator {
+
+    public static final String PREFIX = "TKT-";
+    public static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int BODY_LENGTH = 13;
+    private static final int LENGTH = PREFIX.length() + BODY_LENGTH + 1;
+    // Примитивный многочлен x^5 + x^2 + 1
+    private static final int GF32_POLYNOMIAL = 0b100101;
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    // Старшие биты - миллисекунда последней выдачи, младшие SEQUENCE_BITS - счетчик
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeTicketNumberGenerator(long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeTicketNumberGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    @Override
+    public String nextTicketNumber() {
+        return format(nextId());
+    }
+
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long lastMillis = current >>> SEQUENCE_BITS;
+            long sequence = current & SEQUENCE_MASK;
+            long now = clock.getAsLong() - EPOCH_MILLIS;
+
+            long next;
+            if (now > lastMillis) {
+                next = now << SEQUENCE_BITS;
+            } else if (sequence < SEQUENCE_MASK) {
+                // Та же миллисекунда или часы ушли назад - продолжаем счетчик
+                next = current + 1;
+            } else {
+                // Счетчик исчерпан - занимаем следующую миллисекунду, время остается монотонным
+                next = (lastMillis + 1) << SEQUENCE_BITS;
+            }
+
+            if (state.compareAndSet(current, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                return (millis << (NODE_BITS + SEQUENCE_BITS))
+                        | (nodeId << SEQUENCE_BITS)
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    @Override
+    public boolean isWellFormed(String ticketNumber) {
+        if (ticketNumber == null || !ticketNumber.startsWith(PREFIX)) {
+            return false;
+        }
+        if (isLegacy(ticketNumber)) {
+            return true;
+        }
+        if (ticketNumber.length() != LENGTH) {
+            return false;
+        }
+        int check = 0;
+        for (int i = 0; i < BODY_LENGTH; i++) {
+            int value = decode(ticketNumber.charAt(PREFIX.length() + i));
+            if (value < 0) {
+                return false;
+            }
+            check = nextCheck(check, value);
+        }
+        return decode(ticketNumber.charAt(LENGTH - 1)) == finishCheck(check);
+    }
+
+    static String format(long id) {
+        char[] chars = new char[LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        int check = 0;
+        for (int i = 0; i < BODY_LENGTH; i++) {
+            int shift = 5 * (BODY_LENGTH - 1 - i);
+            int value = (int) ((id >>> shift) & 0x1F);
+            chars[PREFIX.length() + i] = ALPHABET[value];
+            check = nextCheck(check, value);
+        }
+        chars[LENGTH - 1] = ALPHABET[finishCheck(check)];
+        return new String(chars);
+    }
+
+    // Схема Горнера в GF(32): check * x + value
+    private static int nextCheck(int check, int value) {
+        check <<= 1;
+        if ((check & 0x20) != 0) {
+            check ^= GF32_POLYNOMIAL;
+        }
+        return check ^ value;
+    }
+
+    // Лишний шаг с нулем: без него контрольный символ равен H * x + последний символ,
+    // и перестановка последнего символа тела с контрольным проходила бы проверку
+    private static int finishCheck(int check) {
+        return nextCheck(check, 0);
+    }
+
+    // Старый формат: TKT-<миллисекунды>-<случайное число>
+    private static boolean isLegacy(String ticketNumber) {
+        int dash = ticketNumber.indexOf('-', PREFIX.length());
+        if (dash < 0) {
+            return false;
+        }
+        for (int i = PREFIX.length(); i < ticketNumber.length(); i++) {
+            char c = ticketNumber.charAt(i);
+            if (i != dash && (c < '0' || c > '9')) {
+                return false;
+            }
+        }
+        return dash > PREFIX.length() && dash < ticketNumber.length() - 1;
+    }
+
+    private static int decode(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        for (int i = 10; i < ALPHABET.length; i++) {
+            if (ALPHABET[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
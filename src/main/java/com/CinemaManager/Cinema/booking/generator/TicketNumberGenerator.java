@@ -0,0 +1,9 @@
+package com.CinemaManager.Cinema.booking.generator;
+
+public interface TicketNumberGenerator {
+
+    String nextTicketNumber();
+
+    // Дешевая проверка формата до обращения к базе
+    boolean isWellFormed(String ticketNumber);
+}
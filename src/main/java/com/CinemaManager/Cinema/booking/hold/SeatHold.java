@@ -0,0 +1,58 @@
+package com.CinemaManager.Cinema.booking.hold;
+
+import java.util.List;
+
+// Временное удержание мест сеанса. Места заняты в битовой карте, но билетов в базе нет.
+public final class SeatHold {
+
+    private final String holdId;
+    private final Long sessionId;
+    private final Long userId;
+    private final List<Long> seatIds;
+    private final int[] seatIndexes;
+    private final long createdAt;
+    private volatile long expiresAt;
+
+    SeatHold(String holdId, Long sessionId, Long userId, List<Long> seatIds, int[] seatIndexes,
+             long createdAt, long expiresAt) {
+        this.holdId = holdId;
+        this.sessionId = sessionId;
+        this.userId = userId;
+        this.seatIds = List.copyOf(seatIds);
+        this.seatIndexes = seatIndexes;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getHoldId() {
+        return holdId;
+    }
+
+    public Long getSessionId() {
+        return sessionId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public List<Long> getSeatIds() {
+        return seatIds;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    int[] getSeatIndexes() {
+        return seatIndexes;
+    }
+
+    long getCreatedAt() {
+        return createdAt;
+    }
+
+    void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,184 @@
+package com.CinemaManager.Cinema.booking.hold;
+
+import com.CinemaManager.Cinema.booking.entity.Session;
+import com.CinemaManager.Cinema.booking.exception.BusinessException;
+import com.CinemaManager.Cinema.booking.expiry.HierarchicalTimingWheel;
+import com.CinemaManager.Cinema.booking.inventory.SeatInventory;
+import com.CinemaManager.Cinema.booking.inventory.SessionSeatBitmap;
+import com.CinemaManager.Cinema.booking.support.TransactionCallbacks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Мягкие блокировки мест на время выбора: места занимаются только в памяти на короткий срок,
+// продлеваются heartbeat-ом и превращаются в билеты при брони или покупке.
+// Истечение - через колесо таймеров; продленное удержание при срабатывании просто переставляется.
+@Component
+@Slf4j
+public class SeatHoldManager {
+
+    private static final int WHEEL_SIZE = 64;
+
+    private final SeatInventory seatInventory;
+    private final long ttlMillis;
+    private final long maxLifetimeMillis;
+    private final Map<String, SeatHold> holds = new ConcurrentHashMap<>();
+    private final HierarchicalTimingWheel<String> wheel;
+
+    public SeatHoldManager(SeatInventory seatInventory,
+                           @Value("${cinema.booking.hold.ttl:90s}") Duration ttl,
+                           @Value("${cinema.booking.hold.max-lifetime:10m}") Duration maxLifetime,
+                           @Value("${cinema.booking.expiry.tick-ms:1000}") long tickMillis) {
+        this.seatInventory = seatInventory;
+        this.ttlMillis = ttl.toMillis();
+        this.maxLifetimeMillis = maxLifetime.toMillis();
+        this.wheel = new HierarchicalTimingWheel<>(tickMillis, WHEEL_SIZE, System.currentTimeMillis());
+        // Перезагруженная из базы карта не знает об удержаниях - возвращаем их
+        seatInventory.addLoadListener(this::reapplyHolds);
+    }
+
+    // Удерживает места или возвращает пустой результат, если хотя бы одно уже занято
+    public Optional<SeatHold> hold(Session session, List<Long> seatIds, int[] seatIndexes, Long userId) {
+        int[] indexes = seatInventory.tryHold(session, seatIndexes);
+        if (indexes == null) {
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+        SeatHold hold = new SeatHold(UUID.randomUUID().toString(), session.getId(), userId,
+                seatIds, indexes, now, now + ttlMillis);
+        holds.put(hold.getHoldId(), hold);
+        wheel.schedule(hold.getHoldId(), hold.getExpiresAt());
+        log.debug("Held {} seats for session ID: {} as {}", seatIds.size(), session.getId(), hold.getHoldId());
+        return Optional.of(hold);
+    }
+
+    // Продлевает удержание на TTL от текущего момента, но не дольше максимального срока жизни
+    public SeatHold extend(String holdId, Long userId) {
+        SeatHold hold = require(holdId);
+        checkOwner(hold, userId);
+        long now = System.currentTimeMillis();
+        long expiresAt = Math.min(now + ttlMillis, hold.getCreatedAt() + maxLifetimeMillis);
+        if (expiresAt <= now) {
+            throw new BusinessException("Seat hold " + holdId + " cannot be extended any further");
+        }
+        hold.setExpiresAt(expiresAt);
+        return hold;
+    }
+
+    public void release(String holdId, Long userId) {
+        SeatHold hold = holds.get(holdId);
+        if (hold == null) {
+            return;
+        }
+        checkOwner(hold, userId);
+        if (holds.remove(holdId, hold)) {
+            seatInventory.release(hold.getSessionId(), hold.getSeatIndexes());
+        }
+    }
+
+    // Передает удержанные места создаваемым билетам: места уже заняты в карте, повторно их не захватываем.
+    // Не вошедшие в покупку места освобождаются после коммита, при откате удержание восстанавливается.
+    public void takeOver(String holdId, Long sessionId, Long userId, Collection<Long> seatIds) {
+        SeatHold hold = require(holdId);
+        if (!hold.getSessionId().equals(sessionId)) {
+            throw new BusinessException("Seat hold " + holdId + " belongs to another session");
+        }
+        checkOwner(hold, userId);
+        Set<Long> heldSeatIds = new HashSet<>(hold.getSeatIds());
+        for (Long seatId : seatIds) {
+            if (!heldSeatIds.contains(seatId)) {
+                throw new BusinessException("Seat " + seatId + " is not held by " + holdId);
+            }
+        }
+        if (!holds.remove(holdId, hold)) {
+            throw new BusinessException("Seat hold " + holdId + " has expired");
+        }
+
+        Set<Long> takenSeatIds = new HashSet<>(seatIds);
+        int[] leftover = new int[hold.getSeatIds().size() - takenSeatIds.size()];
+        int i = 0;
+        for (int k = 0; k < hold.getSeatIds().size(); k++) {
+            if (!takenSeatIds.contains(hold.getSeatIds().get(k))) {
+                leftover[i++] = hold.getSeatIndexes()[k];
+            }
+        }
+        if (leftover.length > 0) {
+            TransactionCallbacks.afterCommit(() -> seatInventory.release(sessionId, leftover));
+        }
+        TransactionCallbacks.afterRollback(() -> {
+            holds.put(holdId, hold);
+            wheel.schedule(holdId, hold.getExpiresAt());
+        });
+    }
+
+    // ID мест, удерживаемых в сеансе прямо сейчас
+    public Set<Long> heldSeatIds(Long sessionId) {
+        Set<Long> seatIds = new HashSet<>();
+        for (SeatHold hold : holds.values()) {
+            if (hold.getSessionId().equals(sessionId)) {
+                seatIds.addAll(hold.getSeatIds());
+            }
+        }
+        return seatIds;
+    }
+
+    public int getActiveHoldCount() {
+        return holds.size();
+    }
+
+    @Scheduled(fixedDelayString = "${cinema.booking.expiry.tick-ms:1000}")
+    public void expireDue() {
+        long now = System.currentTimeMillis();
+        for (String holdId : wheel.advanceTo(now)) {
+            SeatHold hold = holds.get(holdId);
+            if (hold == null) {
+                continue;
+            }
+            if (hold.getExpiresAt() > now) {
+                // Удержание продлили после постановки на таймер
+                wheel.schedule(holdId, hold.getExpiresAt());
+            } else if (holds.remove(holdId, hold)) {
+                seatInventory.release(hold.getSessionId(), hold.getSeatIndexes());
+                log.debug("Seat hold {} for session ID: {} expired", holdId, hold.getSessionId());
+            }
+        }
+    }
+
+    private SeatHold require(String holdId) {
+        SeatHold hold = holds.get(holdId);
+        if (hold == null || hold.getExpiresAt() <= System.currentTimeMillis()) {
+            throw new BusinessException("Seat hold " + holdId + " not found or expired");
+        }
+        return hold;
+    }
+
+    // ID удержания виден в ответах и логах - одного его знания для продления, снятия или выкупа мало
+    private static void checkOwner(SeatHold hold, Long userId) {
+        if (!Objects.equals(hold.getUserId(), userId)) {
+            throw new BusinessException("Seat hold " + hold.getHoldId() + " belongs to another user");
+        }
+    }
+
+    private void reapplyHolds(SessionSeatBitmap bitmap) {
+        for (SeatHold hold : holds.values()) {
+            if (hold.getSessionId() != bitmap.getSessionId()) {
+                continue;
+            }
+            boolean reapplied;
+            try {
+                reapplied = bitmap.tryClaim(hold.getSeatIndexes());
+            } catch (IllegalArgumentException e) {
+                // Геометрия зала изменилась
+                reapplied = false;
+            }
+            if (!reapplied && holds.remove(hold.getHoldId(), hold)) {
+                log.warn("Seat hold {} dropped: seats are no longer available", hold.getHoldId());
+            }
+        }
+    }
+}
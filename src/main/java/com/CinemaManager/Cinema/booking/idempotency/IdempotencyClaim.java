@@ -0,0 +1,32 @@
+package com.CinemaManager.Cinema.booking.idempotency;
+
+// Результат попытки занять ключ идемпотентности
+public record IdempotencyClaim(Outcome outcome, StoredResponse response) {
+
+    public enum Outcome {
+        // Ключ новый - запрос нужно выполнить
+        STARTED,
+        // Запрос уже выполнен - отдаем сохраненный ответ
+        REPLAY,
+        // Запрос с этим ключом еще выполняется
+        IN_PROGRESS,
+        // Ключ уже использован для другого запроса
+        MISMATCH
+    }
+
+    public static IdempotencyClaim started() {
+        return new IdempotencyClaim(Outcome.STARTED, null);
+    }
+
+    public static IdempotencyClaim replay(StoredResponse response) {
+        return new IdempotencyClaim(Outcome.REPLAY, response);
+    }
+
+    public static IdempotencyClaim inProgress() {
+        return new IdempotencyClaim(Outcome.IN_PROGRESS, null);
+    }
+
+    public static IdempotencyClaim mismatch() {
+        return new IdempotencyClaim(Outcome.MISMATCH, null);
+    }
+}
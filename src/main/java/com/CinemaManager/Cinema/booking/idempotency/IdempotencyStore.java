@@ -0,0 +1,13 @@
+package com.CinemaManager.Cinema.booking.idempotency;
+
+public interface IdempotencyStore {
+
+    // Атомарно занимает ключ или сообщает, что с ним уже происходит
+    IdempotencyClaim begin(String key, String fingerprint);
+
+    // Сохраняет ответ успешно выполненного запроса
+    void complete(String key, StoredResponse response);
+
+    // Освобождает ключ после неуспешного запроса, чтобы клиент мог повторить его
+    void abandon(String key);
+}
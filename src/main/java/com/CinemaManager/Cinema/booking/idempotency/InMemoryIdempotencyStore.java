@@ -0,0 +1,94 @@
+package com.CinemaManager.Cinema.booking.idempotency;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+// Хранилище в памяти с ограничением размера и временем жизни записей.
+// Записи лежат в порядке добавления, поэтому истекшие и самые старые всегда в начале.
+@Component
+@ConditionalOnProperty(name = "cinema.idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    public InMemoryIdempotencyStore(@Value("${cinema.idempotency.max-entries:100000}") int maxEntries,
+                                    @Value("${cinema.idempotency.ttl:24h}") Duration ttl) {
+        this(maxEntries, ttl, System::currentTimeMillis);
+    }
+
+    InMemoryIdempotencyStore(int maxEntries, Duration ttl, LongSupplier clock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Idempotency store size must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized IdempotencyClaim begin(String key, String fingerprint) {
+        long now = clock.getAsLong();
+        purgeExpired(now);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            put(key, new Entry(fingerprint, null, now + ttlMillis));
+            return IdempotencyClaim.started();
+        }
+        if (!entry.fingerprint().equals(fingerprint)) {
+            return IdempotencyClaim.mismatch();
+        }
+        return entry.response() == null
+                ? IdempotencyClaim.inProgress()
+                : IdempotencyClaim.replay(entry.response());
+    }
+
+    @Override
+    public synchronized void complete(String key, StoredResponse response) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            // Переставляем в конец: срок жизни отсчитывается от сохранения ответа
+            put(key, new Entry(entry.fingerprint(), response, clock.getAsLong() + ttlMillis));
+        }
+    }
+
+    @Override
+    public synchronized void abandon(String key) {
+        entries.remove(key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void put(String key, Entry entry) {
+        entries.put(key, entry);
+        if (entries.size() > maxEntries) {
+            Iterator<String> eldest = entries.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private void purgeExpired(long now) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue().expiresAt() > now) {
+                return;
+            }
+            iterator.remove();
+        }
+    }
+
+    private record Entry(String fingerprint, StoredResponse response, long expiresAt) {
+    }
+}
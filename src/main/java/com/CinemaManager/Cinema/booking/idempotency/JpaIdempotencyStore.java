@@ -0,0 +1,102 @@
+package com.CinemaManager.Cinema.booking.idempotency;
+
+import com.CinemaManager.Cinema.booking.entity.IdempotencyRecord;
+import com.CinemaManager.Cinema.booking.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+// Хранилище в базе: ответы переживают рестарт и видны всем экземплярам приложения.
+// Ключ занимается вставкой строки - уникальный индекс не даст двум узлам начать один запрос.
+@Component
+@ConditionalOnProperty(name = "cinema.idempotency.store", havingValue = "jpa")
+@Slf4j
+public class JpaIdempotencyStore implements IdempotencyStore {
+
+    private final IdempotencyRecordRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final Duration inProgressTimeout;
+
+    public JpaIdempotencyStore(IdempotencyRecordRepository repository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${cinema.idempotency.ttl:24h}") Duration ttl,
+                               @Value("${cinema.idempotency.in-progress-timeout:1m}") Duration inProgressTimeout) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ttl = ttl;
+        this.inProgressTimeout = inProgressTimeout;
+    }
+
+    @Override
+    public IdempotencyClaim begin(String key, String fingerprint) {
+        Optional<IdempotencyRecord> existing = repository.findByIdempotencyKey(key);
+        if (existing.isPresent()) {
+            IdempotencyRecord record = existing.get();
+            if (record.getExpiresAt().isAfter(LocalDateTime.now())) {
+                return toClaim(record, fingerprint);
+            }
+            // Запись истекла (или узел упал посреди запроса) - ключ можно занять заново
+            transactionTemplate.executeWithoutResult(status -> repository.deleteByIdempotencyKey(key));
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> repository.saveAndFlush(IdempotencyRecord.builder()
+                    .idempotencyKey(key)
+                    .fingerprint(fingerprint)
+                    .expiresAt(LocalDateTime.now().plus(inProgressTimeout))
+                    .build()));
+            return IdempotencyClaim.started();
+        } catch (DataIntegrityViolationException e) {
+            // Ключ только что занял параллельный запрос
+            return repository.findByIdempotencyKey(key)
+                    .map(record -> toClaim(record, fingerprint))
+                    .orElseGet(IdempotencyClaim::inProgress);
+        }
+    }
+
+    @Override
+    public void complete(String key, StoredResponse response) {
+        transactionTemplate.executeWithoutResult(status -> repository.findByIdempotencyKey(key)
+                .ifPresent(record -> {
+                    record.setResponseStatus(response.status());
+                    record.setContentType(response.contentType());
+                    record.setResponseBody(response.body());
+                    record.setExpiresAt(LocalDateTime.now().plus(ttl));
+                }));
+    }
+
+    @Override
+    public void abandon(String key) {
+        transactionTemplate.executeWithoutResult(status -> repository.deleteByIdempotencyKey(key));
+    }
+
+    @Scheduled(fixedDelayString = "${cinema.idempotency.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        int removed = transactionTemplate.execute(status -> repository.deleteExpired(LocalDateTime.now()));
+        if (removed > 0) {
+            log.debug("Removed {} expired idempotency records", removed);
+        }
+    }
+
+    private static IdempotencyClaim toClaim(IdempotencyRecord record, String fingerprint) {
+        if (!record.getFingerprint().equals(fingerprint)) {
+            return IdempotencyClaim.mismatch();
+        }
+        if (record.getResponseStatus() == null) {
+            return IdempotencyClaim.inProgress();
+        }
+        return IdempotencyClaim.replay(new StoredResponse(
+                record.getResponseStatus(), record.getContentType(), record.getResponseBody()));
+    }
+}
@@ -0,0 +1,5 @@
+package com.CinemaManager.Cinema.booking.idempotency;
+
+// Сохраненный ответ на запрос с ключом идемпотентности
+public record StoredResponse(int status, String contentType, byte[] body) {
+}
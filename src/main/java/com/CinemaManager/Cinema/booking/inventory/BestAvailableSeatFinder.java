@@ -0,0 +1,107 @@
+package com.CinemaManager.Cinema.booking.inventory;
+
+import java.util.Optional;
+
+// Поиск N соседних свободных мест для группы.
+// Ряды перебираются от "лучшего" (около 2/3 глубины зала) наружу, без сортировки.
+// В ряду свободные места обходятся отрезками (run-length) прыжками по 64-битным словам,
+// из подходящих отрезков выбирается блок, ближайший к центру ряда.
+public final class BestAvailableSeatFinder {
+
+    private BestAvailableSeatFinder() {
+    }
+
+    public static Optional<SeatBlock> find(SessionSeatBitmap bitmap, int count) {
+        int totalRows = bitmap.getTotalRows();
+        int seatsPerRow = bitmap.getSeatsPerRow();
+        if (count <= 0 || count > seatsPerRow) {
+            return Optional.empty();
+        }
+
+        long[] words = bitmap.snapshot();
+        int bestRow = preferredRow(totalRows);
+        // bestRow, bestRow+1, bestRow-1, bestRow+2, ... - при равенстве предпочитаем ряд дальше от экрана
+        for (int step = 0; step < 2 * totalRows; step++) {
+            int offset = (step + 1) / 2;
+            int row = step % 2 == 1 ? bestRow + offset : bestRow - offset;
+            if (row < 1 || row > totalRows) {
+                continue;
+            }
+            int firstSeat = findInRow(words, row, seatsPerRow, count);
+            if (firstSeat > 0) {
+                return Optional.of(new SeatBlock(row, firstSeat, count));
+            }
+        }
+        return Optional.empty();
+    }
+
+    static int preferredRow(int totalRows) {
+        return Math.max(1, Math.round(totalRows * 2 / 3.0f));
+    }
+
+    // Номер первого места лучшего блока в ряду или 0, если блока нет
+    private static int findInRow(long[] words, int row, int seatsPerRow, int count) {
+        int rowStart = (row - 1) * seatsPerRow;
+        int rowEnd = rowStart + seatsPerRow;
+        // Центр ряда и центр блока считаем в удвоенных единицах, чтобы не связываться с дробями
+        int rowCenter2 = rowStart + rowEnd - 1;
+        int bestFirst = -1;
+        int bestDistance = Integer.MAX_VALUE;
+
+        int freeStart = nextClearBit(words, rowStart, rowEnd);
+        while (freeStart < rowEnd) {
+            int freeEnd = nextSetBit(words, freeStart, rowEnd);
+            if (freeEnd - freeStart >= count) {
+                // Ставим блок как можно ближе к центру ряда в пределах свободного отрезка
+                int ideal = (rowCenter2 - count + 1) / 2;
+                int first = Math.max(freeStart, Math.min(ideal, freeEnd - count));
+                int distance = Math.abs(2 * first + count - 1 - rowCenter2);
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    bestFirst = first;
+                }
+            }
+            freeStart = nextClearBit(words, freeEnd, rowEnd);
+        }
+        return bestFirst < 0 ? 0 : bestFirst - rowStart + 1;
+    }
+
+    private static int nextSetBit(long[] words, int from, int end) {
+        int word = from >>> 6;
+        long bits = words[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return Math.min(end, (word << 6) + Long.numberOfTrailingZeros(bits));
+            }
+            if (++word >= words.length || (word << 6) >= end) {
+                return end;
+            }
+            bits = words[word];
+        }
+    }
+
+    private static int nextClearBit(long[] words, int from, int end) {
+        int word = from >>> 6;
+        if (word >= words.length) {
+            return end;
+        }
+        long bits = ~words[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return Math.min(end, (word << 6) + Long.numberOfTrailingZeros(bits));
+            }
+            if (++word >= words.length || (word << 6) >= end) {
+                return end;
+            }
+            bits = ~words[word];
+        }
+    }
+
+    // Блок соседних мест: ряд, номер первого места и количество
+    public record SeatBlock(int row, int firstSeat, int count) {
+
+        public int lastSeat() {
+            return firstSeat + count - 1;
+        }
+    }
+}
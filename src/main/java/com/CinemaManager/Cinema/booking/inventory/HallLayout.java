@@ -0,0 +1,120 @@
+package com.CinemaManager.Cinema.booking.inventory;
+
+import com.CinemaManager.Cinema.booking.entity.Seat;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+// Неизменная раскладка мест зала: ID места <-> индекс в битовой карте сеанса.
+// Индекс = (ряд - 1) * seatsPerRow + (место - 1), как в SessionSeatBitmap.
+// Все данные в массивах: проверка мест при покупке - поиск в массиве вместо запроса к базе.
+public final class HallLayout {
+
+    private final long hallId;
+    private final int totalRows;
+    private final int seatsPerRow;
+    // ID места по индексу, 0 - места с таким индексом в зале нет
+    private final long[] seatIdByIndex;
+    // Отсортированные ID и соответствующие им индексы для обратного поиска
+    private final long[] sortedSeatIds;
+    private final int[] indexBySortedSeatId;
+
+    private HallLayout(long hallId, int totalRows, int seatsPerRow, long[] seatIdByIndex) {
+        this.hallId = hallId;
+        this.totalRows = totalRows;
+        this.seatsPerRow = seatsPerRow;
+        this.seatIdByIndex = seatIdByIndex;
+
+        int count = 0;
+        for (long seatId : seatIdByIndex) {
+            if (seatId != 0) {
+                count++;
+            }
+        }
+        long[] sorted = new long[count];
+        int k = 0;
+        for (long seatId : seatIdByIndex) {
+            if (seatId != 0) {
+                sorted[k++] = seatId;
+            }
+        }
+        Arrays.sort(sorted);
+        this.sortedSeatIds = sorted;
+        this.indexBySortedSeatId = new int[count];
+        for (int index = 0; index < seatIdByIndex.length; index++) {
+            if (seatIdByIndex[index] != 0) {
+                indexBySortedSeatId[Arrays.binarySearch(sorted, seatIdByIndex[index])] = index;
+            }
+        }
+    }
+
+    // Места вне геометрии зала (после уменьшения зала без переинициализации) в раскладку не попадают
+    public static HallLayout of(long hallId, int totalRows, int seatsPerRow, Collection<Seat> seats) {
+        if (totalRows <= 0 || seatsPerRow <= 0) {
+            throw new IllegalArgumentException("Hall geometry must be positive: " + totalRows + "x" + seatsPerRow);
+        }
+        long[] seatIdByIndex = new long[totalRows * seatsPerRow];
+        for (Seat seat : seats) {
+            int row = seat.getRowNumber();
+            int number = seat.getSeatNumber();
+            if (row >= 1 && row <= totalRows && number >= 1 && number <= seatsPerRow) {
+                seatIdByIndex[(row - 1) * seatsPerRow + (number - 1)] = seat.getId();
+            }
+        }
+        return new HallLayout(hallId, totalRows, seatsPerRow, seatIdByIndex);
+    }
+
+    public long getHallId() {
+        return hallId;
+    }
+
+    public int getTotalRows() {
+        return totalRows;
+    }
+
+    public int getSeatsPerRow() {
+        return seatsPerRow;
+    }
+
+    public int capacity() {
+        return seatIdByIndex.length;
+    }
+
+    public int seatCount() {
+        return sortedSeatIds.length;
+    }
+
+    // Индекс места или -1, если такого места в зале нет
+    public int indexOf(long seatId) {
+        int position = Arrays.binarySearch(sortedSeatIds, seatId);
+        return position >= 0 ? indexBySortedSeatId[position] : -1;
+    }
+
+    // Индексы всех мест или null, если хотя бы одного места в зале нет
+    public int[] indexesOf(List<Long> seatIds) {
+        int[] indexes = new int[seatIds.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            Long seatId = seatIds.get(i);
+            int index = seatId != null ? indexOf(seatId) : -1;
+            if (index < 0) {
+                return null;
+            }
+            indexes[i] = index;
+        }
+        return indexes;
+    }
+
+    // ID места по индексу или 0, если места нет
+    public long seatIdAt(int index) {
+        return seatIdByIndex[index];
+    }
+
+    public int rowNumberOf(int index) {
+        return index / seatsPerRow + 1;
+    }
+
+    public int seatNumberOf(int index) {
+        return index % seatsPerRow + 1;
+    }
+}
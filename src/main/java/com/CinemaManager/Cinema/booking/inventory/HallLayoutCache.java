@@ -0,0 +1,67 @@
+package com.CinemaManager.Cinema.booking.inventory;
+
+import com.CinemaManager.Cinema.booking.entity.Hall;
+import com.CinemaManager.Cinema.booking.entity.Seat;
+import com.CinemaManager.Cinema.booking.exception.BusinessException;
+import com.CinemaManager.Cinema.booking.repository.SeatRepository;
+import com.CinemaManager.Cinema.booking.support.TransactionCallbacks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Раскладки залов, общие для всех сеансов. Загружаются один раз и сбрасываются
+// только при изменении зала (обновление, удаление, переинициализация мест).
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HallLayoutCache {
+
+    private final SeatRepository seatRepository;
+
+    private final Map<Long, HallLayout> layouts = new ConcurrentHashMap<>();
+
+    public HallLayout get(Hall hall) {
+        HallLayout layout = layouts.get(hall.getId());
+        if (layout == null) {
+            // Загрузка вне computeIfAbsent: запрос к базе не должен выполняться под блокировкой ячейки карты
+            layout = HallLayout.of(hall.getId(), hall.getTotalRows(), hall.getSeatsPerRow(),
+                    seatRepository.findByHallId(hall.getId()));
+            HallLayout existing = layouts.putIfAbsent(hall.getId(), layout);
+            if (existing != null) {
+                layout = existing;
+            } else {
+                log.debug("Loaded layout for hall ID: {}, seats: {}", hall.getId(), layout.seatCount());
+            }
+        }
+        return layout;
+    }
+
+    // Индексы запрошенных мест зала в порядке запроса. В базу идем только чтобы объяснить отказ.
+    public int[] resolveSeats(Hall hall, List<Long> seatIds) {
+        int[] indexes = get(hall).indexesOf(seatIds);
+        if (indexes != null && new HashSet<>(seatIds).size() == seatIds.size()) {
+            return indexes;
+        }
+        List<Long> distinctIds = seatIds.stream().filter(Objects::nonNull).distinct().toList();
+        List<Seat> seats = seatRepository.findByIdIn(distinctIds);
+        if (seats.size() != seatIds.size()) {
+            throw new BusinessException("Some seats not found");
+        }
+        Long foreignSeatId = seats.stream()
+                .map(Seat::getId)
+                .filter(seatId -> get(hall).indexOf(seatId) < 0)
+                .findFirst()
+                .orElseThrow(() -> new BusinessException("Some seats not found"));
+        throw new BusinessException("Seat " + foreignSeatId + " is not in the correct hall");
+    }
+
+    public void evictAfterCommit(Long hallId) {
+        TransactionCallbacks.afterCommit(() -> layouts.remove(hallId));
+    }
+}
@@ -0,0 +1,192 @@
+package com.CinemaManager.Cinema.booking.inventory;
+
+import com.CinemaManager.Cinema.booking.entity.Hall;
+import com.CinemaManager.Cinema.booking.entity.Seat;
+import com.CinemaManager.Cinema.booking.entity.Session;
+import com.CinemaManager.Cinema.booking.exception.BusinessException;
+import com.CinemaManager.Cinema.booking.repository.SeatRepository;
+import com.CinemaManager.Cinema.booking.support.TransactionCallbacks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Оперативный учет занятых мест по сеансам.
+// Битовая карта сеанса загружается из базы один раз, дальше меняется только через claim/release.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SeatInventory {
+
+    private final SeatRepository seatRepository;
+
+    private final Map<Long, SessionSeatBitmap> bitmaps = new ConcurrentHashMap<>();
+    private final List<Consumer<SessionSeatBitmap>> loadListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<SessionSeatBitmap>> changeListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<Long>> evictListeners = new CopyOnWriteArrayList<>();
+    // Начинаем со времени запуска, чтобы поколения не повторялись после рестарта (они входят в ETag)
+    private final AtomicLong generations = new AtomicLong(System.currentTimeMillis());
+
+    public SessionSeatBitmap getBitmap(Session session) {
+        return bitmaps.computeIfAbsent(session.getId(), id -> load(session));
+    }
+
+    // Карта без обращения к базе, если она уже загружена
+    public SessionSeatBitmap getBitmap(Long sessionId, Supplier<Session> sessionLoader) {
+        SessionSeatBitmap bitmap = bitmaps.get(sessionId);
+        return bitmap != null ? bitmap : getBitmap(sessionLoader.get());
+    }
+
+    public SessionSeatBitmap findBitmap(Long sessionId) {
+        return bitmaps.get(sessionId);
+    }
+
+    // Занимает места в памяти. При откате транзакции места автоматически освобождаются.
+    public boolean claim(Session session, Collection<Seat> seats) {
+        return claim(session, indexesOf(getBitmap(session), seats));
+    }
+
+    // То же по индексам мест из раскладки зала
+    public boolean claim(Session session, int[] indexes) {
+        SessionSeatBitmap bitmap = getBitmap(session);
+        if (!bitmap.tryClaim(indexes)) {
+            return false;
+        }
+        fireChanged(bitmap);
+        TransactionCallbacks.afterRollback(() -> {
+            bitmap.release(indexes);
+            fireChanged(bitmap);
+        });
+        return true;
+    }
+
+    // Занимает места без привязки к транзакции (для временных удержаний).
+    // Возвращает индексы занятых мест или null, если хотя бы одно место уже занято.
+    public int[] tryHold(Session session, int[] indexes) {
+        SessionSeatBitmap bitmap = getBitmap(session);
+        if (!bitmap.tryClaim(indexes)) {
+            return null;
+        }
+        fireChanged(bitmap);
+        return indexes;
+    }
+
+    public void release(Long sessionId, int[] indexes) {
+        SessionSeatBitmap bitmap = bitmaps.get(sessionId);
+        if (bitmap != null) {
+            bitmap.release(indexes);
+            fireChanged(bitmap);
+        }
+    }
+
+    // Слушатель вызывается для каждой заново загруженной карты, чтобы восстановить состояние, которого нет в базе
+    public void addLoadListener(Consumer<SessionSeatBitmap> listener) {
+        loadListeners.add(listener);
+    }
+
+    // Слушатель вызывается после каждого изменения занятости и после загрузки карты.
+    // Вызов идет в потоке, изменившем карту, поэтому слушатель должен быть быстрым и неблокирующим.
+    public void addChangeListener(Consumer<SessionSeatBitmap> listener) {
+        changeListeners.add(listener);
+    }
+
+    // Слушатель получает ID сеанса, чья карта выброшена из памяти: держать ее копию дальше нельзя
+    public void addEvictListener(Consumer<Long> listener) {
+        evictListeners.add(listener);
+    }
+
+    // Лучший блок соседних свободных мест по текущей карте сеанса
+    public Optional<BestAvailableSeatFinder.SeatBlock> findBestAvailable(Session session, int count) {
+        return BestAvailableSeatFinder.find(getBitmap(session), count);
+    }
+
+    // Освобождает места только после успешного коммита смены статуса билетов
+    public void releaseAfterCommit(Long sessionId, Collection<Seat> seats) {
+        TransactionCallbacks.afterCommit(() -> {
+            SessionSeatBitmap bitmap = bitmaps.get(sessionId);
+            if (bitmap != null) {
+                bitmap.release(indexesOf(bitmap, seats));
+                fireChanged(bitmap);
+            }
+        });
+    }
+
+    public void evictSession(Long sessionId) {
+        if (bitmaps.remove(sessionId) != null) {
+            fireEvicted(sessionId);
+        }
+    }
+
+    public void evictSessionAfterCommit(Long sessionId) {
+        TransactionCallbacks.afterCommit(() -> evictSession(sessionId));
+    }
+
+    public void evictHallAfterCommit(Long hallId) {
+        TransactionCallbacks.afterCommit(() -> {
+            for (SessionSeatBitmap bitmap : List.copyOf(bitmaps.values())) {
+                if (bitmap.getHallId() == hallId && bitmaps.remove(bitmap.getSessionId(), bitmap)) {
+                    fireEvicted(bitmap.getSessionId());
+                }
+            }
+        });
+    }
+
+    public void evictAllAfterCommit() {
+        TransactionCallbacks.afterCommit(() -> {
+            for (Long sessionId : List.copyOf(bitmaps.keySet())) {
+                evictSession(sessionId);
+            }
+        });
+    }
+
+    private SessionSeatBitmap load(Session session) {
+        Hall hall = session.getHall();
+        SessionSeatBitmap bitmap = new SessionSeatBitmap(
+                session.getId(), hall.getId(), generations.incrementAndGet(),
+                hall.getTotalRows(), hall.getSeatsPerRow());
+        for (Seat seat : seatRepository.findOccupiedSeatsBySession(session.getId())) {
+            int index = bitmap.indexOf(seat.getRowNumber(), seat.getSeatNumber());
+            if (index >= 0) {
+                bitmap.markOccupied(index);
+            }
+        }
+        loadListeners.forEach(listener -> listener.accept(bitmap));
+        fireChanged(bitmap);
+        log.debug("Loaded seat bitmap for session ID: {}, occupied: {}", session.getId(), bitmap.occupiedCount());
+        return bitmap;
+    }
+
+    private void fireEvicted(Long sessionId) {
+        for (Consumer<Long> listener : evictListeners) {
+            listener.accept(sessionId);
+        }
+    }
+
+    private void fireChanged(SessionSeatBitmap bitmap) {
+        for (Consumer<SessionSeatBitmap> listener : changeListeners) {
+            listener.accept(bitmap);
+        }
+    }
+
+    private int[] indexesOf(SessionSeatBitmap bitmap, Collection<Seat> seats) {
+        int[] indexes = new int[seats.size()];
+        int i = 0;
+        for (Seat seat : seats) {
+            int index = bitmap.indexOf(seat.getRowNumber(), seat.getSeatNumber());
+            if (index < 0) {
+                throw new BusinessException("Seat " + seat.getId() + " is outside of the hall layout");
+            }
+            indexes[i++] = index;
+        }
+        return indexes;
+    }
+}
@@ -0,0 +1,98 @@
+package com.CinemaManager.Cinema.booking.inventory;
+
+import com.CinemaManager.Cinema.booking.support.TransactionCallbacks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Неизменная часть карты мест сеанса: шапка (фильм, время, цена, зал) и раскладка мест.
+// Строится один раз; занятость берется из битовой карты SeatInventory, которую билетные операции
+// правят на месте после коммита, поэтому чтение карты мест в базу не ходит.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SeatMapCache {
+
+    private final SeatInventory seatInventory;
+
+    private final Map<Long, SeatMap> seatMaps = new ConcurrentHashMap<>();
+
+    public SeatMap get(Long sessionId, Supplier<SeatMap> loader) {
+        SeatMap seatMap = seatMaps.get(sessionId);
+        if (seatMap == null) {
+            // Загрузка вне computeIfAbsent: запросы к базе не должны выполняться под блокировкой ячейки карты
+            seatMap = loader.get();
+            SeatMap existing = seatMaps.putIfAbsent(sessionId, seatMap);
+            if (existing != null) {
+                seatMap = existing;
+            }
+        }
+        return seatMap;
+    }
+
+    public void evictSessionAfterCommit(Long sessionId) {
+        TransactionCallbacks.afterCommit(() -> seatMaps.remove(sessionId));
+    }
+
+    public void evictHallAfterCommit(Long hallId) {
+        TransactionCallbacks.afterCommit(() ->
+                seatMaps.values().removeIf(seatMap -> seatMap.hallId().equals(hallId)));
+    }
+
+    public void evictMovieAfterCommit(Long movieId) {
+        TransactionCallbacks.afterCommit(() ->
+                seatMaps.values().removeIf(seatMap -> seatMap.movieId().equals(movieId)));
+    }
+
+    public int size() {
+        return seatMaps.size();
+    }
+
+    // Завершившиеся сеансы больше никто не смотрит - освобождаем и карту мест, и битовую карту
+    @Scheduled(fixedDelayString = "${cinema.booking.seat-map.eviction-interval-ms:300000}")
+    public void evictFinishedSessions() {
+        LocalDateTime now = LocalDateTime.now();
+        int evicted = 0;
+        for (SeatMap seatMap : seatMaps.values()) {
+            if (seatMap.finishedBefore(now) && seatMaps.remove(seatMap.sessionId(), seatMap)) {
+                seatInventory.evictSession(seatMap.sessionId());
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} finished sessions from seat map cache", evicted);
+        }
+    }
+
+    public record SeatMap(Long sessionId,
+                          Long movieId,
+                          Long hallId,
+                          String movieTitle,
+                          LocalDateTime startTime,
+                          LocalDateTime endTime,
+                          Double price,
+                          String hallName,
+                          int totalRows,
+                          int seatsPerRow,
+                          List<SeatCell> seats) {
+
+        public SeatMap {
+            seats = List.copyOf(seats);
+        }
+
+        boolean finishedBefore(LocalDateTime now) {
+            LocalDateTime end = endTime != null ? endTime : startTime;
+            return end.isBefore(now);
+        }
+    }
+
+    public record SeatCell(Long seatId, int rowNumber, int seatNumber) {
+    }
+}
@@ -0,0 +1,195 @@
+package com.CinemaManager.Cinema.booking.inventory;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Занятость мест одного сеанса: по одному биту на место (ряды × места в ряду).
+// Захват набора мест выполняется CAS-ами по 64-битным словам без глобальной блокировки:
+// либо заняты все запрошенные места, либо ни одно.
+public final class SessionSeatBitmap {
+
+    private final long sessionId;
+    private final long hallId;
+    // Номер загрузки карты: после перезагрузки счетчик версий начинается заново, поколение - нет
+    private final long generation;
+    private final int totalRows;
+    private final int seatsPerRow;
+    private final AtomicLongArray words;
+    private final AtomicLong version = new AtomicLong();
+
+    public SessionSeatBitmap(long sessionId, long hallId, int totalRows, int seatsPerRow) {
+        this(sessionId, hallId, 0L, totalRows, seatsPerRow);
+    }
+
+    public SessionSeatBitmap(long sessionId, long hallId, long generation, int totalRows, int seatsPerRow) {
+        if (totalRows <= 0 || seatsPerRow <= 0) {
+            throw new IllegalArgumentException("Hall geometry must be positive: " + totalRows + "x" + seatsPerRow);
+        }
+        this.sessionId = sessionId;
+        this.hallId = hallId;
+        this.generation = generation;
+        this.totalRows = totalRows;
+        this.seatsPerRow = seatsPerRow;
+        this.words = new AtomicLongArray((totalRows * seatsPerRow + 63) >>> 6);
+    }
+
+    public long getSessionId() {
+        return sessionId;
+    }
+
+    public long getHallId() {
+        return hallId;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public int getTotalRows() {
+        return totalRows;
+    }
+
+    public int getSeatsPerRow() {
+        return seatsPerRow;
+    }
+
+    public int capacity() {
+        return totalRows * seatsPerRow;
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    // Индекс места в битовой карте или -1, если место вне геометрии зала
+    public int indexOf(int rowNumber, int seatNumber) {
+        if (rowNumber < 1 || rowNumber > totalRows || seatNumber < 1 || seatNumber > seatsPerRow) {
+            return -1;
+        }
+        return (rowNumber - 1) * seatsPerRow + (seatNumber - 1);
+    }
+
+    public boolean isOccupied(int index) {
+        checkIndex(index);
+        return (words.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    public int occupiedCount() {
+        int count = 0;
+        for (int i = 0; i < words.length(); i++) {
+            count += Long.bitCount(words.get(i));
+        }
+        return count;
+    }
+
+    // Атомарно занимает все указанные места. При конфликте уже занятые слова откатываются.
+    public boolean tryClaim(int... indexes) {
+        int[] sorted = sortedDistinct(indexes);
+        int claimedUpTo = 0;
+        int i = 0;
+        while (i < sorted.length) {
+            int word = sorted[i] >>> 6;
+            long mask = 0L;
+            int j = i;
+            while (j < sorted.length && (sorted[j] >>> 6) == word) {
+                mask |= 1L << sorted[j];
+                j++;
+            }
+            if (!casSet(word, mask)) {
+                clearRange(sorted, 0, claimedUpTo);
+                return false;
+            }
+            claimedUpTo = j;
+            i = j;
+        }
+        if (sorted.length > 0) {
+            version.incrementAndGet();
+        }
+        return true;
+    }
+
+    public void release(int... indexes) {
+        int[] sorted = sortedDistinct(indexes);
+        clearRange(sorted, 0, sorted.length);
+        if (sorted.length > 0) {
+            version.incrementAndGet();
+        }
+    }
+
+    // Используется при первичной загрузке занятости из базы
+    void markOccupied(int index) {
+        checkIndex(index);
+        int word = index >>> 6;
+        long mask = 1L << index;
+        long current;
+        do {
+            current = words.get(word);
+        } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+    }
+
+    public long[] snapshot() {
+        long[] copy = new long[words.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = words.get(i);
+        }
+        return copy;
+    }
+
+    // Упакованная занятость: бит i байта k соответствует месту с индексом 8k + i
+    public byte[] toByteArray() {
+        return toByteArray(snapshot(), capacity());
+    }
+
+    // То же для ранее снятого снимка слов
+    public static byte[] toByteArray(long[] words, int capacity) {
+        byte[] bytes = new byte[(capacity + 7) >>> 3];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (words[i >>> 3] >>> ((i & 7) << 3));
+        }
+        return bytes;
+    }
+
+    private boolean casSet(int word, long mask) {
+        while (true) {
+            long current = words.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (words.compareAndSet(word, current, current | mask)) {
+                return true;
+            }
+        }
+    }
+
+    private void clearRange(int[] sorted, int from, int to) {
+        int i = from;
+        while (i < to) {
+            int word = sorted[i] >>> 6;
+            long mask = 0L;
+            while (i < to && (sorted[i] >>> 6) == word) {
+                mask |= 1L << sorted[i];
+                i++;
+            }
+            long current;
+            do {
+                current = words.get(word);
+            } while (!words.compareAndSet(word, current, current & ~mask));
+        }
+    }
+
+    private int[] sortedDistinct(int[] indexes) {
+        for (int index : indexes) {
+            checkIndex(index);
+        }
+        int[] sorted = indexes.clone();
+        Arrays.sort(sorted);
+        return Arrays.stream(sorted).distinct().toArray();
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= capacity()) {
+            throw new IllegalArgumentException("Seat index " + index + " is outside hall geometry");
+        }
+    }
+}
@@ -25,6 +25,9 @@ public interface CinemaMapper {
     @Mapping(target = "movie", ignore = true)
     @Mapping(target = "hall", ignore = true)
     @Mapping(target = "tickets", ignore = true)
+    @Mapping(target = "capacity", ignore = true)
+    @Mapping(target = "soldCount", ignore = true)
+    @Mapping(target = "bookedCount", ignore = true)
     Session toEntity(SessionDTO sessionDTO);
 
     // Ticket mappings
@@ -33,7 +36,9 @@ public interface CinemaMapper {
     @Mapping(target = "hallName", source = "session.hall.name")
     @Mapping(target = "rowNumber", source = "seat.rowNumber")
     @Mapping(target = "seatNumber", source = "seat.seatNumber")
-    @Mapping(target = "price", source = "session.price")
+    // Цена продажи, у броней и старых билетов - текущая цена сеанса
+    @Mapping(target = "price",
+            expression = "java(ticket.getPrice() != null ? ticket.getPrice() : ticket.getSession().getPrice())")
     @Mapping(target = "userName", source = "user.fullName")
     TicketDTO toDTO(Ticket ticket);
 
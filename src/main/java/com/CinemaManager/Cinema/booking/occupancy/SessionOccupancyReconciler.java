@@ -0,0 +1,83 @@
+package com.CinemaManager.Cinema.booking.occupancy;
+
+import com.CinemaManager.Cinema.booking.concurrency.SessionLockManager;
+import com.CinemaManager.Cinema.booking.repository.SessionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Сверка счетчиков sold/booked сеансов с билетами. Счетчики меняются в одной транзакции с билетами,
+// расхождение означает ошибку или ручную правку базы - пересчитываем и пишем предупреждение.
+@Component
+@Slf4j
+public class SessionOccupancyReconciler {
+
+    private final SessionRepository sessionRepository;
+    private final SessionLockManager sessionLockManager;
+    private final TransactionTemplate transactionTemplate;
+
+    public SessionOccupancyReconciler(SessionRepository sessionRepository,
+                                      SessionLockManager sessionLockManager,
+                                      PlatformTransactionManager transactionManager) {
+        this.sessionRepository = sessionRepository;
+        this.sessionLockManager = sessionLockManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${cinema.booking.occupancy.reconcile-interval-ms:600000}")
+    public int reconcile() {
+        // Давно прошедшие сеансы не продаются - их счетчики никто не читает
+        List<Long> staleSessionIds = sessionRepository.findSessionIdsWithStaleOccupancy(
+                LocalDateTime.now().minusDays(1));
+        int fixed = 0;
+        for (Long sessionId : staleSessionIds) {
+            if (recount(sessionId)) {
+                fixed++;
+                log.warn("Occupancy counters of session ID: {} diverged from tickets and were recounted", sessionId);
+            }
+        }
+        return fixed;
+    }
+
+    // Счетчики появились у базы, где сеансы и билеты уже есть: колонки добавлены с нулями.
+    // При старте заполняем вместимость и пересчитываем все расходящиеся сеансы, включая прошедшие.
+    // Когда расхождений нет, проход ограничивается двумя запросами.
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        Integer filledCapacity = transactionTemplate.execute(status -> sessionRepository.fillMissingCapacity());
+        List<Long> staleSessionIds = sessionRepository.findSessionIdsWithStaleOccupancy(
+                LocalDateTime.of(1970, 1, 1, 0, 0));
+        int recounted = 0;
+        for (Long sessionId : staleSessionIds) {
+            if (recount(sessionId)) {
+                recounted++;
+            }
+        }
+        if ((filledCapacity != null && filledCapacity > 0) || recounted > 0) {
+            log.info("Occupancy backfill: capacity filled for {} sessions, counters recounted for {}",
+                    filledCapacity, recounted);
+        }
+    }
+
+    private boolean recount(Long sessionId) {
+        try {
+            Integer updated = transactionTemplate.execute(status -> {
+                // Под блокировкой сеанса билетные операции не меняют счетчики во время пересчета
+                sessionLockManager.lockForTransaction(sessionId);
+                return sessionRepository.recountOccupancy(List.of(sessionId));
+            });
+            return updated != null && updated > 0;
+        } catch (RuntimeException e) {
+            // Сеанс занят - сверим на следующем проходе
+            log.warn("Failed to reconcile occupancy for session ID: {}: {}", sessionId, e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.CinemaManager.Cinema.booking.pipeline;
+
+import com.CinemaManager.Cinema.booking.dto.TicketPurchaseResponseDTO;
+
+// Итог одной покупки внутри пачки: либо ответ, либо ошибка конкретного покупателя
+public record PurchaseOutcome(TicketPurchaseResponseDTO response, RuntimeException error) {
+
+    public static PurchaseOutcome success(TicketPurchaseResponseDTO response) {
+        return new PurchaseOutcome(response, null);
+    }
+
+    public static PurchaseOutcome failure(RuntimeException error) {
+        return new PurchaseOutcome(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
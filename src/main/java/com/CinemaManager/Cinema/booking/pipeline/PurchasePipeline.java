@@ -0,0 +1,236 @@
+package com.CinemaManager.Cinema.booking.pipeline;
+
+import com.CinemaManager.Cinema.booking.dto.PurchaseTicketDTO;
+import com.CinemaManager.Cinema.booking.dto.TicketPurchaseResponseDTO;
+import com.CinemaManager.Cinema.booking.exception.BusinessException;
+import com.CinemaManager.Cinema.booking.service.TicketService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Групповой коммит покупок: запросы к одному сеансу копятся в очереди и обрабатываются
+// пачками (до batch-size запросов или max-delay-ms ожидания) в одной транзакции.
+// Каждый вызывающий получает свой результат. По умолчанию выключен.
+// Разборщики очередей работают на ограниченном пуле (threads): задача разбирает одну пачку
+// и перезапускается, так что сеансы делят потоки по очереди, а не занимают по потоку на сеанс.
+@Component
+@Slf4j
+public class PurchasePipeline {
+
+    private final TicketService ticketService;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final Duration resultTimeout;
+    private final Map<Long, SessionQueue> queues = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public PurchasePipeline(TicketService ticketService,
+                            @Value("${cinema.booking.pipeline.enabled:false}") boolean enabled,
+                            @Value("${cinema.booking.pipeline.batch-size:64}") int batchSize,
+                            @Value("${cinema.booking.pipeline.max-delay-ms:5}") long maxDelayMillis,
+                            @Value("${cinema.booking.pipeline.threads:4}") int threads,
+                            @Value("${cinema.booking.pipeline.result-timeout:30s}") Duration resultTimeout) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Pipeline batch size must be positive");
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Pipeline thread count must be positive");
+        }
+        this.ticketService = ticketService;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.resultTimeout = resultTimeout;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "purchase-pipeline-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public long getFallbackCount() {
+        return fallbacks.sum();
+    }
+
+    // Покупка с ожиданием результата; при выключенном конвейере - обычная транзакция на запрос
+    public TicketPurchaseResponseDTO purchase(PurchaseTicketDTO purchaseDTO) {
+        if (!enabled) {
+            return ticketService.purchaseTickets(purchaseDTO);
+        }
+        CompletableFuture<TicketPurchaseResponseDTO> future = submit(purchaseDTO);
+        try {
+            return future.get(resultTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            // Покупка может еще завершиться - клиенту нужно проверить билеты, а не покупать повторно
+            throw new BusinessException("Purchase for session " + purchaseDTO.getSessionId()
+                    + " is taking too long, check your tickets before retrying");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("Interrupted while waiting for purchase");
+        }
+    }
+
+    public CompletableFuture<TicketPurchaseResponseDTO> submit(PurchaseTicketDTO purchaseDTO) {
+        PendingPurchase pending = new PendingPurchase(purchaseDTO, new CompletableFuture<>());
+        SessionQueue queue = queues.computeIfAbsent(purchaseDTO.getSessionId(), SessionQueue::new);
+        queue.pending.add(pending);
+        // Разборщик очереди один на сеанс; запускает его тот, кто первым застал очередь без него
+        if (queue.draining.compareAndSet(false, true)) {
+            schedule(queue);
+        }
+        return pending.future;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(resultTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+        // Что не успели разобрать, завершаем ошибкой - иначе вызывающие ждали бы до таймаута
+        queues.values().forEach(this::failPending);
+    }
+
+    private void schedule(SessionQueue queue) {
+        try {
+            executor.execute(() -> drain(queue));
+        } catch (RejectedExecutionException e) {
+            queue.draining.set(false);
+            failPending(queue);
+        }
+    }
+
+    // Одна пачка за задачу: следующую разберет перезапуск, и ограниченный пул достается всем сеансам
+    private void drain(SessionQueue queue) {
+        List<PendingPurchase> batch = new ArrayList<>();
+        try {
+            nextBatch(queue, batch);
+            if (!batch.isEmpty()) {
+                process(queue.sessionId, batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Пул останавливают - собранная пачка и очередь сеанса уже не будут обработаны
+            batch.forEach(pending -> pending.future.completeExceptionally(shuttingDown()));
+            failPending(queue);
+        } finally {
+            if (queue.pending.isEmpty()) {
+                // Пустая очередь удаляется, пока флаг разбора еще наш: новый запрос создаст очередь заново
+                queues.remove(queue.sessionId, queue);
+            }
+            queue.draining.set(false);
+        }
+        // Запрос мог прийти между последней выборкой и сбросом флага - в том числе в уже удаленную очередь
+        if (!queue.pending.isEmpty() && queue.draining.compareAndSet(false, true)) {
+            schedule(queue);
+        }
+    }
+
+    private void nextBatch(SessionQueue queue, List<PendingPurchase> batch) throws InterruptedException {
+        PendingPurchase first = queue.pending.poll();
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + maxDelayNanos;
+        while (batch.size() < batchSize) {
+            long remaining = deadline - System.nanoTime();
+            PendingPurchase next = remaining > 0
+                    ? queue.pending.poll(remaining, TimeUnit.NANOSECONDS)
+                    : queue.pending.poll();
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void failPending(SessionQueue queue) {
+        PendingPurchase pending;
+        while ((pending = queue.pending.poll()) != null) {
+            pending.future.completeExceptionally(shuttingDown());
+        }
+    }
+
+    private static BusinessException shuttingDown() {
+        return new BusinessException("Purchase pipeline is shutting down, please retry");
+    }
+
+    private void process(Long sessionId, List<PendingPurchase> batch) {
+        batches.increment();
+        List<PurchaseTicketDTO> purchases = batch.stream().map(PendingPurchase::request).toList();
+        List<PurchaseOutcome> outcomes;
+        try {
+            outcomes = ticketService.purchaseTicketsBatch(sessionId, purchases);
+        } catch (RuntimeException e) {
+            // Пачка откатилась целиком - проводим покупки по одной, чтобы ошибка досталась только виновнику
+            log.warn("Purchase batch of {} for session ID: {} failed, falling back to single purchases: {}",
+                    batch.size(), sessionId, e.getMessage());
+            fallbacks.increment();
+            batch.forEach(this::purchaseSingle);
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            PurchaseOutcome outcome = outcomes.get(i);
+            if (outcome.isSuccess()) {
+                batch.get(i).future.complete(outcome.response());
+            } else {
+                batch.get(i).future.completeExceptionally(outcome.error());
+            }
+        }
+    }
+
+    private void purchaseSingle(PendingPurchase pending) {
+        try {
+            pending.future.complete(ticketService.purchaseTickets(pending.request));
+        } catch (RuntimeException e) {
+            pending.future.completeExceptionally(e);
+        }
+    }
+
+    private record PendingPurchase(PurchaseTicketDTO request, CompletableFuture<TicketPurchaseResponseDTO> future) {
+    }
+
+    private static final class SessionQueue {
+        private final Long sessionId;
+        private final LinkedBlockingQueue<PendingPurchase> pending = new LinkedBlockingQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private SessionQueue(Long sessionId) {
+            this.sessionId = sessionId;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.CinemaManager.Cinema.booking.repository;
 
 import com.CinemaManager.Cinema.booking.entity.Hall;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -33,9 +34,6 @@ public interface HallRepository extends JpaRepository<Hall, Long> {
     @Query("SELECT h, (h.totalRows * h.seatsPerRow) as totalSeats FROM Hall h")
     List<Object[]> findAllHallsWithTotalSeats();
 
-    // Найти доступные залы для определенного времени (не занятые другими сеансами)
-    @Query("SELECT h FROM Hall h WHERE h.id NOT IN " +
-            "(SELECT s.hall.id FROM Session s WHERE s.startTime <= :endTime AND s.endTime >= :startTime)")
-    List<Hall> findAvailableHalls(@Param("startTime") java.time.LocalDateTime startTime,
-                                  @Param("endTime") java.time.LocalDateTime endTime);
-}
\ No newline at end of file
+    // Страница списка по курсору: WHERE id > :id ORDER BY id LIMIT :limit
+    List<Hall> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+}
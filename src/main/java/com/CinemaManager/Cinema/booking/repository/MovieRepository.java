@@ -1,6 +1,7 @@
 package com.CinemaManager.Cinema.booking.repository;
 
 import com.CinemaManager.Cinema.booking.entity.Movie;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -51,4 +52,7 @@ public interface MovieRepository extends JpaRepository<Movie, Long> {
 
     // 6. Метод для поиска по режиссеру
     List<Movie> findByDirectorContainingIgnoreCase(String director);
-}
\ No newline at end of file
+
+    // Страница списка по курсору: WHERE id > :id ORDER BY id LIMIT :limit
+    List<Movie> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+}
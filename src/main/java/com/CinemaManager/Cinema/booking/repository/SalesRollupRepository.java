@@ -0,0 +1,66 @@
+package com.CinemaManager.Cinema.booking.repository;
+
+import com.CinemaManager.Cinema.booking.entity.SalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Аналитика по витрине продаж: запросы читают O(дни x фильмы x залы) строк вместо всех билетов периода
+@Repository
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, Long> {
+
+    // Приращение существующей строки; 0 - строки часа еще нет
+    @Modifying
+    @Query("UPDATE SalesRollup r SET r.soldCount = r.soldCount + :sold, r.revenue = r.revenue + :revenue " +
+            "WHERE r.salesDate = :salesDate AND r.salesHour = :salesHour " +
+            "AND r.movieId = :movieId AND r.hallId = :hallId")
+    int increment(@Param("salesDate") LocalDate salesDate,
+                  @Param("salesHour") Integer salesHour,
+                  @Param("movieId") Long movieId,
+                  @Param("hallId") Long hallId,
+                  @Param("sold") long sold,
+                  @Param("revenue") double revenue);
+
+    @Modifying
+    @Query("DELETE FROM SalesRollup r WHERE r.salesDate = :salesDate")
+    int deleteBySalesDate(@Param("salesDate") LocalDate salesDate);
+
+    // Строка на день: дата, число билетов, выручка
+    @Query("SELECT r.salesDate, SUM(r.soldCount), SUM(r.revenue) FROM SalesRollup r " +
+            "WHERE r.salesDate BETWEEN :startDate AND :endDate " +
+            "GROUP BY r.salesDate")
+    List<Object[]> getDailySales(@Param("startDate") LocalDate startDate,
+                                 @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT m.title, SUM(r.revenue) FROM SalesRollup r " +
+            "JOIN Movie m ON m.id = r.movieId " +
+            "WHERE r.salesDate BETWEEN :startDate AND :endDate " +
+            "GROUP BY m.title " +
+            "ORDER BY SUM(r.revenue) DESC")
+    List<Object[]> getRevenueByMovie(@Param("startDate") LocalDate startDate,
+                                     @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT m.title, SUM(r.soldCount) FROM SalesRollup r " +
+            "JOIN Movie m ON m.id = r.movieId " +
+            "WHERE r.salesDate BETWEEN :startDate AND :endDate " +
+            "GROUP BY m.title " +
+            "ORDER BY SUM(r.soldCount) DESC")
+    List<Object[]> getTicketCountByMovie(@Param("startDate") LocalDate startDate,
+                                         @Param("endDate") LocalDate endDate);
+
+    // Строка на час суток: час, число билетов
+    @Query("SELECT r.salesHour, SUM(r.soldCount) FROM SalesRollup r " +
+            "WHERE r.salesDate BETWEEN :startDate AND :endDate " +
+            "GROUP BY r.salesHour " +
+            "ORDER BY r.salesHour")
+    List<Object[]> getTicketsByHour(@Param("startDate") LocalDate startDate,
+                                    @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT COALESCE(SUM(r.soldCount), 0) FROM SalesRollup r")
+    Long countSoldTickets();
+}
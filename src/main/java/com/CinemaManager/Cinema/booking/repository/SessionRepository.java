@@ -1,14 +1,19 @@
 package com.CinemaManager.Cinema.booking.repository;
 
+import com.CinemaManager.Cinema.booking.dto.SessionAvailabilityDTO;
+import com.CinemaManager.Cinema.booking.dto.SessionDTO;
 import com.CinemaManager.Cinema.booking.entity.Movie;
 import com.CinemaManager.Cinema.booking.entity.Session;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -37,15 +42,27 @@ public interface SessionRepository extends JpaRepository<Session, Long> {
     @Query("SELECT s FROM Session s WHERE s.movie.id = :movieId AND s.hall.id = :hallId")
     List<Session> findByMovieAndHall(@Param("movieId") Long movieId, @Param("hallId") Long hallId);
 
-    // 5. Методы поиска по дате (с использованием @Query для работы с датами)
-    @Query("SELECT s FROM Session s WHERE DATE(s.startTime) = :date")
-    List<Session> findByDate(@Param("date") LocalDate date);
+    // 5. Методы поиска по дате. Дата превращается в полуоткрытый интервал [начало дня, начало следующего дня):
+    // условие на саму колонку start_time использует индекс, DATE(start_time) - нет
+    @Query("SELECT s FROM Session s WHERE s.startTime >= :from AND s.startTime < :to")
+    List<Session> findStartingInRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 
-    @Query("SELECT s FROM Session s WHERE DATE(s.startTime) = :date AND s.movie.id = :movieId")
-    List<Session> findByMovieIdAndDate(@Param("movieId") Long movieId, @Param("date") LocalDate date);
+    @Query("SELECT s FROM Session s WHERE s.movie.id = :movieId AND s.startTime >= :from AND s.startTime < :to")
+    List<Session> findByMovieStartingInRange(@Param("movieId") Long movieId,
+                                             @Param("from") LocalDateTime from,
+                                             @Param("to") LocalDateTime to);
 
-    @Query("SELECT s FROM Session s WHERE DATE(s.startTime) >= :startDate AND DATE(s.startTime) <= :endDate")
-    List<Session> findByDateRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    default List<Session> findByDate(LocalDate date) {
+        return findStartingInRange(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
+
+    default List<Session> findByMovieIdAndDate(Long movieId, LocalDate date) {
+        return findByMovieStartingInRange(movieId, date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
+
+    default List<Session> findByDateRange(LocalDate startDate, LocalDate endDate) {
+        return findStartingInRange(startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay());
+    }
 
     // 6. Методы для проверки доступности зала
     @Query("SELECT CASE WHEN COUNT(s) > 0 THEN true ELSE false END FROM Session s " +
@@ -57,6 +74,10 @@ public interface SessionRepository extends JpaRepository<Session, Long> {
                                    @Param("startTime") LocalDateTime startTime,
                                    @Param("endTime") LocalDateTime endTime);
 
+    // Расписание зала для HallScheduleIndex: только ID и границы сеансов
+    @Query("SELECT s.id, s.startTime, s.endTime FROM Session s WHERE s.hall.id = :hallId")
+    List<Object[]> findScheduleByHallId(@Param("hallId") Long hallId);
+
     // 7. Методы с жадной загрузкой (FETCH JOIN)
     @Query("SELECT s FROM Session s LEFT JOIN FETCH s.tickets WHERE s.id = :sessionId")
     Optional<Session> findSessionWithTickets(@Param("sessionId") Long sessionId);
@@ -68,18 +89,30 @@ public interface SessionRepository extends JpaRepository<Session, Long> {
             "WHERE s.id = :sessionId")
     Optional<Session> findSessionWithAllDetails(@Param("sessionId") Long sessionId);
 
+    // Остаток мест по счетчикам. Как и Session.getAvailableSeats, не уходит ниже нуля,
+    // если счетчики временно разошлись с вместимостью (например, после уменьшения зала)
+    String AVAILABLE_SEATS = "CASE WHEN COALESCE(s.capacity, 0) - s.soldCount - s.bookedCount < 0 THEN 0 " +
+            "ELSE COALESCE(s.capacity, 0) - s.soldCount - s.bookedCount END";
+
     // 8. Методы для аналитики и статистики
     @Query("SELECT s, COUNT(t) as soldTickets FROM Session s " +
             "LEFT JOIN s.tickets t ON t.status = 'SOLD' " +
             "GROUP BY s ORDER BY s.startTime")
     List<Object[]> findSessionsWithTicketCount();
 
-    @Query("SELECT (h.totalRows * h.seatsPerRow - COUNT(t)) FROM Session s " +
-            "JOIN s.hall h LEFT JOIN s.tickets t " +
-            "WHERE s.id = :sessionId AND t.status != 'CANCELLED' " +
-            "GROUP BY h.totalRows, h.seatsPerRow")
+    @Query("SELECT " + AVAILABLE_SEATS + " FROM Session s WHERE s.id = :sessionId")
     Integer findAvailableSeatsCount(@Param("sessionId") Long sessionId);
 
+    // Свободные места здесь - все непроданные, брони считаются свободными
+    @Query("SELECT new com.CinemaManager.Cinema.booking.dto.SessionDTO(" +
+            "s.id, s.startTime, s.endTime, s.price, m.id, h.id, m.title, h.name, s.capacity - s.soldCount) " +
+            "FROM Session s JOIN s.movie m JOIN s.hall h " +
+            "WHERE s.startTime > :currentTime AND s.capacity > 0 " +
+            "AND s.soldCount * 100 < :threshold * s.capacity " +
+            "ORDER BY s.startTime ASC")
+    List<SessionDTO> findUpcomingWithAttendanceBelow(@Param("currentTime") LocalDateTime currentTime,
+                                                     @Param("threshold") int threshold);
+
     @Query("SELECT s FROM Session s WHERE s.movie.id = :movieId " +
             "AND s.startTime > :currentTime " +
             "ORDER BY s.startTime ASC")
@@ -102,27 +135,37 @@ public interface SessionRepository extends JpaRepository<Session, Long> {
             "ORDER BY s.startTime ASC")
     List<Session> findUpcomingSessions();
 
-    @Query("SELECT DISTINCT s FROM Session s " +
-            "JOIN s.hall h " +
+    @Query("SELECT s FROM Session s " +
             "WHERE s.startTime > CURRENT_TIMESTAMP " +
-            "AND (h.totalRows * h.seatsPerRow) > " +
-            "(SELECT COUNT(t) FROM Ticket t WHERE t.session.id = s.id AND t.status != 'CANCELLED')")
+            "AND s.capacity > s.soldCount + s.bookedCount")
     List<Session> findAvailableSessions();
 
-    // 11. Методы для поиска по нескольким критериям
+    // 11. Методы для поиска по нескольким критериям.
+    // Границы по start_time обязательны: условие вида (:from IS NULL OR ...) не дает использовать индекс,
+    // поэтому без дат подставляется открытый интервал
+    LocalDateTime SEARCH_FROM = LocalDateTime.of(1970, 1, 1, 0, 0);
+    LocalDateTime SEARCH_TO = LocalDateTime.of(9999, 1, 1, 0, 0);
+
     @Query("SELECT s FROM Session s WHERE " +
-            "(:movieId IS NULL OR s.movie.id = :movieId) " +
+            "s.startTime >= :from AND s.startTime < :to " +
+            "AND (:movieId IS NULL OR s.movie.id = :movieId) " +
             "AND (:hallId IS NULL OR s.hall.id = :hallId) " +
-            "AND (:startDate IS NULL OR DATE(s.startTime) >= :startDate) " +
-            "AND (:endDate IS NULL OR DATE(s.startTime) <= :endDate) " +
             "AND (:minPrice IS NULL OR s.price >= :minPrice) " +
             "AND (:maxPrice IS NULL OR s.price <= :maxPrice)")
-    List<Session> searchSessions(@Param("movieId") Long movieId,
-                                 @Param("hallId") Long hallId,
-                                 @Param("startDate") LocalDate startDate,
-                                 @Param("endDate") LocalDate endDate,
-                                 @Param("minPrice") Double minPrice,
-                                 @Param("maxPrice") Double maxPrice);
+    List<Session> searchSessionsInRange(@Param("movieId") Long movieId,
+                                        @Param("hallId") Long hallId,
+                                        @Param("from") LocalDateTime from,
+                                        @Param("to") LocalDateTime to,
+                                        @Param("minPrice") Double minPrice,
+                                        @Param("maxPrice") Double maxPrice);
+
+    default List<Session> searchSessions(Long movieId, Long hallId, LocalDate startDate, LocalDate endDate,
+                                         Double minPrice, Double maxPrice) {
+        return searchSessionsInRange(movieId, hallId,
+                startDate != null ? startDate.atStartOfDay() : SEARCH_FROM,
+                endDate != null ? endDate.plusDays(1).atStartOfDay() : SEARCH_TO,
+                minPrice, maxPrice);
+    }
 
     // 12. Дополнительные удобные методы
     @Query("SELECT DISTINCT DATE(s.startTime) FROM Session s " +
@@ -133,4 +176,78 @@ public interface SessionRepository extends JpaRepository<Session, Long> {
     @Query("SELECT DISTINCT s.movie FROM Session s " +
             "WHERE s.startTime > CURRENT_TIMESTAMP")
     List<Movie> findMoviesWithUpcomingSessions();
-}
\ No newline at end of file
+
+    // 13. Счетчики занятости сеанса
+    @Modifying
+    @Query("UPDATE Session s SET s.soldCount = s.soldCount + :sold, s.bookedCount = s.bookedCount + :booked " +
+            "WHERE s.id = :sessionId")
+    int adjustOccupancy(@Param("sessionId") Long sessionId,
+                        @Param("sold") int sold,
+                        @Param("booked") int booked);
+
+    @Modifying
+    @Query("UPDATE Session s SET s.capacity = :capacity WHERE s.hall.id = :hallId")
+    int updateCapacityByHall(@Param("hallId") Long hallId, @Param("capacity") int capacity);
+
+    // Сеансы, созданные до появления счетчиков: вместимость берется из текущей геометрии зала
+    @Modifying
+    @Query("UPDATE Session s SET s.capacity = " +
+            "(SELECT h.totalRows * h.seatsPerRow FROM Hall h WHERE h.id = s.hall.id) " +
+            "WHERE s.capacity IS NULL")
+    int fillMissingCapacity();
+
+    // Пересчет счетчиков по билетам - для массовых отмен и сверки
+    @Modifying
+    @Query("UPDATE Session s SET " +
+            "s.soldCount = (SELECT CAST(COUNT(t) AS Integer) FROM Ticket t WHERE t.session.id = s.id AND t.status = 'SOLD'), " +
+            "s.bookedCount = (SELECT CAST(COUNT(t) AS Integer) FROM Ticket t WHERE t.session.id = s.id AND t.status = 'BOOKED') " +
+            "WHERE s.id IN :sessionIds")
+    int recountOccupancy(@Param("sessionIds") Collection<Long> sessionIds);
+
+    @Query("SELECT s.id FROM Session s WHERE s.startTime > :since AND (" +
+            "s.soldCount <> (SELECT COUNT(t) FROM Ticket t WHERE t.session.id = s.id AND t.status = 'SOLD') " +
+            "OR s.bookedCount <> (SELECT COUNT(t) FROM Ticket t WHERE t.session.id = s.id AND t.status = 'BOOKED'))")
+    List<Long> findSessionIdsWithStaleOccupancy(@Param("since") LocalDateTime since);
+
+    // 14. Остаток мест пачки сеансов одним запросом - по счетчикам, без подсчета билетов
+    @Query("SELECT new com.CinemaManager.Cinema.booking.dto.SessionAvailabilityDTO(" +
+            "s.id, s.startTime, s.capacity, s.soldCount, s.bookedCount, " + AVAILABLE_SEATS + ") " +
+            "FROM Session s WHERE s.id IN :sessionIds ORDER BY s.startTime ASC")
+    List<SessionAvailabilityDTO> findAvailabilityByIds(@Param("sessionIds") Collection<Long> sessionIds);
+
+    @Query("SELECT new com.CinemaManager.Cinema.booking.dto.SessionAvailabilityDTO(" +
+            "s.id, s.startTime, s.capacity, s.soldCount, s.bookedCount, " + AVAILABLE_SEATS + ") " +
+            "FROM Session s WHERE s.startTime >= :from AND s.startTime < :to " +
+            "AND (:movieId IS NULL OR s.movie.id = :movieId) ORDER BY s.startTime ASC")
+    List<SessionAvailabilityDTO> findAvailabilityBetween(@Param("from") LocalDateTime from,
+                                                         @Param("to") LocalDateTime to,
+                                                         @Param("movieId") Long movieId);
+
+    // 15. Списки сеансов сразу в SessionDTO одним запросом - без догрузки фильма и зала по каждой строке
+    String SESSION_DTO_SELECT = "SELECT new com.CinemaManager.Cinema.booking.dto.SessionDTO(" +
+            "s.id, s.startTime, s.endTime, s.price, m.id, h.id, m.title, h.name, " +
+            AVAILABLE_SEATS + ") " +
+            "FROM Session s JOIN s.movie m JOIN s.hall h ";
+
+    // Страница списка по курсору: WHERE id > :after ORDER BY id LIMIT :limit
+    @Query(SESSION_DTO_SELECT + "WHERE s.id > :after ORDER BY s.id")
+    List<SessionDTO> findDTOsAfter(@Param("after") Long after, Limit limit);
+
+    @Query(SESSION_DTO_SELECT + "WHERE m.id = :movieId AND s.id > :after ORDER BY s.id")
+    List<SessionDTO> findDTOsByMovieIdAfter(@Param("movieId") Long movieId, @Param("after") Long after, Limit limit);
+
+    @Query(SESSION_DTO_SELECT + "WHERE s.startTime >= :from AND s.startTime < :to ORDER BY s.startTime ASC")
+    List<SessionDTO> findDTOsStartingInRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query(SESSION_DTO_SELECT + "WHERE s.startTime > CURRENT_TIMESTAMP " +
+            "AND s.capacity > s.soldCount + s.bookedCount AND s.id > :after ORDER BY s.id")
+    List<SessionDTO> findAvailableDTOsAfter(@Param("after") Long after, Limit limit);
+
+    default List<SessionDTO> findDTOsByDate(LocalDate date) {
+        return findDTOsStartingInRange(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
+
+    default List<SessionDTO> findDTOsByDateRange(LocalDate startDate, LocalDate endDate) {
+        return findDTOsStartingInRange(startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay());
+    }
+}
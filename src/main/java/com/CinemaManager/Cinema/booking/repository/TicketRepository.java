@@ -1,17 +1,25 @@
 package com.CinemaManager.Cinema.booking.repository;
 
+import com.CinemaManager.Cinema.booking.dto.TicketDTO;
+import com.CinemaManager.Cinema.booking.dto.TicketExportRowDTO;
 import com.CinemaManager.Cinema.booking.entity.Ticket;
 import com.CinemaManager.Cinema.booking.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TicketRepository extends JpaRepository<Ticket, Long> {
@@ -20,6 +28,9 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
     List<Ticket> findByUserId(Long userId);
     List<Ticket> findBySessionId(Long sessionId);
     Optional<Ticket> findByTicketNumber(String ticketNumber);
+
+    @Query("SELECT t.session.id FROM Ticket t WHERE t.ticketNumber = :ticketNumber")
+    Optional<Long> findSessionIdByTicketNumber(@Param("ticketNumber") String ticketNumber);
     List<Ticket> findByStatus(Ticket.TicketStatus status);
     List<Ticket> findBySessionIdAndStatus(Long sessionId, Ticket.TicketStatus status);
     List<Ticket> findByUserIdAndStatus(Long userId, Ticket.TicketStatus status);
@@ -27,7 +38,6 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
     List<Ticket> findByIdIn(List<Long> ticketIds);
 
     Long countByUserId(Long userId);
-    Long countByStatus(Ticket.TicketStatus status);
 
     @Query("SELECT COUNT(t) FROM Ticket t WHERE t.user.id = :userId")
     Long countByUserIdCustom(@Param("userId") Long userId);
@@ -35,47 +45,32 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
     @Query("SELECT COUNT(t) FROM Ticket t WHERE t.session.id = :sessionId AND t.status = 'SOLD'")
     Long countSoldTicketsBySession(@Param("sessionId") Long sessionId);
 
-    @Query("SELECT COUNT(t) FROM Ticket t WHERE t.status = 'SOLD' " +
-            "AND t.purchaseTime BETWEEN :startDate AND :endDate")
-    Long countSoldTicketsByDate(@Param("startDate") LocalDateTime startDate,
-                                @Param("endDate") LocalDateTime endDate);
-
-    @Query("SELECT COUNT(t) FROM Ticket t WHERE t.user.id = :userId " +
-            "AND t.status = 'SOLD' " +
-            "AND t.purchaseTime BETWEEN :startDate AND :endDate")
-    Long countUserTicketsByPeriod(@Param("userId") Long userId,
-                                  @Param("startDate") LocalDateTime startDate,
-                                  @Param("endDate") LocalDateTime endDate);
+    // Статистика страницы пользователей одним запросом:
+    // [id пользователя, всего билетов, потрачено на проданные, продано за период [periodStart, periodEnd)]
+    @Query("SELECT t.user.id, COUNT(t), " +
+            "COALESCE(SUM(CASE WHEN t.status = 'SOLD' THEN COALESCE(t.price, s.price) ELSE 0 END), 0), " +
+            "SUM(CASE WHEN t.status = 'SOLD' AND t.purchaseTime >= :periodStart " +
+            "AND t.purchaseTime < :periodEnd THEN 1 ELSE 0 END) " +
+            "FROM Ticket t JOIN t.session s " +
+            "WHERE t.user.id IN :userIds " +
+            "GROUP BY t.user.id")
+    List<Object[]> getUserStats(@Param("userIds") Collection<Long> userIds,
+                                @Param("periodStart") LocalDateTime periodStart,
+                                @Param("periodEnd") LocalDateTime periodEnd);
 
     // 3. Методы для аналитики и отчетов
-    @Query("SELECT m.title, COALESCE(SUM(s.price), 0) FROM Ticket t " +
-            "JOIN t.session s " +
-            "JOIN s.movie m " +
-            "WHERE t.status = 'SOLD' " +
-            "AND t.purchaseTime BETWEEN :startDate AND :endDate " +
-            "GROUP BY m.title ORDER BY SUM(s.price) DESC")
-    List<Object[]> getRevenueByMovie(@Param("startDate") LocalDateTime startDate,
-                                     @Param("endDate") LocalDateTime endDate);
-
-    @Query("SELECT m.title, COUNT(t) as ticketCount FROM Ticket t " +
-            "JOIN t.session s " +
-            "JOIN s.movie m " +
-            "WHERE t.status = 'SOLD' " +
-            "AND t.purchaseTime BETWEEN :startDate AND :endDate " +
-            "GROUP BY m.title ORDER BY COUNT(t) DESC")
-    List<Object[]> getTicketCountByMovie(@Param("startDate") LocalDateTime startDate,
-                                         @Param("endDate") LocalDateTime endDate);
-
-    @Query("SELECT COALESCE(SUM(s.price), 0) FROM Ticket t " +
+    // Продажи интервала в разрезе витрины: [час, фильм, зал, билетов, выручка].
+    // Выручка - по цене продажи; у билетов, проданных до появления колонки price, - по цене сеанса
+    @Query("SELECT EXTRACT(HOUR FROM t.purchaseTime), s.movie.id, s.hall.id, COUNT(t), " +
+            "SUM(COALESCE(t.price, s.price)) FROM Ticket t " +
             "JOIN t.session s WHERE t.status = 'SOLD' " +
-            "AND t.purchaseTime BETWEEN :startDate AND :endDate")
-    Double calculateRevenueByPeriod(@Param("startDate") LocalDateTime startDate,
-                                    @Param("endDate") LocalDateTime endDate);
+            "AND t.purchaseTime >= :from AND t.purchaseTime < :to " +
+            "GROUP BY EXTRACT(HOUR FROM t.purchaseTime), s.movie.id, s.hall.id")
+    List<Object[]> getHourlySalesByMovieAndHall(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 
-    @Query("SELECT COALESCE(SUM(s.price), 0) FROM Ticket t " +
-            "JOIN t.session s " +
-            "WHERE t.user.id = :userId AND t.status = 'SOLD'")
-    Double calculateUserSpending(@Param("userId") Long userId);
+    // Время первой продажи - начало истории для первичного заполнения витрины
+    @Query("SELECT MIN(t.purchaseTime) FROM Ticket t WHERE t.status = 'SOLD'")
+    Optional<LocalDateTime> findFirstSaleTime();
 
     // 4. Методы для проверки доступности и работы с данными
     @Query("SELECT CASE WHEN COUNT(t) = 0 THEN true ELSE false END FROM Ticket t " +
@@ -89,6 +84,14 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
             "AND t.createdAt < :expirationTime")
     List<Ticket> findExpiredReservations(@Param("expirationTime") LocalDateTime expirationTime);
 
+    // Открытые брони для восстановления колеса таймеров: id, id сеанса, время создания
+    @Query("SELECT t.id, t.session.id, t.createdAt FROM Ticket t WHERE t.status = 'BOOKED'")
+    List<Object[]> findBookedReservations();
+
+    @Query("SELECT t FROM Ticket t JOIN FETCH t.seat " +
+            "WHERE t.id IN :ticketIds AND t.status = 'BOOKED'")
+    List<Ticket> findBookedWithSeatsByIdIn(@Param("ticketIds") List<Long> ticketIds);
+
     // 5. Методы для загрузки связанных данных (жадная загрузка)
     @Query("SELECT t FROM Ticket t " +
             "JOIN FETCH t.session s " +
@@ -113,18 +116,35 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
                                          @Param("endDate") LocalDateTime endDate);
 
     // 6. Модифицирующие операции
+    default int updateTicketStatus(List<Long> ticketIds, Ticket.TicketStatus newStatus) {
+        Boolean activeClaim = newStatus == Ticket.TicketStatus.CANCELLED ? null : Boolean.TRUE;
+        return updateTicketStatusAndClaim(ticketIds, newStatus, activeClaim);
+    }
+
+    // Массовые обновления обходят колбэки сущности, поэтому active_claim выставляется явно
     @Modifying
     @Transactional
-    @Query("UPDATE Ticket t SET t.status = :newStatus WHERE t.id IN :ticketIds")
-    int updateTicketStatus(@Param("ticketIds") List<Long> ticketIds,
-                           @Param("newStatus") Ticket.TicketStatus newStatus);
+    @Query("UPDATE Ticket t SET t.status = :newStatus, t.activeClaim = :activeClaim WHERE t.id IN :ticketIds")
+    int updateTicketStatusAndClaim(@Param("ticketIds") List<Long> ticketIds,
+                                   @Param("newStatus") Ticket.TicketStatus newStatus,
+                                   @Param("activeClaim") Boolean activeClaim);
 
     @Modifying
     @Transactional
-    @Query("UPDATE Ticket t SET t.status = 'CANCELLED', t.user = null " +
+    @Query("UPDATE Ticket t SET t.status = 'CANCELLED', t.activeClaim = null, t.user = null " +
             "WHERE t.status = 'BOOKED' AND t.createdAt < :expirationTime")
     int cancelExpiredReservations(@Param("expirationTime") LocalDateTime expirationTime);
 
+    @Query("SELECT DISTINCT t.session.id FROM Ticket t " +
+            "WHERE t.status = 'BOOKED' AND t.createdAt < :expirationTime")
+    List<Long> findSessionIdsWithExpiredReservations(@Param("expirationTime") LocalDateTime expirationTime);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Ticket t SET t.status = 'CANCELLED', t.activeClaim = null, t.user = null " +
+            "WHERE t.id IN :ticketIds AND t.status = 'BOOKED'")
+    int expireReservations(@Param("ticketIds") List<Long> ticketIds);
+
     // 7. Дополнительные аналитические методы
     @Query("SELECT COUNT(t) FROM Ticket t " +
             "WHERE t.session.id = :sessionId " +
@@ -139,4 +159,41 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
             "ORDER BY s.startTime")
     List<Object[]> getTicketsByHour(@Param("startDate") LocalDateTime startDate,
                                     @Param("endDate") LocalDateTime endDate);
-}
\ No newline at end of file
+
+    // Списки билетов сразу в TicketDTO одним запросом: без догрузки сеанса, фильма, зала, места
+    // и пользователя по каждой строке при маппинге
+    String TICKET_DTO_SELECT = "SELECT new com.CinemaManager.Cinema.booking.dto.TicketDTO(" +
+            "t.id, t.ticketNumber, t.status, t.purchaseTime, s.id, se.id, u.id, m.title, s.startTime, h.name, " +
+            "se.rowNumber, se.seatNumber, COALESCE(t.price, s.price), " +
+            "CASE WHEN u.id IS NOT NULL THEN CONCAT(u.firstName, ' ', u.lastName) END) " +
+            "FROM Ticket t JOIN t.session s JOIN s.movie m JOIN s.hall h JOIN t.seat se LEFT JOIN t.user u ";
+
+    // Страница списка по курсору: WHERE id > :after ORDER BY id LIMIT :limit
+    @Query(TICKET_DTO_SELECT + "WHERE t.id > :after ORDER BY t.id")
+    List<TicketDTO> findDTOsAfter(@Param("after") Long after, Limit limit);
+
+    @Query(TICKET_DTO_SELECT + "WHERE s.id = :sessionId ORDER BY t.id")
+    List<TicketDTO> findDTOsBySessionId(@Param("sessionId") Long sessionId);
+
+    @Query(TICKET_DTO_SELECT + "WHERE u.id = :userId AND t.id > :after ORDER BY t.id")
+    List<TicketDTO> findDTOsByUserIdAfter(@Param("userId") Long userId, @Param("after") Long after, Limit limit);
+
+    // Выгрузка: курсор вперед с фиксированным fetch size, строки собираются в запросе без сущностей
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.CinemaManager.Cinema.booking.dto.TicketExportRowDTO(" +
+            "t.id, t.ticketNumber, t.status, t.createdAt, t.purchaseTime, s.id, s.startTime, " +
+            "m.title, h.name, se.rowNumber, se.seatNumber, COALESCE(t.price, s.price), u.id, " +
+            "CASE WHEN u.id IS NOT NULL THEN CONCAT(u.firstName, ' ', u.lastName) END) " +
+            "FROM Ticket t JOIN t.session s JOIN s.movie m JOIN s.hall h JOIN t.seat se LEFT JOIN t.user u " +
+            "WHERE (:status IS NULL OR t.status = :status) " +
+            "AND (:createdFrom IS NULL OR t.createdAt >= :createdFrom) " +
+            "AND (:createdTo IS NULL OR t.createdAt < :createdTo) " +
+            "AND (:purchasedFrom IS NULL OR t.purchaseTime >= :purchasedFrom) " +
+            "AND (:purchasedTo IS NULL OR t.purchaseTime < :purchasedTo) " +
+            "ORDER BY t.id")
+    Stream<TicketExportRowDTO> streamForExport(@Param("createdFrom") LocalDateTime createdFrom,
+                                               @Param("createdTo") LocalDateTime createdTo,
+                                               @Param("purchasedFrom") LocalDateTime purchasedFrom,
+                                               @Param("purchasedTo") LocalDateTime purchasedTo,
+                                               @Param("status") Ticket.TicketStatus status);
+}
@@ -1,6 +1,7 @@
 package com.CinemaManager.Cinema.booking.repository;
 
 import com.CinemaManager.Cinema.booking.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -31,4 +32,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.tickets WHERE u.role = :role")
     List<User> findUsersByRoleWithTickets(@Param("role") User.Role role);
-}
\ No newline at end of file
+
+    // Страница списка по курсору: WHERE id > :id ORDER BY id LIMIT :limit
+    List<User> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+}
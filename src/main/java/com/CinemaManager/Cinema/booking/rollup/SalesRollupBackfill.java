@@ -0,0 +1,99 @@
+package com.CinemaManager.Cinema.booking.rollup;
+
+import com.CinemaManager.Cinema.booking.entity.SalesRollup;
+import com.CinemaManager.Cinema.booking.repository.SalesRollupRepository;
+import com.CinemaManager.Cinema.booking.repository.TicketRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Пересборка витрины продаж из билетов. Каждый день пересобирается в своей транзакции:
+// строки дня удаляются и вставляются заново одним GROUP BY по билетам этого дня.
+// По расписанию пересобираются последние дни - это исправляет приращения, потерянные после коммита.
+// Пересобирать стоит только закрытые дни: билет текущего дня может быть уже закоммичен, а его приращение
+// еще не применено - тогда продажа попадет в витрину дважды.
+@Component
+@Slf4j
+public class SalesRollupBackfill {
+
+    private final TicketRepository ticketRepository;
+    private final SalesRollupRepository salesRollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int reconcileDays;
+
+    public SalesRollupBackfill(TicketRepository ticketRepository,
+                               SalesRollupRepository salesRollupRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${cinema.analytics.rollup.reconcile-days:2}") int reconcileDays) {
+        this.ticketRepository = ticketRepository;
+        this.salesRollupRepository = salesRollupRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reconcileDays = reconcileDays;
+    }
+
+    @Scheduled(cron = "${cinema.analytics.rollup.backfill-cron:0 30 3 * * *}")
+    public void reconcileRecentDays() {
+        LocalDate today = LocalDate.now();
+        int rows = backfill(today.minusDays(reconcileDays), today.minusDays(1));
+        log.info("Sales rollup for the last {} days rebuilt, {} rows", reconcileDays, rows);
+    }
+
+    // Первый запуск с пустой витриной: история продаж переносится целиком, иначе итоги показывают ноль
+    // до ручной пересборки. Сегодняшний день тоже пересобирается - приращения до старта не копились;
+    // продажу, совпавшую по времени с этой пересборкой, исправит ночной пересчет.
+    @EventListener(ApplicationReadyEvent.class)
+    public void fillOnFirstRun() {
+        if (salesRollupRepository.count() > 0) {
+            return;
+        }
+        ticketRepository.findFirstSaleTime().ifPresent(firstSale -> {
+            LocalDate from = firstSale.toLocalDate();
+            int rows = backfill(from, LocalDate.now());
+            log.info("Sales rollup filled from {} on first run, {} rows", from, rows);
+        });
+    }
+
+    // Возвращает число записанных строк витрины
+    public int backfill(LocalDate from, LocalDate to) {
+        int rows = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            LocalDate salesDate = day;
+            try {
+                Integer written = transactionTemplate.execute(status -> rebuildDay(salesDate));
+                rows += written != null ? written : 0;
+            } catch (RuntimeException e) {
+                // Обычно - конфликт с приращением, вставившим строку того же часа; день пересоберется следующим проходом
+                log.warn("Failed to rebuild sales rollup for {}: {}", salesDate, e.getMessage());
+            }
+        }
+        return rows;
+    }
+
+    private int rebuildDay(LocalDate salesDate) {
+        salesRollupRepository.deleteBySalesDate(salesDate);
+        List<SalesRollup> rows = new ArrayList<>();
+        for (Object[] data : ticketRepository.getHourlySalesByMovieAndHall(
+                salesDate.atStartOfDay(), salesDate.plusDays(1).atStartOfDay())) {
+            Number revenue = (Number) data[4];
+            rows.add(SalesRollup.builder()
+                    .salesDate(salesDate)
+                    .salesHour(((Number) data[0]).intValue())
+                    .movieId((Long) data[1])
+                    .hallId((Long) data[2])
+                    .soldCount((Long) data[3])
+                    .revenue(revenue != null ? revenue.doubleValue() : 0.0)
+                    .build());
+        }
+        salesRollupRepository.saveAll(rows);
+        return rows.size();
+    }
+}
@@ -0,0 +1,116 @@
+package com.CinemaManager.Cinema.booking.rollup;
+
+import com.CinemaManager.Cinema.booking.entity.SalesRollup;
+import com.CinemaManager.Cinema.booking.entity.Session;
+import com.CinemaManager.Cinema.booking.entity.Ticket;
+import com.CinemaManager.Cinema.booking.repository.SalesRollupRepository;
+import com.CinemaManager.Cinema.booking.support.TransactionCallbacks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Инкрементальное ведение витрины продаж. Приращения копятся по строкам витрины и применяются
+// после коммита билетов в отдельной транзакции: горячие строки часа не блокируются на время покупки,
+// а сбой витрины не отменяет продажу - расхождение исправит ночной пересчет (SalesRollupBackfill).
+@Component
+@Slf4j
+public class SalesRollupRecorder {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final SalesRollupRepository salesRollupRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public SalesRollupRecorder(SalesRollupRepository salesRollupRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.salesRollupRepository = salesRollupRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // После коммита исходная транзакция уже завершена - нужна своя
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Учитывает проданные билеты из списка, брони пропускаются
+    public void recordSold(Collection<Ticket> tickets) {
+        record(tickets, 1);
+    }
+
+    // Отмена проданных билетов: продажа вычитается из того часа, в котором была учтена
+    public void recordRefunded(Collection<Ticket> tickets) {
+        record(tickets, -1);
+    }
+
+    private void record(Collection<Ticket> tickets, int sign) {
+        // Ключи и цены читаются сейчас, пока сущности привязаны к транзакции
+        Map<Bucket, Delta> deltas = new LinkedHashMap<>();
+        for (Ticket ticket : tickets) {
+            if (sign > 0 && ticket.getStatus() != Ticket.TicketStatus.SOLD) {
+                continue;
+            }
+            Session session = ticket.getSession();
+            LocalDateTime purchaseTime = ticket.getPurchaseTime();
+            if (purchaseTime == null) {
+                continue;
+            }
+            // Та же цена, что берет пересборка из билетов
+            Double soldPrice = ticket.getPrice() != null ? ticket.getPrice() : session.getPrice();
+            double price = soldPrice != null ? soldPrice : 0.0;
+            Bucket bucket = new Bucket(purchaseTime.toLocalDate(), purchaseTime.getHour(),
+                    session.getMovie().getId(), session.getHall().getId());
+            deltas.merge(bucket, new Delta(sign, sign * price), Delta::plus);
+        }
+        if (!deltas.isEmpty()) {
+            TransactionCallbacks.afterCommit(() -> deltas.forEach(this::apply));
+        }
+    }
+
+    private void apply(Bucket bucket, Delta delta) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    int updated = salesRollupRepository.increment(bucket.salesDate(), bucket.salesHour(),
+                            bucket.movieId(), bucket.hallId(), delta.sold(), delta.revenue());
+                    if (updated == 0) {
+                        salesRollupRepository.saveAndFlush(SalesRollup.builder()
+                                .salesDate(bucket.salesDate())
+                                .salesHour(bucket.salesHour())
+                                .movieId(bucket.movieId())
+                                .hallId(bucket.hallId())
+                                .soldCount(delta.sold())
+                                .revenue(delta.revenue())
+                                .build());
+                    }
+                });
+                return;
+            } catch (DataIntegrityViolationException e) {
+                // Строку часа только что вставил параллельный поток - следующая попытка ее обновит
+                if (attempt >= MAX_ATTEMPTS) {
+                    log.warn("Failed to record sales rollup {}: {}", bucket, e.getMessage());
+                    return;
+                }
+            } catch (RuntimeException e) {
+                // Продажа уже закоммичена - ошибку витрины наружу не пропускаем
+                log.warn("Failed to record sales rollup {}: {}", bucket, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private record Bucket(LocalDate salesDate, int salesHour, Long movieId, Long hallId) {
+    }
+
+    private record Delta(long sold, double revenue) {
+
+        Delta plus(Delta other) {
+            return new Delta(sold + other.sold, revenue + other.revenue);
+        }
+    }
+}
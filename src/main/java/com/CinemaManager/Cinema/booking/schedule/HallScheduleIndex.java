@@ -0,0 +1,108 @@
+package com.CinemaManager.Cinema.booking.schedule;
+
+import com.CinemaManager.Cinema.booking.entity.Session;
+import com.CinemaManager.Cinema.booking.repository.SessionRepository;
+import com.CinemaManager.Cinema.booking.support.TransactionCallbacks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Расписание залов в памяти: проверка пересечения сеансов и поиск свободных залов без запросов к базе.
+// Расписание зала загружается при первом обращении, дальше правится после коммита записей сеансов.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HallScheduleIndex {
+
+    private final SessionRepository sessionRepository;
+
+    // Под блокировкой индекса: публикация загруженного расписания не должна разминуться с правкой после коммита
+    private final Map<Long, HallTimeline> timelines = new HashMap<>();
+    private long modifications;
+
+    public boolean hasOverlap(Long hallId, Long excludeSessionId, LocalDateTime start, LocalDateTime end) {
+        return timeline(hallId).overlaps(start, end, excludeSessionId);
+    }
+
+    // Залы из списка, свободные на всем интервале [start, end)
+    public List<Long> findFreeHalls(Collection<Long> hallIds, LocalDateTime start, LocalDateTime end) {
+        List<Long> freeHalls = new ArrayList<>();
+        for (Long hallId : hallIds) {
+            if (!timeline(hallId).overlaps(start, end, null)) {
+                freeHalls.add(hallId);
+            }
+        }
+        return freeHalls;
+    }
+
+    // Границы читаются после коммита: время окончания пересчитывается при сбросе сущности
+    public void putAfterCommit(Session session) {
+        TransactionCallbacks.afterCommit(() -> modify(all -> {
+            // Сеанс мог сменить зал - убираем его из всех расписаний
+            all.values().forEach(timeline -> timeline.remove(session.getId()));
+            HallTimeline timeline = all.get(session.getHall().getId());
+            if (timeline != null) {
+                timeline.put(session.getId(), session.getStartTime(), session.getEndTime());
+            }
+        }));
+    }
+
+    public void removeAfterCommit(Long sessionId) {
+        TransactionCallbacks.afterCommit(() -> modify(all ->
+                all.values().forEach(timeline -> timeline.remove(sessionId))));
+    }
+
+    public void evictHallAfterCommit(Long hallId) {
+        TransactionCallbacks.afterCommit(() -> modify(all -> all.remove(hallId)));
+    }
+
+    public void evictAllAfterCommit() {
+        TransactionCallbacks.afterCommit(() -> modify(Map::clear));
+    }
+
+    private HallTimeline timeline(Long hallId) {
+        long stamp;
+        synchronized (this) {
+            HallTimeline timeline = timelines.get(hallId);
+            if (timeline != null) {
+                return timeline;
+            }
+            stamp = modifications;
+        }
+
+        // Запрос к базе - вне блокировки индекса
+        HallTimeline loaded = new HallTimeline();
+        for (Object[] row : sessionRepository.findScheduleByHallId(hallId)) {
+            loaded.put((Long) row[0], (LocalDateTime) row[1], (LocalDateTime) row[2]);
+        }
+
+        synchronized (this) {
+            HallTimeline existing = timelines.get(hallId);
+            if (existing != null) {
+                return existing;
+            }
+            // Пока шла загрузка, закоммитились изменения расписания - снимок мог их не увидеть.
+            // Используем его только для текущего запроса, как обычный запрос к базе.
+            if (stamp == modifications) {
+                timelines.put(hallId, loaded);
+                // Снимок видит и незакоммиченные сеансы своей транзакции - при откате он недействителен
+                TransactionCallbacks.afterRollback(() -> modify(all -> all.remove(hallId)));
+                log.debug("Loaded schedule for hall ID: {}, sessions: {}", hallId, loaded.size());
+            }
+            return loaded;
+        }
+    }
+
+    private synchronized void modify(Consumer<Map<Long, HallTimeline>> change) {
+        modifications++;
+        change.accept(timelines);
+    }
+}
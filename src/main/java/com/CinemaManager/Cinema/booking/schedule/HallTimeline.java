@@ -0,0 +1,68 @@
+package com.CinemaManager.Cinema.booking.schedule;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+// Сеансы одного зала, упорядоченные по началу, как полуоткрытые интервалы [start, end).
+// Пересекающий [start, end) сеанс обязан начаться в [start - maxLength, end), поэтому запрос
+// смотрит только этот участок дерева: O(log n + k), где k - сеансы в окне одного самого длинного сеанса.
+public class HallTimeline {
+
+    private static final Comparator<Slot> ORDER = Comparator.comparing(Slot::start)
+            .thenComparingLong(Slot::sessionId);
+
+    private final NavigableSet<Slot> slots = new TreeSet<>(ORDER);
+    private final Map<Long, Slot> slotsBySession = new HashMap<>();
+    // Только растет: после удаления самого длинного сеанса окно поиска остается с запасом
+    private Duration maxLength = Duration.ZERO;
+
+    public synchronized void put(long sessionId, LocalDateTime start, LocalDateTime end) {
+        remove(sessionId);
+        if (start == null || end == null || !end.isAfter(start)) {
+            // Сеанс без длительности ни с чем не пересекается
+            return;
+        }
+        Slot slot = new Slot(sessionId, start, end);
+        slots.add(slot);
+        slotsBySession.put(sessionId, slot);
+        Duration length = Duration.between(start, end);
+        if (length.compareTo(maxLength) > 0) {
+            maxLength = length;
+        }
+    }
+
+    public synchronized void remove(long sessionId) {
+        Slot slot = slotsBySession.remove(sessionId);
+        if (slot != null) {
+            slots.remove(slot);
+        }
+    }
+
+    // Пересекается ли [start, end) с каким-либо сеансом зала, кроме excludeSessionId
+    public synchronized boolean overlaps(LocalDateTime start, LocalDateTime end, Long excludeSessionId) {
+        if (!end.isAfter(start)) {
+            // Пустой интервал ни с чем не пересекается; границы проверяет вызывающий сервис
+            return false;
+        }
+        Slot from = new Slot(Long.MIN_VALUE, start.minus(maxLength), null);
+        Slot to = new Slot(Long.MIN_VALUE, end, null);
+        for (Slot slot : slots.subSet(from, true, to, false)) {
+            if (slot.end().isAfter(start) && (excludeSessionId == null || slot.sessionId() != excludeSessionId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    private record Slot(long sessionId, LocalDateTime start, LocalDateTime end) {
+    }
+}
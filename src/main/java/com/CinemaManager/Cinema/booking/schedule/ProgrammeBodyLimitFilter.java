@@ -0,0 +1,73 @@
+package com.CinemaManager.Cinema.booking.schedule;
+
+import com.CinemaManager.Cinema.booking.exception.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+// Ограничение тела загрузки программы сеансов: лимит строк в сервисе срабатывает только после
+// разбора всего массива, поэтому слишком большое тело отклоняется по Content-Length до контроллера
+@Component
+public class ProgrammeBodyLimitFilter extends OncePerRequestFilter {
+
+    private static final String PROGRAMME_PATH = "/api/sessions/bulk";
+
+    private final ObjectMapper objectMapper;
+    private final long maxBodyBytes;
+
+    public ProgrammeBodyLimitFilter(ObjectMapper objectMapper,
+                                    @Value("${cinema.booking.schedule.max-body-size:2MB}") DataSize maxBodySize) {
+        this.objectMapper = objectMapper;
+        this.maxBodyBytes = maxBodySize.toBytes();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !PROGRAMME_PATH.equals(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long contentLength = request.getContentLengthLong();
+        // Без длины (chunked) размер заранее не проверить - такое тело не принимаем
+        if (contentLength < 0) {
+            writeError(request, response, HttpStatus.LENGTH_REQUIRED,
+                    "Content-Length is required for a session programme");
+            return;
+        }
+        if (contentLength > maxBodyBytes) {
+            writeError(request, response, HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Session programme must not exceed " + maxBodyBytes + " bytes");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private void writeError(HttpServletRequest request, HttpServletResponse response,
+                            HttpStatus status, String message) throws IOException {
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                status.value(),
+                status.getReasonPhrase(),
+                message,
+                request.getRequestURI()
+        );
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+}
@@ -1,23 +1,28 @@
 package com.CinemaManager.Cinema.booking.service;
 
 import com.CinemaManager.Cinema.booking.controller.AdminController.*;
+import com.CinemaManager.Cinema.booking.dto.CursorPage;
 import com.CinemaManager.Cinema.booking.dto.SessionDTO;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 public interface AdminService {
     DashboardStatsDTO getDashboardStats();
     RevenueStatsDTO getRevenueStats(LocalDate startDate, LocalDate endDate);
     PopularMoviesDTO getPopularMovies(int limit);
     List<SessionDTO> getLowAttendanceSessions(int threshold);
+    Map<Integer, Long> getTicketsByHour(LocalDate startDate, LocalDate endDate);
+    int backfillSalesRollup(LocalDate startDate, LocalDate endDate);
 
     void cancelSession(Long sessionId);
     void rescheduleSession(Long sessionId, LocalDate newDate);
     List<SessionDTO> getSessionsByDateRange(LocalDate startDate, LocalDate endDate);
 
-    List<UserStatsDTO> getAllUsersStats();
+    CursorPage<UserStatsDTO> getAllUsersStats(Long after, int size);
     void toggleUserStatus(Long userId, boolean active);
 
     void cleanupExpiredData();
     SystemHealthDTO getSystemHealth();
+    SessionLockStatsDTO getSessionLockStats();
 }
\ No newline at end of file
@@ -1,14 +1,17 @@
 package com.CinemaManager.Cinema.booking.service;
 
+import com.CinemaManager.Cinema.booking.dto.CursorPage;
 import com.CinemaManager.Cinema.booking.dto.HallDTO;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface HallService {
     HallDTO createHall(HallDTO hallDTO);
     HallDTO getHallById(Long id);
-    List<HallDTO> getAllHalls();
+    CursorPage<HallDTO> getAllHalls(Long after, int size);
     HallDTO updateHall(Long id, HallDTO hallDTO);
     void deleteHall(Long id);
     void initializeSeats(Long hallId);
+    List<HallDTO> getAvailableHalls(LocalDateTime startTime, LocalDateTime endTime);
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.CinemaManager.Cinema.booking.service;
 
+import com.CinemaManager.Cinema.booking.dto.CursorPage;
 import com.CinemaManager.Cinema.booking.dto.MovieDTO;
 
 import java.util.List;
@@ -7,7 +8,7 @@ import java.util.List;
 public interface MovieService {
     MovieDTO createMovie(MovieDTO movieDTO);
     MovieDTO getMovieById(Long id);
-    List<MovieDTO> getAllMovies();
+    CursorPage<MovieDTO> getAllMovies(Long after, int size);
     MovieDTO updateMovie(Long id, MovieDTO movieDTO);
     void deleteMovie(Long id);
     List<MovieDTO> searchMovies(String title, String genre, Integer ageRestriction);
@@ -0,0 +1,10 @@
+package com.CinemaManager.Cinema.booking.service;
+
+import com.CinemaManager.Cinema.booking.dto.SeatHoldDTO;
+import com.CinemaManager.Cinema.booking.dto.SeatHoldRequestDTO;
+
+public interface SeatHoldService {
+    SeatHoldDTO holdSeats(SeatHoldRequestDTO requestDTO);
+    SeatHoldDTO extendHold(String holdId, Long userId);
+    void releaseHold(String holdId, Long userId);
+}
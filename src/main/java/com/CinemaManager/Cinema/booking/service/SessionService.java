@@ -1,7 +1,13 @@
 package com.CinemaManager.Cinema.booking.service;
 
+import com.CinemaManager.Cinema.booking.dto.CursorPage;
+import com.CinemaManager.Cinema.booking.dto.ScheduleResultDTO;
+import com.CinemaManager.Cinema.booking.dto.SeatBitmapDTO;
+import com.CinemaManager.Cinema.booking.dto.SessionAvailabilityDTO;
 import com.CinemaManager.Cinema.booking.dto.SessionDTO;
 import com.CinemaManager.Cinema.booking.dto.SessionSeatsDTO;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -9,12 +15,17 @@ import java.util.List;
 public interface SessionService {
     SessionDTO getSessionById(Long id);
     SessionSeatsDTO getSessionWithSeats(Long id);
-    List<SessionDTO> getAllSessions();
-    List<SessionDTO> getSessionsByMovie(Long movieId);
+    SeatBitmapDTO getSeatBitmap(Long id);
+    SseEmitter subscribeToSeatChanges(Long id);
+    List<SessionAvailabilityDTO> getAvailability(List<Long> sessionIds);
+    List<SessionAvailabilityDTO> getAvailability(LocalDate date, Long movieId);
+    CursorPage<SessionDTO> getAllSessions(Long after, int size);
+    CursorPage<SessionDTO> getSessionsByMovie(Long movieId, Long after, int size);
     List<SessionDTO> getSessionsByDate(LocalDate date);
     List<SessionDTO> getUpcomingSessions(int days);
-    List<SessionDTO> getAvailableSessions();
+    CursorPage<SessionDTO> getAvailableSessions(Long after, int size);
     SessionDTO createSession(SessionDTO sessionDTO);
+    ScheduleResultDTO scheduleSessions(List<SessionDTO> programme);
     SessionDTO updateSession(Long id, SessionDTO sessionDTO);
     void deleteSession(Long id);
     boolean isHallAvailable(Long hallId, LocalDateTime startTime, LocalDateTime endTime, Long excludeSessionId);
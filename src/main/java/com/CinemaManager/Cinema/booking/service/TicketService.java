@@ -1,17 +1,20 @@
 package com.CinemaManager.Cinema.booking.service;
 
 import com.CinemaManager.Cinema.booking.dto.*;
+import com.CinemaManager.Cinema.booking.pipeline.PurchaseOutcome;
 import java.util.List;
 
 public interface TicketService {
     TicketPurchaseResponseDTO purchaseTickets(PurchaseTicketDTO purchaseDTO);
+    TicketPurchaseResponseDTO purchaseBestAvailable(BestAvailablePurchaseDTO purchaseDTO);
+    List<PurchaseOutcome> purchaseTicketsBatch(Long sessionId, List<PurchaseTicketDTO> purchases);
     List<TicketDTO> reserveTickets(PurchaseTicketDTO purchaseDTO);
     TicketDTO confirmTicket(String ticketNumber);
     TicketDTO cancelTicket(String ticketNumber);
     TicketDTO getTicketById(Long id);
     TicketDTO getTicketByNumber(String ticketNumber);
-    List<TicketDTO> getAllTickets();
+    CursorPage<TicketDTO> getAllTickets(Long after, int size);
     List<TicketDTO> getTicketsBySession(Long sessionId);
-    List<TicketDTO> getTicketsByUser(Long userId);
+    CursorPage<TicketDTO> getTicketsByUser(Long userId, Long after, int size);
     void cancelExpiredReservations();
 }
\ No newline at end of file
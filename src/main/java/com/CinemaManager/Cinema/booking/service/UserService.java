@@ -1,14 +1,14 @@
 package com.CinemaManager.Cinema.booking.service;
 
 import com.CinemaManager.Cinema.booking.controller.UserController;
+import com.CinemaManager.Cinema.booking.dto.CursorPage;
 import com.CinemaManager.Cinema.booking.dto.UserDTO;
-import java.util.List;
 
 public interface UserService {
     UserDTO createUser(UserDTO userDTO);
     UserDTO getUserById(Long id);
     UserDTO getUserByEmail(String email);
-    List<UserDTO> getAllUsers();
+    CursorPage<UserDTO> getAllUsers(Long after, int size);
     UserDTO updateUser(Long id, UserDTO userDTO);
     void deleteUser(Long id);
     UserController.UserStatsDTO getUserStats(Long userId);
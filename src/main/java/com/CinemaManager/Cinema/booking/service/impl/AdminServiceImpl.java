@@ -1,16 +1,24 @@
 package com.CinemaManager.Cinema.booking.service.impl;
 
+import com.CinemaManager.Cinema.booking.concurrency.SessionLockManager;
 import com.CinemaManager.Cinema.booking.controller.AdminController.*;
+import com.CinemaManager.Cinema.booking.dto.CursorPage;
 import com.CinemaManager.Cinema.booking.dto.SessionDTO;
 import com.CinemaManager.Cinema.booking.dto.UserDTO;
 import com.CinemaManager.Cinema.booking.entity.*;
 import com.CinemaManager.Cinema.booking.exception.BusinessException;
 import com.CinemaManager.Cinema.booking.exception.ResourceNotFoundException;
-import com.CinemaManager.Cinema.booking.mapper.CinemaMapper;
+import com.CinemaManager.Cinema.booking.expiry.ReservationExpiryService;
+import com.CinemaManager.Cinema.booking.inventory.SeatInventory;
+import com.CinemaManager.Cinema.booking.inventory.SeatMapCache;
 import com.CinemaManager.Cinema.booking.repository.*;
+import com.CinemaManager.Cinema.booking.rollup.SalesRollupBackfill;
+import com.CinemaManager.Cinema.booking.rollup.SalesRollupRecorder;
+import com.CinemaManager.Cinema.booking.schedule.HallScheduleIndex;
 import com.CinemaManager.Cinema.booking.service.AdminService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,7 +38,14 @@ public class AdminServiceImpl implements AdminService {
     private final TicketRepository ticketRepository;
     private final UserRepository userRepository;
     private final HallRepository hallRepository;
-    private final CinemaMapper cinemaMapper;
+    private final SeatInventory seatInventory;
+    private final SeatMapCache seatMapCache;
+    private final SessionLockManager sessionLockManager;
+    private final ReservationExpiryService reservationExpiryService;
+    private final HallScheduleIndex hallScheduleIndex;
+    private final SalesRollupRepository salesRollupRepository;
+    private final SalesRollupRecorder salesRollupRecorder;
+    private final SalesRollupBackfill salesRollupBackfill;
 
     @Override
     @Transactional(readOnly = true)
@@ -39,24 +54,26 @@ public class AdminServiceImpl implements AdminService {
 
         long totalMovies = movieRepository.count();
         long totalSessions = sessionRepository.count();
-        long totalTicketsSold = ticketRepository.countByStatus(Ticket.TicketStatus.SOLD);
+        // Продажи читаются из витрины, а не из билетов
+        Long totalTicketsSold = salesRollupRepository.countSoldTickets();
         long totalUsers = userRepository.count();
 
-        // Выручка за сегодня
-        LocalDateTime todayStart = LocalDate.now().atStartOfDay();
-        LocalDateTime todayEnd = LocalDate.now().atTime(23, 59, 59);
-        Double todaysRevenue = ticketRepository.calculateRevenueByPeriod(todayStart, todayEnd);
-
-        // Билеты за сегодня
-        Long todaysTickets = ticketRepository.countSoldTicketsByDate(todayStart, todayEnd);
+        // Билеты и выручка за сегодня - строка дня из витрины
+        LocalDate today = LocalDate.now();
+        long todaysTickets = 0L;
+        double todaysRevenue = 0.0;
+        for (Object[] data : salesRollupRepository.getDailySales(today, today)) {
+            todaysTickets += data[1] != null ? (Long) data[1] : 0L;
+            todaysRevenue += data[2] != null ? (Double) data[2] : 0.0;
+        }
 
         return new DashboardStatsDTO(
                 totalMovies,
                 totalSessions,
-                totalTicketsSold,
+                totalTicketsSold != null ? totalTicketsSold : 0L,
                 totalUsers,
-                todaysRevenue != null ? todaysRevenue : 0.0,
-                todaysTickets != null ? todaysTickets : 0L
+                todaysRevenue,
+                todaysTickets
         );
     }
 
@@ -73,25 +90,26 @@ public class AdminServiceImpl implements AdminService {
             endDate = LocalDate.now();
         }
 
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-
-        Double totalRevenue = ticketRepository.calculateRevenueByPeriod(startDateTime, endDateTime);
-
+        // Дневной ряд, итог и число билетов - одним GROUP BY по дням витрины, дни без продаж заполняются нулями
         Map<LocalDate, Double> dailyRevenue = new LinkedHashMap<>();
-        LocalDate currentDate = startDate;
-
-        while (!currentDate.isAfter(endDate)) {
-            LocalDateTime dayStart = currentDate.atStartOfDay();
-            LocalDateTime dayEnd = currentDate.atTime(23, 59, 59);
-            Double dayRevenue = ticketRepository.calculateRevenueByPeriod(dayStart, dayEnd);
-            dailyRevenue.put(currentDate, dayRevenue != null ? dayRevenue : 0.0);
-            currentDate = currentDate.plusDays(1);
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            dailyRevenue.put(day, 0.0);
+        }
+
+        double totalRevenue = 0.0;
+        long ticketsCount = 0;
+        for (Object[] data : salesRollupRepository.getDailySales(startDate, endDate)) {
+            LocalDate day = (LocalDate) data[0];
+            Long dayTickets = (Long) data[1];
+            Double dayRevenue = (Double) data[2];
+            dailyRevenue.put(day, dayRevenue != null ? dayRevenue : 0.0);
+            totalRevenue += dayRevenue != null ? dayRevenue : 0.0;
+            ticketsCount += dayTickets != null ? dayTickets : 0L;
         }
 
         // Выручка по фильмам
         Map<String, Double> revenueByMovie = new HashMap<>();
-        List<Object[]> movieRevenueData = ticketRepository.getRevenueByMovie(startDateTime, endDateTime);
+        List<Object[]> movieRevenueData = salesRollupRepository.getRevenueByMovie(startDate, endDate);
 
         for (Object[] data : movieRevenueData) {
             String movieTitle = (String) data[0];
@@ -100,13 +118,10 @@ public class AdminServiceImpl implements AdminService {
         }
 
         // Средняя цена билета
-        Long ticketsCount = ticketRepository.countSoldTicketsByDate(startDateTime, endDateTime);
-        Double averageTicketPrice = ticketsCount != null && ticketsCount > 0
-                ? (totalRevenue != null ? totalRevenue / ticketsCount : 0.0)
-                : 0.0;
+        double averageTicketPrice = ticketsCount > 0 ? totalRevenue / ticketsCount : 0.0;
 
         return new RevenueStatsDTO(
-                totalRevenue != null ? totalRevenue : 0.0,
+                totalRevenue,
                 dailyRevenue,
                 revenueByMovie,
                 averageTicketPrice
@@ -118,10 +133,13 @@ public class AdminServiceImpl implements AdminService {
     public PopularMoviesDTO getPopularMovies(int limit) {
         log.info("Fetching {} most popular movies", limit);
 
+        // Последние 30 дней по дням витрины
+        LocalDate endDate = LocalDate.now();
+        LocalDate startDate = endDate.minusDays(30);
+
         // Билеты по фильмам
         Map<String, Long> ticketsByMovie = new LinkedHashMap<>();
-        List<Object[]> movieTicketData = ticketRepository.getTicketCountByMovie(LocalDateTime.now().minusDays(30),
-                LocalDateTime.now());
+        List<Object[]> movieTicketData = salesRollupRepository.getTicketCountByMovie(startDate, endDate);
 
         int count = 0;
         for (Object[] data : movieTicketData) {
@@ -134,8 +152,7 @@ public class AdminServiceImpl implements AdminService {
 
         // Выручка по фильмам
         Map<String, Double> revenueByMovie = new LinkedHashMap<>();
-        List<Object[]> movieRevenueData = ticketRepository.getRevenueByMovie(LocalDateTime.now().minusDays(30),
-                LocalDateTime.now());
+        List<Object[]> movieRevenueData = salesRollupRepository.getRevenueByMovie(startDate, endDate);
 
         count = 0;
         for (Object[] data : movieRevenueData) {
@@ -151,36 +168,57 @@ public class AdminServiceImpl implements AdminService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<SessionDTO> getLowAttendanceSessions(int threshold) {
-        log.info("Fetching sessions with attendance below {}%", threshold);
+    public Map<Integer, Long> getTicketsByHour(LocalDate startDate, LocalDate endDate) {
+        log.info("Fetching tickets by hour from {} to {}", startDate, endDate);
 
-        List<SessionDTO> lowAttendanceSessions = new ArrayList<>();
-        List<Session> allSessions = sessionRepository.findAll();
-
-        for (Session session : allSessions) {
-            if (session.getStartTime().isAfter(LocalDateTime.now())) {
-                // Для будущих сеансов считаем проданные билеты
-                Long soldTickets = ticketRepository.countSoldTicketsBySession(session.getId());
-                int totalSeats = session.getHall().getTotalRows() * session.getHall().getSeatsPerRow();
-
-                if (totalSeats > 0) {
-                    double attendancePercent = (soldTickets != null ? soldTickets.doubleValue() : 0.0) / totalSeats * 100;
-                    if (attendancePercent < threshold) {
-                        SessionDTO sessionDTO = cinemaMapper.toDTO(session);
-                        sessionDTO.setAvailableSeats(totalSeats - (soldTickets != null ? soldTickets.intValue() : 0));
-                        lowAttendanceSessions.add(sessionDTO);
-                    }
-                }
-            }
+        if (startDate == null) {
+            startDate = LocalDate.now().minusDays(30);
         }
+        if (endDate == null) {
+            endDate = LocalDate.now();
+        }
+
+        // Все 24 часа, часы без продаж - нули
+        Map<Integer, Long> ticketsByHour = new LinkedHashMap<>();
+        for (int hour = 0; hour < 24; hour++) {
+            ticketsByHour.put(hour, 0L);
+        }
+        for (Object[] data : salesRollupRepository.getTicketsByHour(startDate, endDate)) {
+            Integer hour = (Integer) data[0];
+            Long tickets = (Long) data[1];
+            ticketsByHour.put(hour, tickets != null ? tickets : 0L);
+        }
+        return ticketsByHour;
+    }
 
-        return lowAttendanceSessions;
+    @Override
+    public int backfillSalesRollup(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            throw new BusinessException("Invalid backfill period");
+        }
+        // Текущий день ведут приращения после коммита: пересборка прочла бы билеты,
+        // чье приращение еще не применено, и оно посчиталось бы второй раз
+        if (!endDate.isBefore(LocalDate.now())) {
+            throw new BusinessException("Only past days can be rebuilt");
+        }
+        log.info("Rebuilding sales rollup from {} to {}", startDate, endDate);
+        return salesRollupBackfill.backfill(startDate, endDate);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SessionDTO> getLowAttendanceSessions(int threshold) {
+        log.info("Fetching sessions with attendance below {}%", threshold);
+
+        // Заполняемость считается по счетчикам сеанса одним запросом, без подсчета билетов по каждому сеансу
+        return sessionRepository.findUpcomingWithAttendanceBelow(LocalDateTime.now(), threshold);
     }
 
     @Override
     @Transactional
     public void cancelSession(Long sessionId) {
         log.info("Cancelling session with ID: {}", sessionId);
+        sessionLockManager.lockForTransaction(sessionId);
 
         Session session = sessionRepository.findById(sessionId)
                 .orElseThrow(() -> new ResourceNotFoundException(
@@ -193,15 +231,23 @@ public class AdminServiceImpl implements AdminService {
 
         // Отменяем все билеты на этот сеанс
         List<Ticket> sessionTickets = ticketRepository.findBySessionId(sessionId);
+        List<Ticket> refundedTickets = new ArrayList<>();
         for (Ticket ticket : sessionTickets) {
+            if (ticket.getStatus() == Ticket.TicketStatus.SOLD) {
+                refundedTickets.add(ticket);
+            }
             ticket.setStatus(Ticket.TicketStatus.CANCELLED);
             // TODO: Уведомить пользователей об отмене
         }
+        salesRollupRecorder.recordRefunded(refundedTickets);
 
         ticketRepository.saveAll(sessionTickets);
 
         // Удаляем сеанс (или помечаем как отмененный)
         sessionRepository.delete(session);
+        hallScheduleIndex.removeAfterCommit(sessionId);
+        seatInventory.evictSessionAfterCommit(sessionId);
+        seatMapCache.evictSessionAfterCommit(sessionId);
 
         log.info("Session {} cancelled successfully. {} tickets refunded.",
                 sessionId, sessionTickets.size());
@@ -211,6 +257,7 @@ public class AdminServiceImpl implements AdminService {
     @Transactional
     public void rescheduleSession(Long sessionId, LocalDate newDate) {
         log.info("Rescheduling session {} to {}", sessionId, newDate);
+        sessionLockManager.lockForTransaction(sessionId);
 
         Session session = sessionRepository.findById(sessionId)
                 .orElseThrow(() -> new ResourceNotFoundException(
@@ -227,7 +274,7 @@ public class AdminServiceImpl implements AdminService {
 
         // Проверяем доступность зала в новое время
         LocalDateTime newEndTime = newDateTime.plus(session.getMovie().getDuration());
-        boolean hasOverlap = sessionRepository.hasOverlappingSessions(
+        boolean hasOverlap = hallScheduleIndex.hasOverlap(
                 session.getHall().getId(), sessionId, newDateTime, newEndTime);
 
         if (hasOverlap) {
@@ -239,6 +286,9 @@ public class AdminServiceImpl implements AdminService {
         session.setEndTime(newEndTime);
 
         sessionRepository.save(session);
+        hallScheduleIndex.putAfterCommit(session);
+        // Карта мест хранит время начала и окончания сеанса
+        seatMapCache.evictSessionAfterCommit(sessionId);
 
         // TODO: Уведомить пользователей об изменении времени
 
@@ -249,42 +299,34 @@ public class AdminServiceImpl implements AdminService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<UserStatsDTO> getAllUsersStats() {
-        log.info("Fetching statistics for all users");
-
-        List<User> users = userRepository.findAll();
-        List<UserStatsDTO> userStatsList = new ArrayList<>();
-
-        for (User user : users) {
-            Long userId = user.getId();
-
-            // Количество билетов пользователя
-            Long totalTickets = ticketRepository.countByUserId(userId);
-
-            // Общая сумма потраченная пользователем
-            Double totalSpent = ticketRepository.calculateUserSpending(userId);
-
-            // Самый частый жанр (упрощенная логика)
-            String favoriteGenre = calculateFavoriteGenre(userId);
-
-            // Билеты за текущий месяц
-            LocalDateTime monthStart = LocalDate.now().withDayOfMonth(1).atStartOfDay();
-            LocalDateTime monthEnd = LocalDate.now().atTime(23, 59, 59);
-            Long ticketsThisMonth = ticketRepository.countUserTicketsByPeriod(userId, monthStart, monthEnd);
-
-            UserStatsDTO stats = new UserStatsDTO(
-                    userId,
+    public CursorPage<UserStatsDTO> getAllUsersStats(Long after, int size) {
+        log.info("Fetching user statistics after ID: {}, size: {}", after, size);
+        int pageSize = CursorPage.boundedSize(size);
+        List<User> users = userRepository.findByIdGreaterThanOrderByIdAsc(
+                CursorPage.startAfter(after), Limit.of(pageSize + 1));
+        List<Long> pageUserIds = users.stream()
+                .limit(pageSize)
+                .map(User::getId)
+                .toList();
+
+        // Статистика всей страницы одним сгруппированным запросом; у пользователей без билетов строки нет
+        LocalDate today = LocalDate.now();
+        Map<Long, Object[]> statsByUser = pageUserIds.isEmpty() ? Map.of() : ticketRepository.getUserStats(
+                        pageUserIds, today.withDayOfMonth(1).atStartOfDay(), today.plusDays(1).atStartOfDay())
+                .stream()
+                .collect(Collectors.toMap(row -> (Long) row[0], row -> row));
+
+        return CursorPage.of(users, pageSize, User::getId, user -> {
+            Object[] row = statsByUser.get(user.getId());
+            return new UserStatsDTO(
+                    user.getId(),
                     user.getFullName(),
-                    totalTickets != null ? totalTickets.intValue() : 0,
-                    totalSpent != null ? totalSpent : 0.0,
-                    favoriteGenre,
-                    ticketsThisMonth != null ? ticketsThisMonth.intValue() : 0
+                    row != null ? ((Number) row[1]).intValue() : 0,
+                    row != null ? ((Number) row[2]).doubleValue() : 0.0,
+                    calculateFavoriteGenre(user.getId()),
+                    row != null ? ((Number) row[3]).intValue() : 0
             );
-
-            userStatsList.add(stats);
-        }
-
-        return userStatsList;
+        });
     }
 
     @Override
@@ -310,13 +352,26 @@ public class AdminServiceImpl implements AdminService {
         log.info("Starting expired data cleanup");
 
         // Отменяем просроченные бронирования
-        LocalDateTime reservationExpiryTime = LocalDateTime.now().minusMinutes(15);
+        LocalDateTime reservationExpiryTime = reservationExpiryService.expirationThreshold();
+        List<Long> affectedSessionIds = ticketRepository.findSessionIdsWithExpiredReservations(reservationExpiryTime);
         int cancelledReservations = ticketRepository.cancelExpiredReservations(reservationExpiryTime);
+        if (cancelledReservations > 0 && !affectedSessionIds.isEmpty()) {
+            sessionRepository.recountOccupancy(affectedSessionIds);
+        }
 
         // Удаляем завершенные сеансы из прошлого (более 7 дней назад)
         LocalDateTime pastDate = LocalDateTime.now().minusDays(7);
         List<Session> oldSessions = sessionRepository.findSessionsEndedBefore(pastDate);
         sessionRepository.deleteAll(oldSessions);
+        oldSessions.forEach(old -> {
+            seatMapCache.evictSessionAfterCommit(old.getId());
+            hallScheduleIndex.removeAfterCommit(old.getId());
+        });
+        if (cancelledReservations > 0) {
+            seatInventory.evictAllAfterCommit();
+        } else {
+            oldSessions.forEach(old -> seatInventory.evictSessionAfterCommit(old.getId()));
+        }
 
         log.info("Cleanup completed. Cancelled {} reservations, removed {} old sessions.",
                 cancelledReservations, oldSessions.size());
@@ -330,11 +385,7 @@ public class AdminServiceImpl implements AdminService {
         if (startDate == null) startDate = LocalDate.now();
         if (endDate == null) endDate = startDate.plusDays(7);
 
-        List<Session> sessions = sessionRepository.findByDateRange(startDate, endDate);
-
-        return sessions.stream()
-                .map(cinemaMapper::toDTO)
-                .collect(Collectors.toList());
+        return sessionRepository.findDTOsByDateRange(startDate, endDate);
     }
 
 
@@ -372,6 +423,23 @@ public class AdminServiceImpl implements AdminService {
         );
     }
 
+    @Override
+    public SessionLockStatsDTO getSessionLockStats() {
+        List<SessionLockStatsDTO.HotSession> hotSessions = sessionLockManager.getHotStripes(10).stream()
+                .map(stripe -> new SessionLockStatsDTO.HotSession(
+                        stripe.lastSessionId(), stripe.queueLength()))
+                .collect(Collectors.toList());
+
+        return new SessionLockStatsDTO(
+                sessionLockManager.getAcquisitions(),
+                sessionLockManager.getTimeouts(),
+                sessionLockManager.getAverageWaitMillis(),
+                sessionLockManager.getMaxWaitMillis(),
+                sessionLockManager.getQueuedThreads(),
+                hotSessions
+        );
+    }
+
     // Вспомогательные методы
 
     private boolean checkDatabaseConnection() {
@@ -1,20 +1,31 @@
 package com.CinemaManager.Cinema.booking.service.impl;
 
+import com.CinemaManager.Cinema.booking.dto.CursorPage;
 import com.CinemaManager.Cinema.booking.dto.HallDTO;
 import com.CinemaManager.Cinema.booking.entity.Hall;
 import com.CinemaManager.Cinema.booking.entity.Seat;
+import com.CinemaManager.Cinema.booking.exception.BusinessException;
 import com.CinemaManager.Cinema.booking.exception.ResourceNotFoundException;
+import com.CinemaManager.Cinema.booking.inventory.HallLayoutCache;
+import com.CinemaManager.Cinema.booking.inventory.SeatInventory;
+import com.CinemaManager.Cinema.booking.inventory.SeatMapCache;
 import com.CinemaManager.Cinema.booking.mapper.CinemaMapper;
 import com.CinemaManager.Cinema.booking.repository.HallRepository;
 import com.CinemaManager.Cinema.booking.repository.SeatRepository;
+import com.CinemaManager.Cinema.booking.repository.SessionRepository;
+import com.CinemaManager.Cinema.booking.schedule.HallScheduleIndex;
 import com.CinemaManager.Cinema.booking.service.HallService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,7 +35,12 @@ public class HallServiceImpl implements HallService {
 
     private final HallRepository hallRepository;
     private final SeatRepository seatRepository;
+    private final SessionRepository sessionRepository;
     private final CinemaMapper cinemaMapper;
+    private final SeatInventory seatInventory;
+    private final SeatMapCache seatMapCache;
+    private final HallLayoutCache hallLayoutCache;
+    private final HallScheduleIndex hallScheduleIndex;
 
     @Override
     @Transactional
@@ -47,12 +63,12 @@ public class HallServiceImpl implements HallService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<HallDTO> getAllHalls() {
-        log.debug("Fetching all halls");
-        List<Hall> halls = hallRepository.findAll();
-        return halls.stream()
-                .map(cinemaMapper::toDTO)
-                .collect(Collectors.toList());
+    public CursorPage<HallDTO> getAllHalls(Long after, int size) {
+        log.debug("Fetching halls after ID: {}, page size: {}", after, size);
+        int pageSize = CursorPage.boundedSize(size);
+        List<Hall> halls = hallRepository.findByIdGreaterThanOrderByIdAsc(
+                CursorPage.startAfter(after), Limit.of(pageSize + 1));
+        return CursorPage.of(halls, pageSize, Hall::getId, cinemaMapper::toDTO);
     }
 
     @Override
@@ -69,6 +85,11 @@ public class HallServiceImpl implements HallService {
         existingHall.setDescription(hallDTO.getDescription());
 
         Hall updatedHall = hallRepository.save(existingHall);
+        // Вместимость сеансов зала следует за его геометрией
+        sessionRepository.updateCapacityByHall(id, updatedHall.getTotalRows() * updatedHall.getSeatsPerRow());
+        seatInventory.evictHallAfterCommit(id);
+        seatMapCache.evictHallAfterCommit(id);
+        hallLayoutCache.evictAfterCommit(id);
         log.info("Hall updated with ID: {}", updatedHall.getId());
         return cinemaMapper.toDTO(updatedHall);
     }
@@ -80,9 +101,29 @@ public class HallServiceImpl implements HallService {
         Hall hall = hallRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Hall not found with id: " + id));
         hallRepository.delete(hall);
+        seatInventory.evictHallAfterCommit(id);
+        seatMapCache.evictHallAfterCommit(id);
+        hallLayoutCache.evictAfterCommit(id);
+        hallScheduleIndex.evictHallAfterCommit(id);
         log.info("Hall deleted with ID: {}", id);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<HallDTO> getAvailableHalls(LocalDateTime startTime, LocalDateTime endTime) {
+        log.debug("Fetching halls available between {} and {}", startTime, endTime);
+        if (!endTime.isAfter(startTime)) {
+            throw new BusinessException("End time must be after start time");
+        }
+        List<Hall> halls = hallRepository.findAll();
+        Set<Long> freeHallIds = new HashSet<>(hallScheduleIndex.findFreeHalls(
+                halls.stream().map(Hall::getId).toList(), startTime, endTime));
+        return halls.stream()
+                .filter(hall -> freeHallIds.contains(hall.getId()))
+                .map(cinemaMapper::toDTO)
+                .collect(Collectors.toList());
+    }
+
     @Override
     @Transactional
     public void initializeSeats(Long hallId) {
@@ -105,6 +146,9 @@ public class HallServiceImpl implements HallService {
             }
         }
         seatRepository.saveAll(seats);
+        seatInventory.evictHallAfterCommit(hallId);
+        seatMapCache.evictHallAfterCommit(hallId);
+        hallLayoutCache.evictAfterCommit(hallId);
         log.info("Created {} seats for hall ID: {}", seats.size(), hallId);
     }
 }
\ No newline at end of file
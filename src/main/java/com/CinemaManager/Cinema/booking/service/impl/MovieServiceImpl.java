@@ -1,13 +1,17 @@
 package com.CinemaManager.Cinema.booking.service.impl;
 
+import com.CinemaManager.Cinema.booking.dto.CursorPage;
 import com.CinemaManager.Cinema.booking.dto.MovieDTO;
 import com.CinemaManager.Cinema.booking.entity.Movie;
 import com.CinemaManager.Cinema.booking.exception.ResourceNotFoundException;
+import com.CinemaManager.Cinema.booking.inventory.SeatMapCache;
 import com.CinemaManager.Cinema.booking.mapper.CinemaMapper;
 import com.CinemaManager.Cinema.booking.repository.MovieRepository;
+import com.CinemaManager.Cinema.booking.schedule.HallScheduleIndex;
 import com.CinemaManager.Cinema.booking.service.MovieService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,6 +26,8 @@ public class MovieServiceImpl implements MovieService {
 
     private final MovieRepository movieRepository;
     private final CinemaMapper cinemaMapper;
+    private final SeatMapCache seatMapCache;
+    private final HallScheduleIndex hallScheduleIndex;
 
     @Override
     @Transactional
@@ -44,12 +50,12 @@ public class MovieServiceImpl implements MovieService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<MovieDTO> getAllMovies() {
-        log.debug("Fetching all movies");
-        List<Movie> movies = movieRepository.findAll();
-        return movies.stream()
-                .map(cinemaMapper::toDTO)
-                .collect(Collectors.toList());
+    public CursorPage<MovieDTO> getAllMovies(Long after, int size) {
+        log.debug("Fetching movies after ID: {}, page size: {}", after, size);
+        int pageSize = CursorPage.boundedSize(size);
+        List<Movie> movies = movieRepository.findByIdGreaterThanOrderByIdAsc(
+                CursorPage.startAfter(after), Limit.of(pageSize + 1));
+        return CursorPage.of(movies, pageSize, Movie::getId, cinemaMapper::toDTO);
     }
 
     @Override
@@ -69,6 +75,8 @@ public class MovieServiceImpl implements MovieService {
         existingMovie.setDirector(movieDTO.getDirector());
 
         Movie updatedMovie = movieRepository.save(existingMovie);
+        // Название фильма входит в закэшированную карту мест его сеансов
+        seatMapCache.evictMovieAfterCommit(id);
         log.info("Movie updated with ID: {}", updatedMovie.getId());
         return cinemaMapper.toDTO(updatedMovie);
     }
@@ -80,6 +88,9 @@ public class MovieServiceImpl implements MovieService {
         Movie movie = movieRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Movie not found with id: " + id));
         movieRepository.delete(movie);
+        seatMapCache.evictMovieAfterCommit(id);
+        // Сеансы фильма удаляются каскадом - их ID здесь неизвестны
+        hallScheduleIndex.evictAllAfterCommit();
         log.info("Movie deleted with ID: {}", id);
     }
 
@@ -0,0 +1,72 @@
+package com.CinemaManager.Cinema.booking.service.impl;
+
+import com.CinemaManager.Cinema.booking.dto.SeatHoldDTO;
+import com.CinemaManager.Cinema.booking.dto.SeatHoldRequestDTO;
+import com.CinemaManager.Cinema.booking.entity.Session;
+import com.CinemaManager.Cinema.booking.exception.BusinessException;
+import com.CinemaManager.Cinema.booking.exception.ResourceNotFoundException;
+import com.CinemaManager.Cinema.booking.hold.SeatHold;
+import com.CinemaManager.Cinema.booking.hold.SeatHoldManager;
+import com.CinemaManager.Cinema.booking.inventory.HallLayoutCache;
+import com.CinemaManager.Cinema.booking.repository.SessionRepository;
+import com.CinemaManager.Cinema.booking.service.SeatHoldService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SeatHoldServiceImpl implements SeatHoldService {
+
+    private final SessionRepository sessionRepository;
+    private final HallLayoutCache hallLayoutCache;
+    private final SeatHoldManager seatHoldManager;
+
+    // Только чтение: удержание живет в памяти и строк в базе не создает
+    @Override
+    @Transactional(readOnly = true)
+    public SeatHoldDTO holdSeats(SeatHoldRequestDTO requestDTO) {
+        log.info("Holding seats {} for session ID: {}", requestDTO.getSeatIds(), requestDTO.getSessionId());
+        Session session = sessionRepository.findSessionWithMovieAndHall(requestDTO.getSessionId())
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Session not found with id: " + requestDTO.getSessionId()));
+
+        if (session.getStartTime().isBefore(LocalDateTime.now())) {
+            throw new BusinessException("Session has already started");
+        }
+
+        // Места проверяются по раскладке зала, без запроса к базе
+        int[] indexes = hallLayoutCache.resolveSeats(session.getHall(), requestDTO.getSeatIds());
+
+        SeatHold hold = seatHoldManager.hold(session, requestDTO.getSeatIds(), indexes, requestDTO.getUserId())
+                .orElseThrow(() -> new BusinessException("Some seats are already occupied"));
+        return toDTO(hold);
+    }
+
+    @Override
+    public SeatHoldDTO extendHold(String holdId, Long userId) {
+        log.debug("Extending seat hold {} for user ID: {}", holdId, userId);
+        return toDTO(seatHoldManager.extend(holdId, userId));
+    }
+
+    @Override
+    public void releaseHold(String holdId, Long userId) {
+        log.info("Releasing seat hold {} for user ID: {}", holdId, userId);
+        seatHoldManager.release(holdId, userId);
+    }
+
+    private static SeatHoldDTO toDTO(SeatHold hold) {
+        return SeatHoldDTO.builder()
+                .holdId(hold.getHoldId())
+                .sessionId(hold.getSessionId())
+                .seatIds(hold.getSeatIds())
+                .expiresAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(hold.getExpiresAt()), ZoneId.systemDefault()))
+                .build();
+    }
+}
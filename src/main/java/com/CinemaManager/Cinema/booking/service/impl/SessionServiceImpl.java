@@ -1,23 +1,46 @@
 package com.CinemaManager.Cinema.booking.service.impl;
 
+import com.CinemaManager.Cinema.booking.concurrency.SessionLockManager;
+import com.CinemaManager.Cinema.booking.dto.CursorPage;
+import com.CinemaManager.Cinema.booking.dto.ScheduleResultDTO;
+import com.CinemaManager.Cinema.booking.dto.SeatBitmapDTO;
+import com.CinemaManager.Cinema.booking.dto.SessionAvailabilityDTO;
 import com.CinemaManager.Cinema.booking.dto.SessionDTO;
 import com.CinemaManager.Cinema.booking.dto.SessionSeatsDTO;
 import com.CinemaManager.Cinema.booking.dto.SeatStatusDTO;
 import com.CinemaManager.Cinema.booking.entity.*;
 import com.CinemaManager.Cinema.booking.exception.BusinessException;
 import com.CinemaManager.Cinema.booking.exception.ResourceNotFoundException;
+import com.CinemaManager.Cinema.booking.hold.SeatHoldManager;
+import com.CinemaManager.Cinema.booking.inventory.HallLayout;
+import com.CinemaManager.Cinema.booking.inventory.HallLayoutCache;
+import com.CinemaManager.Cinema.booking.inventory.SeatInventory;
+import com.CinemaManager.Cinema.booking.inventory.SeatMapCache;
+import com.CinemaManager.Cinema.booking.inventory.SessionSeatBitmap;
 import com.CinemaManager.Cinema.booking.mapper.CinemaMapper;
 import com.CinemaManager.Cinema.booking.repository.*;
+import com.CinemaManager.Cinema.booking.schedule.HallScheduleIndex;
 import com.CinemaManager.Cinema.booking.service.SessionService;
+import com.CinemaManager.Cinema.booking.stream.SeatMapBroadcaster;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,12 +48,21 @@ import java.util.stream.Collectors;
 @Slf4j
 public class SessionServiceImpl implements SessionService {
 
+    private static final int MAX_AVAILABILITY_BATCH = 500;
+    private static final int MAX_PROGRAMME_SIZE = 5000;
+
     private final SessionRepository sessionRepository;
     private final MovieRepository movieRepository;
     private final HallRepository hallRepository;
-    private final SeatRepository seatRepository;
     private final TicketRepository ticketRepository;
     private final CinemaMapper cinemaMapper;
+    private final SeatInventory seatInventory;
+    private final SessionLockManager sessionLockManager;
+    private final SeatHoldManager seatHoldManager;
+    private final SeatMapCache seatMapCache;
+    private final HallLayoutCache hallLayoutCache;
+    private final SeatMapBroadcaster seatMapBroadcaster;
+    private final HallScheduleIndex hallScheduleIndex;
 
     @Override
     @Transactional
@@ -50,7 +82,7 @@ public class SessionServiceImpl implements SessionService {
         }
 
         // Проверяем, что зал свободен в это время
-        if (sessionRepository.hasOverlappingSessions(
+        if (hallScheduleIndex.hasOverlap(
                 hall.getId(),
                 null,
                 sessionDTO.getStartTime(),
@@ -65,10 +97,119 @@ public class SessionServiceImpl implements SessionService {
         session.setHall(hall);
 
         Session savedSession = sessionRepository.save(session);
+        hallScheduleIndex.putAfterCommit(savedSession);
         log.info("Session created with ID: {}", savedSession.getId());
         return cinemaMapper.toDTO(savedSession);
     }
 
+    @Override
+    @Transactional
+    public ScheduleResultDTO scheduleSessions(List<SessionDTO> programme) {
+        log.info("Scheduling programme of {} sessions", programme.size());
+        if (programme.size() > MAX_PROGRAMME_SIZE) {
+            throw new BusinessException("No more than " + MAX_PROGRAMME_SIZE + " sessions per programme");
+        }
+
+        // Фильмы и залы всей программы - двумя запросами
+        // Пустые (null) строки массива отклоняются построчно в validateProgrammeRow
+        Map<Long, Movie> movies = movieRepository.findAllById(programme.stream().filter(Objects::nonNull)
+                        .map(SessionDTO::getMovieId).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Movie::getId, Function.identity()));
+        Map<Long, Hall> halls = hallRepository.findAllById(programme.stream().filter(Objects::nonNull)
+                        .map(SessionDTO::getHallId).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Hall::getId, Function.identity()));
+
+        String[] errors = new String[programme.size()];
+        Map<Long, List<ScheduleSlot>> slotsByHall = new HashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int index = 0; index < programme.size(); index++) {
+            SessionDTO row = programme.get(index);
+            errors[index] = validateProgrammeRow(row, movies, halls, now);
+            if (errors[index] == null) {
+                LocalDateTime endTime = row.getStartTime().plus(movies.get(row.getMovieId()).getDuration());
+                slotsByHall.computeIfAbsent(row.getHallId(), hallId -> new ArrayList<>())
+                        .add(new ScheduleSlot(index, row.getStartTime(), endTime));
+            }
+        }
+
+        // Строки зала по возрастанию начала: достаточно сравнить строку с последней принятой строкой
+        // программы и спросить индекс расписания о существующих сеансах
+        Session[] sessions = new Session[programme.size()];
+        slotsByHall.forEach((hallId, slots) -> {
+            slots.sort(Comparator.comparing(ScheduleSlot::startTime));
+            ScheduleSlot previous = null;
+            for (ScheduleSlot slot : slots) {
+                if (previous != null && slot.startTime().isBefore(previous.endTime())) {
+                    errors[slot.index()] = "Overlaps programme row " + previous.index();
+                } else if (hallScheduleIndex.hasOverlap(hallId, null, slot.startTime(), slot.endTime())) {
+                    errors[slot.index()] = "Hall is already booked for this time period";
+                } else {
+                    SessionDTO row = programme.get(slot.index());
+                    Session session = new Session();
+                    session.setStartTime(row.getStartTime());
+                    session.setPrice(row.getPrice());
+                    session.setMovie(movies.get(row.getMovieId()));
+                    session.setHall(halls.get(hallId));
+                    sessions[slot.index()] = session;
+                    previous = slot;
+                }
+            }
+        });
+
+        // Все принятые строки - пакетными INSERT (ID из последовательности не требуют вставки по одной)
+        List<Session> accepted = Arrays.stream(sessions).filter(Objects::nonNull).toList();
+        sessionRepository.saveAll(accepted);
+        accepted.forEach(hallScheduleIndex::putAfterCommit);
+
+        List<ScheduleResultDTO.RowResultDTO> rows = new ArrayList<>(programme.size());
+        for (int index = 0; index < programme.size(); index++) {
+            rows.add(ScheduleResultDTO.RowResultDTO.builder()
+                    .index(index)
+                    .success(sessions[index] != null)
+                    .session(sessions[index] != null ? cinemaMapper.toDTO(sessions[index]) : null)
+                    .error(errors[index])
+                    .build());
+        }
+        log.info("Programme scheduled: {} created, {} rejected", accepted.size(), programme.size() - accepted.size());
+        return ScheduleResultDTO.builder()
+                .created(accepted.size())
+                .rejected(programme.size() - accepted.size())
+                .rows(rows)
+                .build();
+    }
+
+    private static String validateProgrammeRow(SessionDTO row, Map<Long, Movie> movies, Map<Long, Hall> halls,
+                                               LocalDateTime now) {
+        if (row == null) {
+            return "Programme row is empty";
+        }
+        if (row.getMovieId() == null || row.getHallId() == null || row.getStartTime() == null || row.getPrice() == null) {
+            return "Movie, hall, start time and price are required";
+        }
+        Movie movie = movies.get(row.getMovieId());
+        if (movie == null) {
+            return "Movie not found with id: " + row.getMovieId();
+        }
+        if (!halls.containsKey(row.getHallId())) {
+            return "Hall not found with id: " + row.getHallId();
+        }
+        if (movie.getDuration() == null) {
+            return "Movie has no duration: " + row.getMovieId();
+        }
+        if (!row.getStartTime().isAfter(now)) {
+            return "Session start time must be in the future";
+        }
+        if (row.getPrice() <= 0) {
+            return "Price must be positive";
+        }
+        return null;
+    }
+
+    private record ScheduleSlot(int index, LocalDateTime startTime, LocalDateTime endTime) {
+    }
+
     @Override
     @Transactional(readOnly = true)
     public SessionDTO getSessionById(Long id) {
@@ -80,12 +221,12 @@ public class SessionServiceImpl implements SessionService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<SessionDTO> getAllSessions() {
-        log.debug("Fetching all sessions");
-        List<Session> sessions = sessionRepository.findAll();
-        return sessions.stream()
-                .map(cinemaMapper::toDTO)
-                .collect(Collectors.toList());
+    public CursorPage<SessionDTO> getAllSessions(Long after, int size) {
+        log.debug("Fetching sessions after ID: {}, page size: {}", after, size);
+        int pageSize = CursorPage.boundedSize(size);
+        List<SessionDTO> sessions = sessionRepository.findDTOsAfter(
+                CursorPage.startAfter(after), Limit.of(pageSize + 1));
+        return CursorPage.of(sessions, pageSize, SessionDTO::getId, Function.identity());
     }
 
     @Override
@@ -108,22 +249,26 @@ public class SessionServiceImpl implements SessionService {
                     .orElseThrow(() -> new ResourceNotFoundException("Hall not found with id: " + sessionDTO.getHallId()));
         }
 
-        if (!existingSession.getStartTime().equals(sessionDTO.getStartTime())) {
-            if (sessionRepository.hasOverlappingSessions(
-                    hall.getId(),
-                    id,
-                    sessionDTO.getStartTime(),
-                    sessionDTO.getStartTime().plus(movie.getDuration()))) {
-                throw new BusinessException("Hall is already booked for this time period");
-            }
+        // Проверка по индексу расписания дешевая - выполняем ее и при смене зала или фильма
+        if (hallScheduleIndex.hasOverlap(
+                hall.getId(),
+                id,
+                sessionDTO.getStartTime(),
+                sessionDTO.getStartTime().plus(movie.getDuration()))) {
+            throw new BusinessException("Hall is already booked for this time period");
         }
 
         existingSession.setStartTime(sessionDTO.getStartTime());
         existingSession.setPrice(sessionDTO.getPrice());
         existingSession.setMovie(movie);
         existingSession.setHall(hall);
+        existingSession.setCapacity(hall.getTotalRows() * hall.getSeatsPerRow());
 
         Session updatedSession = sessionRepository.save(existingSession);
+        seatMapCache.evictSessionAfterCommit(id);
+        hallScheduleIndex.putAfterCommit(updatedSession);
+        // Другой зал - другая геометрия битовой карты
+        seatInventory.evictSessionAfterCommit(id);
         log.info("Session updated with ID: {}", updatedSession.getId());
         return cinemaMapper.toDTO(updatedSession);
     }
@@ -132,6 +277,7 @@ public class SessionServiceImpl implements SessionService {
     @Transactional
     public void deleteSession(Long id) {
         log.info("Deleting session with ID: {}", id);
+        sessionLockManager.lockForTransaction(id);
         Session session = sessionRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Session not found with id: " + id));
 
@@ -151,53 +297,142 @@ public class SessionServiceImpl implements SessionService {
         ticketRepository.saveAll(sessionTickets);
 
         sessionRepository.delete(session);
+        hallScheduleIndex.removeAfterCommit(id);
+        seatInventory.evictSessionAfterCommit(id);
+        seatMapCache.evictSessionAfterCommit(id);
         log.info("Session deleted with ID: {}", id);
     }
 
+    // Без собственной транзакции: при прогретом кэше запросов к базе нет вовсе
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public SessionSeatsDTO getSessionWithSeats(Long sessionId) {
         log.debug("Fetching session with seats for session ID: {}", sessionId);
-        Session session = sessionRepository.findSessionWithMovieAndHall(sessionId)
-                .orElseThrow(() -> new ResourceNotFoundException("Session not found with id: " + sessionId));
-
-        // Получаем все места в зале
-        List<Seat> allSeats = seatRepository.findByHall(session.getHall());
+        SeatMapCache.SeatMap seatMap = seatMapCache.get(sessionId, () -> loadSeatMap(sessionId));
+        SessionSeatBitmap bitmap = seatInventory.getBitmap(sessionId, () -> findSessionWithDetails(sessionId));
 
-        // Получаем занятые места на этот сеанс
-        List<Seat> occupiedSeats = seatRepository.findOccupiedSeatsBySession(sessionId);
+        // Места, временно удерживаемые другими покупателями (в битовой карте они тоже заняты)
+        Set<Long> heldSeatIds = seatHoldManager.heldSeatIds(sessionId);
 
         // Создаем DTO для каждого места со статусом
-        List<SeatStatusDTO> seatStatuses = new ArrayList<>();
-        for (Seat seat : allSeats) {
-            boolean isOccupied = occupiedSeats.stream()
-                    .anyMatch(occupied -> occupied.getId().equals(seat.getId()));
+        List<SeatStatusDTO> seatStatuses = new ArrayList<>(seatMap.seats().size());
+        for (SeatMapCache.SeatCell seat : seatMap.seats()) {
+            int index = bitmap.indexOf(seat.rowNumber(), seat.seatNumber());
+            String status = "FREE";
+            if (heldSeatIds.contains(seat.seatId())) {
+                status = "HELD";
+            } else if (index >= 0 && bitmap.isOccupied(index)) {
+                status = "OCCUPIED";
+            }
 
             SeatStatusDTO seatStatus = SeatStatusDTO.builder()
-                    .seatId(seat.getId())
-                    .rowNumber(seat.getRowNumber())
-                    .seatNumber(seat.getSeatNumber())
-                    .status(isOccupied ? "OCCUPIED" : "FREE")
+                    .seatId(seat.seatId())
+                    .rowNumber(seat.rowNumber())
+                    .seatNumber(seat.seatNumber())
+                    .status(status)
                     .build();
             seatStatuses.add(seatStatus);
         }
 
         // Создаем итоговый DTO
         SessionSeatsDTO sessionSeatsDTO = SessionSeatsDTO.builder()
-                .sessionId(session.getId())
-                .movieTitle(session.getMovie().getTitle())
-                .startTime(session.getStartTime())
-                .endTime(session.getEndTime())
-                .price(session.getPrice())
-                .hallName(session.getHall().getName())
-                .totalRows(session.getHall().getTotalRows())
-                .seatsPerRow(session.getHall().getSeatsPerRow())
+                .sessionId(seatMap.sessionId())
+                .movieTitle(seatMap.movieTitle())
+                .startTime(seatMap.startTime())
+                .endTime(seatMap.endTime())
+                .price(seatMap.price())
+                .hallName(seatMap.hallName())
+                .totalRows(seatMap.totalRows())
+                .seatsPerRow(seatMap.seatsPerRow())
                 .seats(seatStatuses)
                 .build();
 
         return sessionSeatsDTO;
     }
 
+    private SeatMapCache.SeatMap loadSeatMap(Long sessionId) {
+        Session session = findSessionWithDetails(sessionId);
+
+        // Места зала берем из общей раскладки
+        HallLayout layout = hallLayoutCache.get(session.getHall());
+        List<SeatMapCache.SeatCell> seats = new ArrayList<>(layout.seatCount());
+        for (int index = 0; index < layout.capacity(); index++) {
+            long seatId = layout.seatIdAt(index);
+            if (seatId != 0) {
+                seats.add(new SeatMapCache.SeatCell(seatId, layout.rowNumberOf(index), layout.seatNumberOf(index)));
+            }
+        }
+
+        return new SeatMapCache.SeatMap(
+                session.getId(),
+                session.getMovie().getId(),
+                session.getHall().getId(),
+                session.getMovie().getTitle(),
+                session.getStartTime(),
+                session.getEndTime(),
+                session.getPrice(),
+                session.getHall().getName(),
+                session.getHall().getTotalRows(),
+                session.getHall().getSeatsPerRow(),
+                seats);
+    }
+
+    private Session findSessionWithDetails(Long sessionId) {
+        return sessionRepository.findSessionWithMovieAndHall(sessionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Session not found with id: " + sessionId));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public SeatBitmapDTO getSeatBitmap(Long sessionId) {
+        log.debug("Fetching seat bitmap for session ID: {}", sessionId);
+        // Уже загруженная карта отдается без запросов к базе
+        SessionSeatBitmap bitmap = seatInventory.getBitmap(sessionId, () -> findSessionWithDetails(sessionId));
+
+        // Версию читаем до снимка: иначе ETag может оказаться новее содержимого
+        String version = "\"" + bitmap.getGeneration() + "-" + bitmap.version() + "\"";
+        return SeatBitmapDTO.builder()
+                .sessionId(sessionId)
+                .totalRows(bitmap.getTotalRows())
+                .seatsPerRow(bitmap.getSeatsPerRow())
+                .version(version)
+                .occupancy(bitmap.toByteArray())
+                .occupiedCount(bitmap.occupiedCount())
+                .build();
+    }
+
+    @Override
+    public SseEmitter subscribeToSeatChanges(Long sessionId) {
+        log.debug("Subscribing to seat changes for session ID: {}", sessionId);
+        return seatMapBroadcaster.subscribe(sessionId,
+                () -> seatInventory.getBitmap(sessionId, () -> findSessionWithDetails(sessionId)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SessionAvailabilityDTO> getAvailability(List<Long> sessionIds) {
+        log.debug("Fetching availability for {} sessions", sessionIds.size());
+        // Пустые элементы (?ids=1,,2) приходят как null - пропускаем их
+        Set<Long> ids = sessionIds.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        if (ids.size() > MAX_AVAILABILITY_BATCH) {
+            throw new BusinessException("No more than " + MAX_AVAILABILITY_BATCH + " sessions per request");
+        }
+        // Несуществующие сеансы просто отсутствуют в ответе
+        return sessionRepository.findAvailabilityByIds(ids);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SessionAvailabilityDTO> getAvailability(LocalDate date, Long movieId) {
+        log.debug("Fetching availability for date: {}, movie ID: {}", date, movieId);
+        return sessionRepository.findAvailabilityBetween(date.atStartOfDay(), date.plusDays(1).atStartOfDay(), movieId);
+    }
+
 
 
 
@@ -209,21 +444,16 @@ public class SessionServiceImpl implements SessionService {
     // В SessionServiceImpl.java
 
     @Override
-    public List<SessionDTO> getSessionsByMovie(Long movieId) {
-        // Используйте новый метод
-        List<Session> sessions = sessionRepository.findByMovieId(movieId);
-        return sessions.stream()
-                .map(cinemaMapper::toDTO)
-                .collect(Collectors.toList());
+    public CursorPage<SessionDTO> getSessionsByMovie(Long movieId, Long after, int size) {
+        int pageSize = CursorPage.boundedSize(size);
+        List<SessionDTO> sessions = sessionRepository.findDTOsByMovieIdAfter(
+                movieId, CursorPage.startAfter(after), Limit.of(pageSize + 1));
+        return CursorPage.of(sessions, pageSize, SessionDTO::getId, Function.identity());
     }
 
     @Override
     public List<SessionDTO> getSessionsByDate(LocalDate date) {
-        // Используйте метод с @Query для работы с датами
-        List<Session> sessions = sessionRepository.findByDate(date);
-        return sessions.stream()
-                .map(cinemaMapper::toDTO)
-                .collect(Collectors.toList());
+        return sessionRepository.findDTOsByDate(date);
     }
 
     @Override
@@ -231,22 +461,21 @@ public class SessionServiceImpl implements SessionService {
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime endDate = now.plusDays(days);
 
-        List<Session> sessions = sessionRepository.findByStartTimeBetween(now, endDate);
-        return sessions.stream()
-                .map(cinemaMapper::toDTO)
-                .collect(Collectors.toList());
+        return sessionRepository.findDTOsStartingInRange(now, endDate);
     }
 
     @Override
-    public List<SessionDTO> getAvailableSessions() {
-        // Используйте специальный метод для сеансов со свободными местами
-        List<Session> sessions = sessionRepository.findAvailableSessions();
-        return sessions.stream()
-                .map(cinemaMapper::toDTO)
-                .collect(Collectors.toList());
+    public CursorPage<SessionDTO> getAvailableSessions(Long after, int size) {
+        int pageSize = CursorPage.boundedSize(size);
+        List<SessionDTO> sessions = sessionRepository.findAvailableDTOsAfter(
+                CursorPage.startAfter(after), Limit.of(pageSize + 1));
+        return CursorPage.of(sessions, pageSize, SessionDTO::getId, Function.identity());
     }
 
     public boolean isHallAvailable(Long hallId, LocalDateTime startTime, LocalDateTime endTime, Long excludeSessionId) {
-        return !sessionRepository.hasOverlappingSessions(hallId, excludeSessionId, startTime, endTime);
+        if (!endTime.isAfter(startTime)) {
+            throw new BusinessException("End time must be after start time");
+        }
+        return !hallScheduleIndex.hasOverlap(hallId, excludeSessionId, startTime, endTime);
     }
 }
\ No newline at end of file
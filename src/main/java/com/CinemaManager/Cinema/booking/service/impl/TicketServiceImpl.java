@@ -1,20 +1,32 @@
 package com.CinemaManager.Cinema.booking.service.impl;
 
+import com.CinemaManager.Cinema.booking.concurrency.SessionLockManager;
 import com.CinemaManager.Cinema.booking.dto.*;
 import com.CinemaManager.Cinema.booking.entity.*;
 import com.CinemaManager.Cinema.booking.exception.BusinessException;
 import com.CinemaManager.Cinema.booking.exception.ResourceNotFoundException;
+import com.CinemaManager.Cinema.booking.expiry.ReservationExpiryService;
+import com.CinemaManager.Cinema.booking.generator.TicketNumberGenerator;
+import com.CinemaManager.Cinema.booking.hold.SeatHoldManager;
+import com.CinemaManager.Cinema.booking.inventory.BestAvailableSeatFinder;
+import com.CinemaManager.Cinema.booking.inventory.HallLayout;
+import com.CinemaManager.Cinema.booking.inventory.HallLayoutCache;
+import com.CinemaManager.Cinema.booking.inventory.SeatInventory;
 import com.CinemaManager.Cinema.booking.mapper.CinemaMapper;
+import com.CinemaManager.Cinema.booking.pipeline.PurchaseOutcome;
 import com.CinemaManager.Cinema.booking.repository.*;
+import com.CinemaManager.Cinema.booking.rollup.SalesRollupRecorder;
 import com.CinemaManager.Cinema.booking.service.TicketService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,92 +40,126 @@ public class TicketServiceImpl implements TicketService {
     private final SeatRepository seatRepository;
     private final UserRepository userRepository;
     private final CinemaMapper cinemaMapper;
+    private final SeatInventory seatInventory;
+    private final SessionLockManager sessionLockManager;
+    private final TicketNumberGenerator ticketNumberGenerator;
+    private final ReservationExpiryService reservationExpiryService;
+    private final SeatHoldManager seatHoldManager;
+    private final HallLayoutCache hallLayoutCache;
+    private final SalesRollupRecorder salesRollupRecorder;
 
     @Override
     @Transactional
     public TicketPurchaseResponseDTO purchaseTickets(PurchaseTicketDTO purchaseDTO) {
         log.info("Processing ticket purchase for session ID: {}, seats: {}",
                 purchaseDTO.getSessionId(), purchaseDTO.getSeatIds());
+        sessionLockManager.lockForTransaction(purchaseDTO.getSessionId());
 
-        // Получаем сеанс
-        Session session = sessionRepository.findSessionWithMovieAndHall(purchaseDTO.getSessionId())
-                .orElseThrow(() -> new ResourceNotFoundException(
-                        "Session not found with id: " + purchaseDTO.getSessionId()));
-
-        // Проверяем, что сеанс еще не начался
-        if (session.getStartTime().isBefore(LocalDateTime.now())) {
-            throw new BusinessException("Session has already started");
-        }
+        Session session = findSessionOnSale(purchaseDTO.getSessionId());
 
         // Получаем пользователя
         User user = userRepository.findById(purchaseDTO.getUserId())
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "User not found with id: " + purchaseDTO.getUserId()));
 
-        List<Seat> seats = seatRepository.findByIdIn(purchaseDTO.getSeatIds());
-        if (seats.size() != purchaseDTO.getSeatIds().size()) {
-            throw new BusinessException("Some seats not found");
-        }
+        claimSeats(session, purchaseDTO.getSeatIds(), purchaseDTO.getHoldId(), user.getId());
 
-        for (Seat seat : seats) {
-            if (!seat.getHall().getId().equals(session.getHall().getId())) {
-                throw new BusinessException("Seat " + seat.getId() + " is not in the correct hall");
-            }
-        }
+        List<Ticket> savedTickets = saveClaimedTickets(session,
+                buildSoldTickets(session, user, seatReferences(purchaseDTO.getSeatIds())));
 
-        boolean areSeatsAvailable = ticketRepository.areSeatsAvailable(
-                purchaseDTO.getSessionId(), purchaseDTO.getSeatIds());
-        if (!areSeatsAvailable) {
-            throw new BusinessException("Some seats are already occupied");
-        }
+        log.info("Successfully purchased {} tickets for session ID: {}",
+                savedTickets.size(), purchaseDTO.getSessionId());
 
-        List<Ticket> tickets = new ArrayList<>();
-        List<TicketPurchaseResponseDTO.TicketInfoDTO> purchasedTicketsInfo = new ArrayList<>();
-        double totalAmount = 0.0;
+        return buildPurchaseResponse(session, savedTickets);
+    }
 
-        for (Seat seat : seats) {
-            Ticket ticket = Ticket.builder()
-                    .session(session)
-                    .seat(seat)
-                    .user(user)
-                    .status(Ticket.TicketStatus.SOLD)
-                    .purchaseTime(LocalDateTime.now())
-                    .build();
+    @Override
+    @Transactional
+    public TicketPurchaseResponseDTO purchaseBestAvailable(BestAvailablePurchaseDTO purchaseDTO) {
+        log.info("Processing best-available purchase of {} seats for session ID: {}",
+                purchaseDTO.getQuantity(), purchaseDTO.getSessionId());
+        // Под блокировкой сеанса найденный блок не успеют занять между поиском и захватом
+        sessionLockManager.lockForTransaction(purchaseDTO.getSessionId());
 
-            tickets.add(ticket);
-            totalAmount += session.getPrice();
+        Session session = findSessionOnSale(purchaseDTO.getSessionId());
 
-            // Создаем информацию о купленном билете
-            TicketPurchaseResponseDTO.TicketInfoDTO ticketInfo =
-                    TicketPurchaseResponseDTO.TicketInfoDTO.builder()
-                            .movieTitle(session.getMovie().getTitle())
-                            .sessionTime(session.getStartTime())
-                            .hallName(session.getHall().getName())
-                            .rowNumber(seat.getRowNumber())
-                            .seatNumber(seat.getSeatNumber())
-                            .price(session.getPrice())
-                            .build();
-            purchasedTicketsInfo.add(ticketInfo);
+        User user = userRepository.findById(purchaseDTO.getUserId())
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "User not found with id: " + purchaseDTO.getUserId()));
+
+        BestAvailableSeatFinder.SeatBlock block = seatInventory.findBestAvailable(session, purchaseDTO.getQuantity())
+                .orElseThrow(() -> new BusinessException(
+                        "No " + purchaseDTO.getQuantity() + " adjacent seats available"));
+
+        // ID мест блока берем из раскладки зала
+        HallLayout layout = hallLayoutCache.get(session.getHall());
+        int firstIndex = (block.row() - 1) * layout.getSeatsPerRow() + (block.firstSeat() - 1);
+        List<Long> seatIds = new ArrayList<>(block.count());
+        for (int index = firstIndex; index < firstIndex + block.count(); index++) {
+            if (layout.seatIdAt(index) == 0) {
+                throw new BusinessException("Some seats not found");
+            }
+            seatIds.add(layout.seatIdAt(index));
         }
+        claimSeats(session, seatIds, null, user.getId());
+
+        List<Ticket> savedTickets = saveClaimedTickets(session,
+                buildSoldTickets(session, user, seatReferences(seatIds)));
+
+        log.info("Successfully purchased row {} seats {}-{} for session ID: {}",
+                block.row(), block.firstSeat(), block.lastSeat(), purchaseDTO.getSessionId());
 
-        List<Ticket> savedTickets = ticketRepository.saveAll(tickets);
+        return buildPurchaseResponse(session, savedTickets);
+    }
 
-        for (int i = 0; i < savedTickets.size(); i++) {
-            Ticket ticket = savedTickets.get(i);
-            purchasedTicketsInfo.get(i).setTicketNumber(ticket.getTicketNumber());
+    @Override
+    @Transactional
+    public List<PurchaseOutcome> purchaseTicketsBatch(Long sessionId, List<PurchaseTicketDTO> purchases) {
+        log.info("Processing batch of {} purchases for session ID: {}", purchases.size(), sessionId);
+        sessionLockManager.lockForTransaction(sessionId);
+
+        Session session = findSessionOnSale(sessionId);
+
+        // Пользователи всей пачки загружаются одним запросом, места проверяются по раскладке зала
+        Set<Long> userIds = purchases.stream()
+                .map(PurchaseTicketDTO::getUserId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        // Один проход по карте мест: запросы обрабатываются в порядке поступления
+        PurchaseOutcome[] outcomes = new PurchaseOutcome[purchases.size()];
+        Map<Integer, List<Ticket>> winners = new LinkedHashMap<>();
+        for (int i = 0; i < purchases.size(); i++) {
+            PurchaseTicketDTO purchase = purchases.get(i);
+            try {
+                User user = users.get(purchase.getUserId());
+                if (user == null) {
+                    throw new ResourceNotFoundException("User not found with id: " + purchase.getUserId());
+                }
+                claimSeats(session, purchase.getSeatIds(), purchase.getHoldId(), user.getId());
+                winners.put(i, buildSoldTickets(session, user, seatReferences(purchase.getSeatIds())));
+            } catch (BusinessException | ResourceNotFoundException e) {
+                outcomes[i] = PurchaseOutcome.failure(e);
+            }
         }
 
-        log.info("Successfully purchased {} tickets for session ID: {}",
-                savedTickets.size(), purchaseDTO.getSessionId());
+        // Все победители пачки вставляются и коммитятся вместе
+        List<Ticket> savedTickets = saveClaimedTickets(session, winners.values().stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList()));
+        int offset = 0;
+        for (Map.Entry<Integer, List<Ticket>> winner : winners.entrySet()) {
+            int count = winner.getValue().size();
+            outcomes[winner.getKey()] = PurchaseOutcome.success(
+                    buildPurchaseResponse(session, savedTickets.subList(offset, offset + count)));
+            offset += count;
+        }
 
-        // Возвращаем ответ
-        return TicketPurchaseResponseDTO.builder()
-                .success(true)
-                .message("Tickets purchased successfully")
-                .purchaseTime(LocalDateTime.now())
-                .totalAmount(totalAmount)
-                .purchasedTickets(purchasedTicketsInfo)
-                .build();
+        log.info("Batch for session ID: {} sold {} tickets to {} of {} buyers",
+                sessionId, savedTickets.size(), winners.size(), purchases.size());
+        return Arrays.asList(outcomes);
     }
 
     @Override
@@ -121,6 +167,7 @@ public class TicketServiceImpl implements TicketService {
     public List<TicketDTO> reserveTickets(PurchaseTicketDTO purchaseDTO) {
         log.info("Reserving tickets for session ID: {}, seats: {}",
                 purchaseDTO.getSessionId(), purchaseDTO.getSeatIds());
+        sessionLockManager.lockForTransaction(purchaseDTO.getSessionId());
 
         Session session = sessionRepository.findById(purchaseDTO.getSessionId())
                 .orElseThrow(() -> new ResourceNotFoundException(
@@ -134,19 +181,11 @@ public class TicketServiceImpl implements TicketService {
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "User not found with id: " + purchaseDTO.getUserId()));
 
-        List<Seat> seats = seatRepository.findByIdIn(purchaseDTO.getSeatIds());
-        if (seats.size() != purchaseDTO.getSeatIds().size()) {
-            throw new BusinessException("Some seats not found");
-        }
-
-        boolean areSeatsAvailable = ticketRepository.areSeatsAvailable(
-                purchaseDTO.getSessionId(), purchaseDTO.getSeatIds());
-        if (!areSeatsAvailable) {
-            throw new BusinessException("Some seats are already occupied");
-        }
+        claimSeats(session, purchaseDTO.getSeatIds(), purchaseDTO.getHoldId(), user.getId());
 
+        // Ответ содержит ряд и место каждого билета - места загружаем одним запросом, а не по ссылке
         List<Ticket> tickets = new ArrayList<>();
-        for (Seat seat : seats) {
+        for (Seat seat : seatRepository.findByIdIn(purchaseDTO.getSeatIds())) {
             Ticket ticket = Ticket.builder()
                     .session(session)
                     .seat(seat)
@@ -156,7 +195,8 @@ public class TicketServiceImpl implements TicketService {
             tickets.add(ticket);
         }
 
-        List<Ticket> savedTickets = ticketRepository.saveAll(tickets);
+        List<Ticket> savedTickets = saveClaimedTickets(session, tickets);
+        reservationExpiryService.registerAfterCommit(savedTickets);
         log.info("Successfully reserved {} tickets for session ID: {}",
                 savedTickets.size(), purchaseDTO.getSessionId());
 
@@ -169,6 +209,7 @@ public class TicketServiceImpl implements TicketService {
     @Transactional
     public TicketDTO confirmTicket(String ticketNumber) {
         log.info("Confirming ticket: {}", ticketNumber);
+        lockTicketSession(ticketNumber);
         Ticket ticket = ticketRepository.findByTicketNumber(ticketNumber)
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "Ticket not found with number: " + ticketNumber));
@@ -183,8 +224,11 @@ public class TicketServiceImpl implements TicketService {
 
         ticket.setStatus(Ticket.TicketStatus.SOLD);
         ticket.setPurchaseTime(LocalDateTime.now());
+        ticket.setPrice(ticket.getSession().getPrice());
 
         Ticket confirmedTicket = ticketRepository.save(ticket);
+        sessionRepository.adjustOccupancy(ticket.getSession().getId(), 1, -1);
+        salesRollupRecorder.recordSold(List.of(confirmedTicket));
         log.info("Ticket {} confirmed successfully", ticketNumber);
 
         return cinemaMapper.toDTO(confirmedTicket);
@@ -194,6 +238,7 @@ public class TicketServiceImpl implements TicketService {
     @Transactional
     public TicketDTO cancelTicket(String ticketNumber) {
         log.info("Canceling ticket: {}", ticketNumber);
+        lockTicketSession(ticketNumber);
         Ticket ticket = ticketRepository.findByTicketNumber(ticketNumber)
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "Ticket not found with number: " + ticketNumber));
@@ -206,9 +251,17 @@ public class TicketServiceImpl implements TicketService {
             throw new BusinessException("Cannot cancel ticket after session has started");
         }
 
+        Ticket.TicketStatus previousStatus = ticket.getStatus();
         ticket.setStatus(Ticket.TicketStatus.CANCELLED);
 
         Ticket cancelledTicket = ticketRepository.save(ticket);
+        if (previousStatus == Ticket.TicketStatus.SOLD) {
+            sessionRepository.adjustOccupancy(ticket.getSession().getId(), -1, 0);
+            salesRollupRecorder.recordRefunded(List.of(cancelledTicket));
+        } else if (previousStatus == Ticket.TicketStatus.BOOKED) {
+            sessionRepository.adjustOccupancy(ticket.getSession().getId(), 0, -1);
+        }
+        seatInventory.releaseAfterCommit(ticket.getSession().getId(), List.of(ticket.getSeat()));
         log.info("Ticket {} cancelled successfully", ticketNumber);
 
         return cinemaMapper.toDTO(cancelledTicket);
@@ -228,6 +281,7 @@ public class TicketServiceImpl implements TicketService {
     @Transactional(readOnly = true)
     public TicketDTO getTicketByNumber(String ticketNumber) {
         log.debug("Fetching ticket with number: {}", ticketNumber);
+        requireWellFormed(ticketNumber);
         Ticket ticket = ticketRepository.findByTicketNumber(ticketNumber)
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "Ticket not found with number: " + ticketNumber));
@@ -236,40 +290,175 @@ public class TicketServiceImpl implements TicketService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<TicketDTO> getAllTickets() {
-        log.debug("Fetching all tickets");
-        List<Ticket> tickets = ticketRepository.findAll();
-        return tickets.stream()
-                .map(cinemaMapper::toDTO)
-                .collect(Collectors.toList());
+    public CursorPage<TicketDTO> getAllTickets(Long after, int size) {
+        log.debug("Fetching tickets after ID: {}, page size: {}", after, size);
+        int pageSize = CursorPage.boundedSize(size);
+        List<TicketDTO> tickets = ticketRepository.findDTOsAfter(
+                CursorPage.startAfter(after), Limit.of(pageSize + 1));
+        return CursorPage.of(tickets, pageSize, TicketDTO::getId, Function.identity());
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<TicketDTO> getTicketsBySession(Long sessionId) {
         log.debug("Fetching tickets for session ID: {}", sessionId);
-        List<Ticket> tickets = ticketRepository.findBySessionId(sessionId);
-        return tickets.stream()
-                .map(cinemaMapper::toDTO)
-                .collect(Collectors.toList());
+        return ticketRepository.findDTOsBySessionId(sessionId);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<TicketDTO> getTicketsByUser(Long userId) {
-        log.debug("Fetching tickets for user ID: {}", userId);
-        List<Ticket> tickets = ticketRepository.findUserTicketsWithDetails(userId);
-        return tickets.stream()
-                .map(cinemaMapper::toDTO)
-                .collect(Collectors.toList());
+    public CursorPage<TicketDTO> getTicketsByUser(Long userId, Long after, int size) {
+        log.debug("Fetching tickets for user ID: {} after ID: {}, page size: {}", userId, after, size);
+        int pageSize = CursorPage.boundedSize(size);
+        List<TicketDTO> tickets = ticketRepository.findDTOsByUserIdAfter(
+                userId, CursorPage.startAfter(after), Limit.of(pageSize + 1));
+        return CursorPage.of(tickets, pageSize, TicketDTO::getId, Function.identity());
+    }
+
+    // Статус билета читаем уже под блокировкой его сеанса
+    private void lockTicketSession(String ticketNumber) {
+        requireWellFormed(ticketNumber);
+        Long sessionId = ticketRepository.findSessionIdByTicketNumber(ticketNumber)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Ticket not found with number: " + ticketNumber));
+        sessionLockManager.lockForTransaction(sessionId);
+    }
+
+    // Номер с неверной контрольной суммой не может существовать - в базу не ходим
+    private void requireWellFormed(String ticketNumber) {
+        if (!ticketNumberGenerator.isWellFormed(ticketNumber)) {
+            throw new ResourceNotFoundException("Ticket not found with number: " + ticketNumber);
+        }
+    }
+
+    private Session findSessionOnSale(Long sessionId) {
+        // Получаем сеанс
+        Session session = sessionRepository.findSessionWithMovieAndHall(sessionId)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Session not found with id: " + sessionId));
+
+        // Проверяем, что сеанс еще не начался
+        if (session.getStartTime().isBefore(LocalDateTime.now())) {
+            throw new BusinessException("Session has already started");
+        }
+        return session;
+    }
+
+    // Проверяет места и занимает их в оперативной карте сеанса вместо запроса к базе.
+    // Места из удержания уже заняты в карте - удержание просто передается билетам.
+    private void claimSeats(Session session, List<Long> seatIds, String holdId, Long userId) {
+        // Проверка по раскладке зала - поиск в массиве, без запроса мест
+        int[] indexes = hallLayoutCache.resolveSeats(session.getHall(), seatIds);
+
+        if (holdId != null) {
+            seatHoldManager.takeOver(holdId, session.getId(), userId, seatIds);
+            return;
+        }
+
+        if (!seatInventory.claim(session, indexes)) {
+            throw new BusinessException("Some seats are already occupied");
+        }
+    }
+
+    // Ссылки без загрузки: для вставки билета нужен только ID места
+    private List<Seat> seatReferences(List<Long> seatIds) {
+        List<Seat> seats = new ArrayList<>(seatIds.size());
+        for (Long seatId : seatIds) {
+            seats.add(seatRepository.getReferenceById(seatId));
+        }
+        return seats;
+    }
+
+    private List<Ticket> buildSoldTickets(Session session, User user, List<Seat> seats) {
+        List<Ticket> tickets = new ArrayList<>();
+        for (Seat seat : seats) {
+            tickets.add(Ticket.builder()
+                    .session(session)
+                    .seat(seat)
+                    .user(user)
+                    .status(Ticket.TicketStatus.SOLD)
+                    .purchaseTime(LocalDateTime.now())
+                    .price(session.getPrice())
+                    .build());
+        }
+        return tickets;
+    }
+
+    private TicketPurchaseResponseDTO buildPurchaseResponse(Session session, List<Ticket> tickets) {
+        List<TicketPurchaseResponseDTO.TicketInfoDTO> purchasedTicketsInfo = new ArrayList<>();
+        double totalAmount = 0.0;
+        // Ряд и место - из раскладки зала, чтобы не инициализировать ссылки на места
+        HallLayout layout = hallLayoutCache.get(session.getHall());
+
+        for (Ticket ticket : tickets) {
+            totalAmount += session.getPrice();
+            int index = layout.indexOf(ticket.getSeat().getId());
+
+            // Создаем информацию о купленном билете
+            purchasedTicketsInfo.add(TicketPurchaseResponseDTO.TicketInfoDTO.builder()
+                    .ticketNumber(ticket.getTicketNumber())
+                    .movieTitle(session.getMovie().getTitle())
+                    .sessionTime(session.getStartTime())
+                    .hallName(session.getHall().getName())
+                    .rowNumber(layout.rowNumberOf(index))
+                    .seatNumber(layout.seatNumberOf(index))
+                    .price(session.getPrice())
+                    .build());
+        }
+
+        return TicketPurchaseResponseDTO.builder()
+                .success(true)
+                .message("Tickets purchased successfully")
+                .purchaseTime(LocalDateTime.now())
+                .totalAmount(totalAmount)
+                .purchasedTickets(purchasedTicketsInfo)
+                .build();
+    }
+
+    // Вставка без предварительной проверки: вторую активную заявку на место отклоняет база.
+    // Счетчики сеанса меняются в той же транзакции, что и билеты.
+    private List<Ticket> saveClaimedTickets(Session session, List<Ticket> tickets) {
+        try {
+            List<Ticket> savedTickets = ticketRepository.saveAllAndFlush(tickets);
+            int sold = 0;
+            int booked = 0;
+            for (Ticket ticket : savedTickets) {
+                if (ticket.getStatus() == Ticket.TicketStatus.SOLD) {
+                    sold++;
+                } else if (ticket.getStatus() == Ticket.TicketStatus.BOOKED) {
+                    booked++;
+                }
+            }
+            if (!savedTickets.isEmpty()) {
+                sessionRepository.adjustOccupancy(session.getId(), sold, booked);
+            }
+            if (sold > 0) {
+                salesRollupRecorder.recordSold(savedTickets);
+            }
+            return savedTickets;
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Seat claim conflict for session ID: {}: {}", session.getId(), e.getMessage());
+            // Карта сеанса устарела (место заняли на другом узле) - перечитаем ее при следующем запросе
+            seatInventory.evictSession(session.getId());
+            throw new BusinessException("Some seats are already occupied");
+        }
     }
 
     @Override
     @Transactional
     public void cancelExpiredReservations() {
         log.info("Canceling expired reservations");
-        LocalDateTime expirationTime = LocalDateTime.now().minusMinutes(15); // 15 минут для брони
+        // Обычно брони снимает колесо таймеров; ручная зачистка использует тот же срок
+        LocalDateTime expirationTime = reservationExpiryService.expirationThreshold();
+        List<Long> sessionIds = ticketRepository.findSessionIdsWithExpiredReservations(expirationTime);
         int cancelledCount = ticketRepository.cancelExpiredReservations(expirationTime);
+        if (cancelledCount > 0) {
+            // Массовое обновление не сообщает, какие места освободились
+            if (!sessionIds.isEmpty()) {
+                sessionRepository.recountOccupancy(sessionIds);
+            }
+            seatInventory.evictAllAfterCommit();
+        }
         log.info("Cancelled {} expired reservations", cancelledCount);
     }
 }
\ No newline at end of file
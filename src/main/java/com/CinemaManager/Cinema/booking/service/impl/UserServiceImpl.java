@@ -1,6 +1,7 @@
 package com.CinemaManager.Cinema.booking.service.impl;
 
 import com.CinemaManager.Cinema.booking.controller.UserController;
+import com.CinemaManager.Cinema.booking.dto.CursorPage;
 import com.CinemaManager.Cinema.booking.dto.UserDTO;
 import com.CinemaManager.Cinema.booking.entity.Ticket;
 import com.CinemaManager.Cinema.booking.entity.User;
@@ -11,12 +12,12 @@ import com.CinemaManager.Cinema.booking.repository.UserRepository;
 import com.CinemaManager.Cinema.booking.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -74,12 +75,12 @@ public class UserServiceImpl implements UserService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<UserDTO> getAllUsers() {
-        log.debug("Fetching all users");
-        List<User> users = userRepository.findAll();
-        return users.stream()
-                .map(cinemaMapper::toDTO)
-                .collect(Collectors.toList());
+    public CursorPage<UserDTO> getAllUsers(Long after, int size) {
+        log.debug("Fetching users after ID: {}, page size: {}", after, size);
+        int pageSize = CursorPage.boundedSize(size);
+        List<User> users = userRepository.findByIdGreaterThanOrderByIdAsc(
+                CursorPage.startAfter(after), Limit.of(pageSize + 1));
+        return CursorPage.of(users, pageSize, User::getId, cinemaMapper::toDTO);
     }
 
     @Override
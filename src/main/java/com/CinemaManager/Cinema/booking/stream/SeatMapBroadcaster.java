@@ -0,0 +1,394 @@
+package com.CinemaManager.Cinema.booking.stream;
+
+import com.CinemaManager.Cinema.booking.dto.SeatBitmapDTO;
+import com.CinemaManager.Cinema.booking.dto.SeatDeltaDTO;
+import com.CinemaManager.Cinema.booking.inventory.SeatInventory;
+import com.CinemaManager.Cinema.booking.inventory.SessionSeatBitmap;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Поток изменений карты мест по SSE: при подписке клиент получает снимок (событие snapshot),
+// дальше - только дельты (событие delta) с занятыми и освобожденными местами.
+// На сеанс один канал: изменения карты сливаются, разница считается один раз и сериализуется один раз
+// для всех подписчиков. У каждого клиента ограниченный буфер; переполненный буфер сбрасывается,
+// и вместо пропущенных дельт клиент получает свежий снимок. Запись в ответ блокирующая, поэтому
+// клиент, чья отправка не уложилась в send-timeout, отключается и не держит поток отправки.
+@Component
+@Slf4j
+public class SeatMapBroadcaster {
+
+    private final ObjectMapper objectMapper;
+    private final long timeoutMillis;
+    private final int clientBufferSize;
+    private final long sendTimeoutNanos;
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    public SeatMapBroadcaster(SeatInventory seatInventory,
+                              ObjectMapper objectMapper,
+                              @Value("${cinema.booking.seat-stream.timeout:30m}") Duration timeout,
+                              @Value("${cinema.booking.seat-stream.client-buffer:64}") int clientBufferSize,
+                              @Value("${cinema.booking.seat-stream.sender-threads:4}") int senderThreads,
+                              @Value("${cinema.booking.seat-stream.send-timeout:5s}") Duration sendTimeout) {
+        if (clientBufferSize <= 0) {
+            throw new IllegalArgumentException("Seat stream client buffer must be positive");
+        }
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeout.toMillis();
+        this.clientBufferSize = clientBufferSize;
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "seat-stream-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        seatInventory.addChangeListener(this::onBitmapChanged);
+        seatInventory.addEvictListener(this::onBitmapEvicted);
+    }
+
+    // Подписывает клиента на изменения карты мест сеанса. Первым событием уходит снимок.
+    public SseEmitter subscribe(Long sessionId, Supplier<SessionSeatBitmap> bitmapLoader) {
+        // Загрузка карты может идти в базу - выполняем ее до блокировки ячейки в compute
+        SessionSeatBitmap bitmap = bitmapLoader.get();
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        Channel channel = channels.compute(sessionId, (id, existing) -> {
+            Channel target = existing != null ? existing : new Channel(id, bitmap, bitmapLoader);
+            target.subscribers.add(subscriber);
+            return target;
+        });
+        subscriber.channel = channel;
+        emitter.onCompletion(() -> channel.subscribers.remove(subscriber));
+        emitter.onTimeout(() -> channel.subscribers.remove(subscriber));
+        emitter.onError(error -> channel.subscribers.remove(subscriber));
+        subscriber.schedule();
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return channels.values().stream().mapToInt(channel -> channel.subscribers.size()).sum();
+    }
+
+    // Комментарий-пинг держит соединение за прокси и выявляет отвалившихся клиентов.
+    // Заодно убираем каналы без подписчиков.
+    @Scheduled(fixedDelayString = "${cinema.booking.seat-stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Channel channel : channels.values()) {
+            channels.computeIfPresent(channel.sessionId, (id, existing) ->
+                    existing.subscribers.isEmpty() ? null : existing);
+            channel.subscribers.forEach(subscriber -> subscriber.offer(StreamEvent.HEARTBEAT));
+        }
+    }
+
+    // Отправка, висящая дольше send-timeout, означает медленного или пропавшего клиента
+    @Scheduled(fixedDelayString = "${cinema.booking.seat-stream.send-check-ms:1000}")
+    public void dropStalledSubscribers() {
+        long now = System.nanoTime();
+        for (Channel channel : channels.values()) {
+            for (Subscriber subscriber : channel.subscribers) {
+                if (subscriber.isStalled(now)) {
+                    subscriber.drop();
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        channels.values().forEach(channel -> channel.subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        channels.clear();
+    }
+
+    // Вызывается из потока, изменившего карту: только отмечаем канал и планируем рассылку
+    private void onBitmapChanged(SessionSeatBitmap bitmap) {
+        Channel channel = channels.get(bitmap.getSessionId());
+        if (channel != null) {
+            channel.changed(bitmap);
+        }
+    }
+
+    // Карта выброшена из памяти (например, после конфликта с другим узлом) - канал перечитывает ее,
+    // иначе новые подписчики получали бы устаревший снимок до следующего изменения
+    private void onBitmapEvicted(Long sessionId) {
+        Channel channel = channels.get(sessionId);
+        if (channel == null) {
+            return;
+        }
+        if (channel.subscribers.isEmpty()) {
+            // Слушать некому - следующий подписчик создаст канал по свежей карте
+            channels.remove(sessionId, channel);
+        } else {
+            channel.reload();
+        }
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize seat stream event", e);
+        }
+    }
+
+    // Опубликованное состояние канала: от него считаются дельты и строятся снимки для пересинхронизации
+    private final class State {
+        private final long sequence;
+        private final SessionSeatBitmap bitmap;
+        private final long version;
+        private final long[] words;
+        private volatile StreamEvent snapshotEvent;
+
+        private State(long sequence, SessionSeatBitmap bitmap, long version, long[] words) {
+            this.sequence = sequence;
+            this.bitmap = bitmap;
+            this.version = version;
+            this.words = words;
+        }
+
+        private StreamEvent snapshotEvent() {
+            StreamEvent event = snapshotEvent;
+            if (event == null) {
+                int occupiedCount = 0;
+                for (long word : words) {
+                    occupiedCount += Long.bitCount(word);
+                }
+                SeatBitmapDTO payload = SeatBitmapDTO.builder()
+                        .sessionId(bitmap.getSessionId())
+                        .totalRows(bitmap.getTotalRows())
+                        .seatsPerRow(bitmap.getSeatsPerRow())
+                        .occupiedCount(occupiedCount)
+                        .version("\"" + bitmap.getGeneration() + "-" + version + "\"")
+                        .occupancy(SessionSeatBitmap.toByteArray(words, bitmap.capacity()))
+                        .build();
+                event = new StreamEvent(sequence, "snapshot", toJson(payload));
+                snapshotEvent = event;
+            }
+            return event;
+        }
+    }
+
+    private final class Channel {
+        private final Long sessionId;
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean publishScheduled = new AtomicBoolean();
+        private final Supplier<SessionSeatBitmap> bitmapLoader;
+        private volatile SessionSeatBitmap source;
+        private volatile State state;
+
+        private Channel(Long sessionId, SessionSeatBitmap bitmap, Supplier<SessionSeatBitmap> bitmapLoader) {
+            this.sessionId = sessionId;
+            this.bitmapLoader = bitmapLoader;
+            this.source = bitmap;
+            // Версию читаем до снимка, как и для ETag
+            long version = bitmap.version();
+            this.state = new State(1, bitmap, version, bitmap.snapshot());
+        }
+
+        private void changed(SessionSeatBitmap bitmap) {
+            source = bitmap;
+            if (publishScheduled.compareAndSet(false, true)) {
+                executor.execute(this::publish);
+            }
+        }
+
+        // Загрузка идет в базу - не в потоке, выбросившем карту
+        private void reload() {
+            executor.execute(() -> {
+                try {
+                    changed(bitmapLoader.get());
+                } catch (RuntimeException e) {
+                    log.warn("Failed to reload seat map for stream of session ID: {}: {}", sessionId, e.getMessage());
+                }
+            });
+        }
+
+        // Один публикатор на канал: частые изменения сливаются в одну дельту
+        private synchronized void publish() {
+            publishScheduled.set(false);
+            SessionSeatBitmap bitmap = source;
+            State previous = state;
+            long version = bitmap.version();
+            long[] words = bitmap.snapshot();
+            State next = new State(previous.sequence + 1, bitmap, version, words);
+
+            StreamEvent event;
+            if (bitmap != previous.bitmap) {
+                // Карта перезагружена из базы - рассылаем полный снимок
+                event = next.snapshotEvent();
+            } else {
+                List<Integer> occupied = new ArrayList<>();
+                List<Integer> freed = new ArrayList<>();
+                for (int i = 0; i < words.length; i++) {
+                    collectBits(words[i] & ~previous.words[i], i, occupied);
+                    collectBits(previous.words[i] & ~words[i], i, freed);
+                }
+                if (occupied.isEmpty() && freed.isEmpty()) {
+                    return;
+                }
+                SeatDeltaDTO payload = SeatDeltaDTO.builder()
+                        .sessionId(sessionId)
+                        .sequence(next.sequence)
+                        .occupied(occupied)
+                        .freed(freed)
+                        .build();
+                event = new StreamEvent(next.sequence, "delta", toJson(payload));
+            }
+            state = next;
+            subscribers.forEach(subscriber -> subscriber.offer(event));
+        }
+
+        private void collectBits(long bits, int wordIndex, List<Integer> target) {
+            while (bits != 0) {
+                target.add((wordIndex << 6) + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<StreamEvent> queue = new ArrayBlockingQueue<>(clientBufferSize);
+        private final AtomicBoolean sending = new AtomicBoolean();
+        // Поток, занятый записью в ответ, и начало записи (0 - запись не идет); меняются под sendLock
+        private final Object sendLock = new Object();
+        private Thread sender;
+        private volatile long sendStartedAt;
+        private volatile boolean dropped;
+        // Новый клиент начинает со снимка
+        private volatile boolean resyncNeeded = true;
+        private volatile Channel channel;
+        private long lastSequence;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void offer(StreamEvent event) {
+            if (!queue.offer(event)) {
+                // Клиент не успевает: пропущенные дельты заменит снимок текущего состояния
+                synchronized (this) {
+                    queue.clear();
+                    resyncNeeded = true;
+                }
+            }
+            schedule();
+        }
+
+        // Сброс буфера проверяется под той же блокировкой, что и сам сброс:
+        // дельту, пришедшую после пропуска, нельзя отправить раньше снимка
+        private synchronized StreamEvent next() {
+            if (resyncNeeded) {
+                resyncNeeded = false;
+                State state = channel.state;
+                // Если сброшены были только пинги, клиент уже в актуальном состоянии
+                if (state.sequence > lastSequence) {
+                    return state.snapshotEvent();
+                }
+            }
+            return queue.poll();
+        }
+
+        private void schedule() {
+            if (sending.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                StreamEvent event;
+                while (!dropped && (event = next()) != null) {
+                    // Дельты, уже вошедшие в отправленный снимок, пропускаем
+                    if (event.sequence() == 0 || event.sequence() > lastSequence) {
+                        send(event);
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Seat stream subscriber disconnected: {}", e.getMessage());
+                channel.subscribers.remove(this);
+                queue.clear();
+                return;
+            } finally {
+                // Прерывание могло предназначаться сброшенной отправке - следующему клиенту оно не нужно
+                Thread.interrupted();
+                sending.set(false);
+            }
+            if (!dropped && (resyncNeeded || !queue.isEmpty())) {
+                schedule();
+            }
+        }
+
+        private void send(StreamEvent event) throws IOException {
+            synchronized (sendLock) {
+                sender = Thread.currentThread();
+                sendStartedAt = System.nanoTime();
+            }
+            try {
+                if (event == StreamEvent.HEARTBEAT) {
+                    emitter.send(SseEmitter.event().comment("ping"));
+                    return;
+                }
+                emitter.send(SseEmitter.event()
+                        .id(String.valueOf(event.sequence()))
+                        .name(event.name())
+                        .data(event.json(), MediaType.APPLICATION_JSON));
+                lastSequence = event.sequence();
+            } finally {
+                synchronized (sendLock) {
+                    sender = null;
+                    sendStartedAt = 0;
+                }
+            }
+        }
+
+        private boolean isStalled(long now) {
+            long startedAt = sendStartedAt;
+            return startedAt != 0 && now - startedAt > sendTimeoutNanos;
+        }
+
+        // Закрытие ответа обрывает зависшую запись, прерывание будит поток, если запись ждет сокет
+        private void drop() {
+            if (dropped) {
+                return;
+            }
+            dropped = true;
+            channel.subscribers.remove(this);
+            queue.clear();
+            log.debug("Seat stream subscriber dropped: send exceeded {} ms", sendTimeoutNanos / 1_000_000);
+            synchronized (sendLock) {
+                if (sender != null) {
+                    sender.interrupt();
+                }
+            }
+            try {
+                emitter.completeWithError(new IOException("Seat stream send timed out"));
+            } catch (RuntimeException e) {
+                log.debug("Failed to close stalled seat stream: {}", e.getMessage());
+            }
+        }
+    }
+
+    private record StreamEvent(long sequence, String name, String json) {
+        private static final StreamEvent HEARTBEAT = new StreamEvent(0, null, null);
+    }
+}
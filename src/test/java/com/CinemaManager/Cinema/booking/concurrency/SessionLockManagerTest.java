@@ -0,0 +1,89 @@
+package com.CinemaManager.Cinema.booking.concurrency;
+
+import com.CinemaManager.Cinema.booking.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionLockManagerTest {
+
+    private final SessionLockManager lockManager = new SessionLockManager(64, 100);
+
+    @Test
+    void lockForTransaction_WithoutTransaction_ShouldFail() {
+        assertThrows(IllegalStateException.class, () -> lockManager.lockForTransaction(1L));
+    }
+
+    @Test
+    void lockForTransaction_SameSessionHeldElsewhere_ShouldTimeOut() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() ->
+                inTransaction(() -> {
+                    lockManager.lockForTransaction(1L);
+                    locked.countDown();
+                    await(release);
+                }));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        assertThrows(BusinessException.class, () -> inTransaction(() -> lockManager.lockForTransaction(1L)));
+        assertEquals(1, lockManager.getTimeouts());
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        inTransaction(() -> lockManager.lockForTransaction(1L));
+        assertEquals(2, lockManager.getAcquisitions());
+    }
+
+    @Test
+    void lockForTransaction_DifferentStripes_ShouldNotBlockEachOther() throws Exception {
+        long other = 2L;
+        while (lockManager.stripeIndex(other) == lockManager.stripeIndex(1L)) {
+            other++;
+        }
+        long otherSession = other;
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() ->
+                inTransaction(() -> {
+                    lockManager.lockForTransaction(1L);
+                    locked.countDown();
+                    await(release);
+                }));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        assertDoesNotThrow(() -> inTransaction(() -> lockManager.lockForTransaction(otherSession)));
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        assertEquals(0, lockManager.getTimeouts());
+    }
+
+    // Имитация границы транзакции: блокировка снимается в afterCompletion
+    private static void inTransaction(Runnable body) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            body.run();
+        } finally {
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
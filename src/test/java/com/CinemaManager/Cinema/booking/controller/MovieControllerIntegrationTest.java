@@ -1,5 +1,6 @@
 package com.CinemaManager.Cinema.booking.controller;
 
+import com.CinemaManager.Cinema.booking.dto.CursorPage;
 import com.CinemaManager.Cinema.booking.dto.MovieDTO;
 import com.CinemaManager.Cinema.booking.service.MovieService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -53,15 +54,16 @@ class MovieControllerTest {
 
         List<MovieDTO> movies = Arrays.asList(movie1, movie2);
 
-        when(movieService.getAllMovies()).thenReturn(movies);
+        when(movieService.getAllMovies(null, 50)).thenReturn(new CursorPage<>(movies, null, false));
 
         // Act & Assert
         mockMvc.perform(get("/api/movies"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.data.length()").value(2))
-                .andExpect(jsonPath("$.data[0].title").value("The Matrix"))
-                .andExpect(jsonPath("$.data[1].title").value("Inception"));
+                .andExpect(jsonPath("$.data.items.length()").value(2))
+                .andExpect(jsonPath("$.data.items[0].title").value("The Matrix"))
+                .andExpect(jsonPath("$.data.items[1].title").value("Inception"))
+                .andExpect(jsonPath("$.data.hasMore").value(false));
     }
 
     @Test
@@ -2,21 +2,27 @@ package com.CinemaManager.Cinema.booking.controller;
 
 import com.CinemaManager.Cinema.booking.dto.SessionDTO;
 import com.CinemaManager.Cinema.booking.entity.*;
+import com.CinemaManager.Cinema.booking.inventory.SeatInventory;
 import com.CinemaManager.Cinema.booking.repository.*;
+import com.CinemaManager.Cinema.booking.support.QueryBudget;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -26,6 +32,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @ActiveProfiles("test")
 class SessionControllerIntegrationTest {
 
+    @RegisterExtension
+    static QueryBudget queryBudget = new QueryBudget();
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -44,6 +53,9 @@ class SessionControllerIntegrationTest {
     @Autowired
     private SeatRepository seatRepository;
 
+    @Autowired
+    private SeatInventory seatInventory;
+
     private Movie testMovie;
     private Hall testHall;
     private Session testSession;
@@ -106,8 +118,34 @@ class SessionControllerIntegrationTest {
         mockMvc.perform(get("/api/sessions"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.data").isArray())
-                .andExpect(jsonPath("$.data.length()").value(1));
+                .andExpect(jsonPath("$.data.items").isArray())
+                .andExpect(jsonPath("$.data.items.length()").value(1))
+                .andExpect(jsonPath("$.data.hasMore").value(false));
+    }
+
+    @Test
+    void getAllSessions_WithCursor_ShouldPageById() throws Exception {
+        Session second = sessionRepository.save(Session.builder()
+                .startTime(testSession.getStartTime().plusHours(4))
+                .price(400.0)
+                .movie(testMovie)
+                .hall(testHall)
+                .build());
+
+        mockMvc.perform(get("/api/sessions").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items.length()").value(1))
+                .andExpect(jsonPath("$.data.items[0].id").value(testSession.getId()))
+                .andExpect(jsonPath("$.data.hasMore").value(true))
+                .andExpect(jsonPath("$.data.nextCursor").value(testSession.getId()));
+
+        mockMvc.perform(get("/api/sessions")
+                        .param("after", testSession.getId().toString())
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items.length()").value(1))
+                .andExpect(jsonPath("$.data.items[0].id").value(second.getId()))
+                .andExpect(jsonPath("$.data.hasMore").value(false));
     }
 
     @Test
@@ -134,6 +172,54 @@ class SessionControllerIntegrationTest {
                 .andExpect(jsonPath("$.data.seats.length()").value(150)); // 10 * 15
     }
 
+    @Test
+    void getSeatBitmap_ShouldReturnPackedOccupancyAndHonourETag() throws Exception {
+        String etag = mockMvc.perform(get("/api/sessions/{id}/seats/bitmap", testSession.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.data.totalRows").value(10))
+                .andExpect(jsonPath("$.data.seatsPerRow").value(15))
+                .andExpect(jsonPath("$.data.occupiedCount").value(0))
+                .andExpect(jsonPath("$.data.occupancy").value("AAAAAAAAAAAAAAAAAAAAAAAAAA=="))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/sessions/{id}/seats/bitmap", testSession.getId())
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(get("/api/sessions/{id}/seats/bitmap", testSession.getId())
+                        .accept(MediaType.APPLICATION_OCTET_STREAM))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Seats-Per-Row", "15"))
+                .andExpect(content().bytes(new byte[19])); // 150 мест = 19 байт
+    }
+
+    @Test
+    void streamSeatChanges_ShouldSendSnapshotThenDeltas() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/api/sessions/{id}/seats/stream", testSession.getId())
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+        awaitContent(response, "event:snapshot");
+
+        // Ряд 2, место 3 -> индекс 17
+        int[] held = seatInventory.tryHold(testSession, new int[]{17});
+        assertNotNull(held);
+        awaitContent(response, "\"occupied\":[17]");
+
+        seatInventory.release(testSession.getId(), held);
+        awaitContent(response, "\"freed\":[17]");
+    }
+
+    private static void awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!response.getContentAsString().contains(expected)) {
+            assertTrue(System.currentTimeMillis() < deadline,
+                    "Expected stream to contain " + expected + " but was: " + response.getContentAsString());
+            Thread.sleep(20);
+        }
+    }
+
     @Test
     void createSession_ValidData_ShouldReturnCreatedSession() throws Exception {
         SessionDTO sessionDTO = SessionDTO.builder()
@@ -161,8 +247,13 @@ class SessionControllerIntegrationTest {
         mockMvc.perform(get("/api/sessions/by-movie/{movieId}", testMovie.getId()))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.data").isArray())
-                .andExpect(jsonPath("$.data.length()").value(1));
+                .andExpect(jsonPath("$.data.items").isArray())
+                .andExpect(jsonPath("$.data.items.length()").value(1))
+                .andExpect(jsonPath("$.data.items[0].movieId").value(testMovie.getId()))
+                .andExpect(jsonPath("$.data.items[0].movieTitle").value("Тестовый фильм"))
+                .andExpect(jsonPath("$.data.items[0].hallName").value("Красный зал"))
+                .andExpect(jsonPath("$.data.items[0].availableSeats").value(testHall.getTotalRows() * testHall.getSeatsPerRow()))
+                .andExpect(jsonPath("$.data.hasMore").value(false));
     }
 
     @Test
@@ -179,6 +270,135 @@ class SessionControllerIntegrationTest {
         mockMvc.perform(get("/api/sessions/available"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.data").isArray());
+                .andExpect(jsonPath("$.data.items").isArray());
+
+        // Страница по курсору: после последнего сеанса ничего не остается
+        mockMvc.perform(get("/api/sessions/available")
+                        .param("after", testSession.getId().toString())
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items.length()").value(0))
+                .andExpect(jsonPath("$.data.hasMore").value(false));
+    }
+
+    @Test
+    void getAvailability_ByIdsAndByDate_ShouldReturnCountsForAllSessions() throws Exception {
+        Session laterSession = sessionRepository.save(Session.builder()
+                .startTime(testSession.getStartTime().plusHours(3))
+                .price(350.0)
+                .movie(testMovie)
+                .hall(testHall)
+                .build());
+        sessionRepository.adjustOccupancy(laterSession.getId(), 10, 5);
+
+        mockMvc.perform(get("/api/sessions/availability")
+                        .param("ids", testSession.getId() + "," + laterSession.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(2))
+                .andExpect(jsonPath("$.data[0].sessionId").value(testSession.getId()))
+                .andExpect(jsonPath("$.data[0].availableSeats").value(150))
+                .andExpect(jsonPath("$.data[1].totalSeats").value(150))
+                .andExpect(jsonPath("$.data[1].availableSeats").value(135));
+
+        mockMvc.perform(get("/api/sessions/availability")
+                        .param("date", testSession.getStartTime().toLocalDate().toString())
+                        .param("movieId", testMovie.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].sessionId").value(testSession.getId()));
+
+        mockMvc.perform(get("/api/sessions/availability"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getAvailability_WithEmptyIdsAndOverbookedSession_ShouldSkipNullsAndClampAtZero() throws Exception {
+        // Счетчики превышают вместимость - например, зал уменьшили после продаж
+        sessionRepository.adjustOccupancy(testSession.getId(), 140, 20);
+
+        mockMvc.perform(get("/api/sessions/availability")
+                        .param("ids", testSession.getId() + ",," + testSession.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(1))
+                .andExpect(jsonPath("$.data[0].availableSeats").value(0));
+    }
+
+    @Test
+    void scheduleSessions_ShouldCreateValidRowsAndReportConflicts() throws Exception {
+        LocalDateTime base = testSession.getStartTime().plusDays(1);
+        List<SessionDTO> programme = List.of(
+                programmeRow(base.plusHours(3)),
+                programmeRow(base),
+                // Пересекается со строкой 1 (фильм идет 2 часа)
+                programmeRow(base.plusHours(1)),
+                // Пересекается с существующим сеансом
+                programmeRow(testSession.getStartTime().plusMinutes(30)),
+                SessionDTO.builder().startTime(base).price(300.0).movieId(-1L).hallId(testHall.getId()).build());
+
+        mockMvc.perform(post("/api/sessions/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(programme)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.created").value(2))
+                .andExpect(jsonPath("$.data.rejected").value(3))
+                .andExpect(jsonPath("$.data.rows[0].success").value(true))
+                .andExpect(jsonPath("$.data.rows[1].session.id").isNumber())
+                .andExpect(jsonPath("$.data.rows[2].error").value("Overlaps programme row 1"))
+                .andExpect(jsonPath("$.data.rows[3].error").value("Hall is already booked for this time period"))
+                .andExpect(jsonPath("$.data.rows[4].error").value("Movie not found with id: -1"));
+    }
+
+    @Test
+    void scheduleSessions_WithNullRow_ShouldRejectOnlyThatRow() throws Exception {
+        String row = objectMapper.writeValueAsString(programmeRow(testSession.getStartTime().plusDays(1)));
+
+        mockMvc.perform(post("/api/sessions/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[null," + row + "]"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.created").value(1))
+                .andExpect(jsonPath("$.data.rows[0].error").value("Programme row is empty"))
+                .andExpect(jsonPath("$.data.rows[1].success").value(true));
+    }
+
+    @Test
+    void scheduleSessions_TooLargeBody_ShouldBeRejectedBeforeParsing() throws Exception {
+        mockMvc.perform(post("/api/sessions/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + " ".repeat(3 * 1024 * 1024) + "]"))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
+    private SessionDTO programmeRow(LocalDateTime startTime) {
+        return SessionDTO.builder()
+                .startTime(startTime)
+                .price(300.0)
+                .movieId(testMovie.getId())
+                .hallId(testHall.getId())
+                .build();
+    }
+
+    @Test
+    void sessionReadEndpoints_ShouldStayWithinQueryBudget() throws Exception {
+        Long sessionId = testSession.getId();
+        String date = testSession.getStartTime().toLocalDate().toString();
+
+        queryBudget.expect("GET /api/sessions", 1, 1, () ->
+                mockMvc.perform(get("/api/sessions"))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.data.items.length()").value(1)));
+        queryBudget.expect("GET /api/sessions/{id}", 1, 1, () ->
+                mockMvc.perform(get("/api/sessions/{id}", sessionId))
+                        .andExpect(status().isOk()));
+        queryBudget.expect("GET /api/sessions/by-movie/{movieId}", 1, 1, () ->
+                mockMvc.perform(get("/api/sessions/by-movie/{movieId}", testMovie.getId()))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.data.items.length()").value(1)));
+        queryBudget.expect("GET /api/sessions/by-date", 1, 1, () ->
+                mockMvc.perform(get("/api/sessions/by-date").param("date", date))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.data.length()").value(1)));
+        queryBudget.expect("GET /api/sessions/availability?ids", 1, 1, () ->
+                mockMvc.perform(get("/api/sessions/availability").param("ids", sessionId.toString()))
+                        .andExpect(status().isOk()));
     }
-}
\ No newline at end of file
+}
@@ -1,23 +1,39 @@
 package com.CinemaManager.Cinema.booking.controller;
 
+import com.CinemaManager.Cinema.booking.dto.BestAvailablePurchaseDTO;
 import com.CinemaManager.Cinema.booking.dto.PurchaseTicketDTO;
+import com.CinemaManager.Cinema.booking.dto.SeatHoldRequestDTO;
 import com.CinemaManager.Cinema.booking.entity.*;
+import com.CinemaManager.Cinema.booking.export.TicketExportFormat;
+import com.CinemaManager.Cinema.booking.export.TicketExporter;
 import com.CinemaManager.Cinema.booking.repository.*;
+import com.CinemaManager.Cinema.booking.support.QueryBudget;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -27,6 +43,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @ActiveProfiles("test")
 class TicketControllerIntegrationTest {
 
+    @RegisterExtension
+    static QueryBudget queryBudget = new QueryBudget();
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -51,6 +70,12 @@ class TicketControllerIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TicketExporter ticketExporter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private User testUser;
     private Session testSession;
     private List<Seat> availableSeats;
@@ -142,6 +167,242 @@ class TicketControllerIntegrationTest {
 
 
 
+    @Test
+    void purchaseTickets_SeatAlreadySold_ShouldReturnBadRequest() throws Exception {
+        PurchaseTicketDTO purchaseDTO = PurchaseTicketDTO.builder()
+                .sessionId(testSession.getId())
+                .userId(testUser.getId())
+                .seatIds(List.of(availableSeats.get(0).getId()))
+                .build();
+
+        mockMvc.perform(post("/api/tickets/purchase")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(purchaseDTO)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/api/tickets/purchase")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(purchaseDTO)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Some seats are already occupied"));
+    }
+
+    @Test
+    void purchaseBestAvailable_EmptyHall_ShouldSellCenteredBlock() throws Exception {
+        BestAvailablePurchaseDTO purchaseDTO = BestAvailablePurchaseDTO.builder()
+                .sessionId(testSession.getId())
+                .userId(testUser.getId())
+                .quantity(3)
+                .build();
+
+        mockMvc.perform(post("/api/tickets/purchase/best-available")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(purchaseDTO)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.purchasedTickets.length()").value(3))
+                .andExpect(jsonPath("$.data.purchasedTickets[0].rowNumber").value(3))
+                .andExpect(jsonPath("$.data.purchasedTickets[0].seatNumber").value(2))
+                .andExpect(jsonPath("$.data.purchasedTickets[2].seatNumber").value(4));
+    }
+
+    @Test
+    void purchaseBestAvailable_GroupLargerThanRow_ShouldReturnBadRequest() throws Exception {
+        BestAvailablePurchaseDTO purchaseDTO = BestAvailablePurchaseDTO.builder()
+                .sessionId(testSession.getId())
+                .userId(testUser.getId())
+                .quantity(6)
+                .build();
+
+        mockMvc.perform(post("/api/tickets/purchase/best-available")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(purchaseDTO)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("No 6 adjacent seats available"));
+    }
+
+    @Test
+    void purchaseBestAvailable_WithoutUser_ShouldReturnBadRequest() throws Exception {
+        BestAvailablePurchaseDTO purchaseDTO = BestAvailablePurchaseDTO.builder()
+                .sessionId(testSession.getId())
+                .quantity(2)
+                .build();
+
+        mockMvc.perform(post("/api/tickets/purchase/best-available")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(purchaseDTO)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void holdSeats_ThenPurchaseWithHold_ShouldBlockOthersAndSell() throws Exception {
+        Long seatId = availableSeats.get(0).getId();
+        SeatHoldRequestDTO holdDTO = SeatHoldRequestDTO.builder()
+                .sessionId(testSession.getId())
+                .userId(testUser.getId())
+                .seatIds(List.of(seatId))
+                .build();
+
+        String holdResponse = mockMvc.perform(post("/api/tickets/holds")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(holdDTO)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.holdId").isNotEmpty())
+                .andReturn().getResponse().getContentAsString();
+        String holdId = objectMapper.readTree(holdResponse).at("/data/holdId").asText();
+
+        mockMvc.perform(get("/api/sessions/{id}/seats", testSession.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.seats[?(@.seatId == " + seatId + ")].status").value("HELD"));
+
+        PurchaseTicketDTO withoutHold = PurchaseTicketDTO.builder()
+                .sessionId(testSession.getId())
+                .userId(testUser.getId())
+                .seatIds(List.of(seatId))
+                .build();
+        mockMvc.perform(post("/api/tickets/purchase")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(withoutHold)))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/api/tickets/holds/{holdId}/heartbeat", holdId)
+                        .param("userId", testUser.getId().toString()))
+                .andExpect(status().isOk());
+
+        withoutHold.setHoldId(holdId);
+        mockMvc.perform(post("/api/tickets/purchase")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(withoutHold)))
+                .andExpect(status().isCreated());
+
+        // Удержание превратилось в билет и больше не существует
+        mockMvc.perform(post("/api/tickets/holds/{holdId}/heartbeat", holdId)
+                        .param("userId", testUser.getId().toString()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void purchaseWithHold_ForeignHoldId_ShouldBeRejected() throws Exception {
+        Long seatId = availableSeats.get(0).getId();
+        SeatHoldRequestDTO holdDTO = SeatHoldRequestDTO.builder()
+                .sessionId(testSession.getId())
+                .userId(testUser.getId())
+                .seatIds(List.of(seatId))
+                .build();
+        String holdResponse = mockMvc.perform(post("/api/tickets/holds")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(holdDTO)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        String holdId = objectMapper.readTree(holdResponse).at("/data/holdId").asText();
+
+        User otherUser = userRepository.save(User.builder()
+                .firstName("Другой")
+                .lastName("Пользователь")
+                .email("other@example.com")
+                .password("password123")
+                .phone("+79123456780")
+                .role(User.Role.ROLE_USER)
+                .build());
+        PurchaseTicketDTO foreignPurchase = PurchaseTicketDTO.builder()
+                .sessionId(testSession.getId())
+                .userId(otherUser.getId())
+                .seatIds(List.of(seatId))
+                .holdId(holdId)
+                .build();
+
+        mockMvc.perform(post("/api/tickets/purchase")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(foreignPurchase)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Seat hold " + holdId + " belongs to another user"));
+
+        // Чужой пользователь не может ни продлить, ни снять удержание
+        mockMvc.perform(post("/api/tickets/holds/{holdId}/heartbeat", holdId)
+                        .param("userId", otherUser.getId().toString()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Seat hold " + holdId + " belongs to another user"));
+        mockMvc.perform(delete("/api/tickets/holds/{holdId}", holdId)
+                        .param("userId", otherUser.getId().toString()))
+                .andExpect(status().isBadRequest());
+
+        // Удержание владельца не пострадало
+        mockMvc.perform(post("/api/tickets/holds/{holdId}/heartbeat", holdId)
+                        .param("userId", testUser.getId().toString()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void purchaseTickets_RetryWithSameIdempotencyKey_ShouldReplayOriginalResponse() throws Exception {
+        PurchaseTicketDTO purchaseDTO = PurchaseTicketDTO.builder()
+                .sessionId(testSession.getId())
+                .userId(testUser.getId())
+                .seatIds(List.of(availableSeats.get(0).getId()))
+                .build();
+        String body = objectMapper.writeValueAsString(purchaseDTO);
+
+        String original = mockMvc.perform(post("/api/tickets/purchase")
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(post("/api/tickets/purchase")
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(content().string(original));
+
+        assertEquals(1, ticketRepository.findBySessionId(testSession.getId()).size());
+    }
+
+    @Test
+    void purchaseTickets_SameIdempotencyKeyDifferentBody_ShouldReturnUnprocessableEntity() throws Exception {
+        PurchaseTicketDTO first = PurchaseTicketDTO.builder()
+                .sessionId(testSession.getId())
+                .userId(testUser.getId())
+                .seatIds(List.of(availableSeats.get(0).getId()))
+                .build();
+        PurchaseTicketDTO second = PurchaseTicketDTO.builder()
+                .sessionId(testSession.getId())
+                .userId(testUser.getId())
+                .seatIds(List.of(availableSeats.get(1).getId()))
+                .build();
+
+        mockMvc.perform(post("/api/tickets/purchase")
+                        .header("Idempotency-Key", "retry-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(first)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/api/tickets/purchase")
+                        .header("Idempotency-Key", "retry-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(second)))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void saveTicket_SecondActiveClaimOnSameSeat_ShouldBeRejectedByDatabase() {
+        Seat seat = availableSeats.get(0);
+        ticketRepository.saveAndFlush(Ticket.builder()
+                .session(testSession)
+                .seat(seat)
+                .user(testUser)
+                .status(Ticket.TicketStatus.SOLD)
+                .build());
+
+        assertThrows(DataIntegrityViolationException.class, () ->
+                ticketRepository.saveAndFlush(Ticket.builder()
+                        .session(testSession)
+                        .seat(seat)
+                        .user(testUser)
+                        .status(Ticket.TicketStatus.BOOKED)
+                        .build()));
+    }
+
     @Test
     void reserveTickets_ValidData_ShouldReturnReservedTickets() throws Exception {
         PurchaseTicketDTO purchaseDTO = PurchaseTicketDTO.builder()
@@ -176,8 +437,9 @@ class TicketControllerIntegrationTest {
         mockMvc.perform(get("/api/tickets/by-user/{userId}", testUser.getId()))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.data").isArray())
-                .andExpect(jsonPath("$.data.length()").value(1));
+                .andExpect(jsonPath("$.data.items").isArray())
+                .andExpect(jsonPath("$.data.items.length()").value(1))
+                .andExpect(jsonPath("$.data.hasMore").value(false));
     }
 
     @Test
@@ -197,7 +459,13 @@ class TicketControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.data").isArray())
-                .andExpect(jsonPath("$.data.length()").value(1));
+                .andExpect(jsonPath("$.data.length()").value(1))
+                .andExpect(jsonPath("$.data[0].sessionId").value(testSession.getId()))
+                .andExpect(jsonPath("$.data[0].seatId").value(availableSeats.get(0).getId()))
+                .andExpect(jsonPath("$.data[0].movieTitle").value("Тестовый фильм"))
+                .andExpect(jsonPath("$.data[0].hallName").value("Красный зал"))
+                .andExpect(jsonPath("$.data[0].price").value(300.0))
+                .andExpect(jsonPath("$.data[0].userName").value("Тест Пользователь"));
     }
 
     @Test
@@ -230,4 +498,187 @@ class TicketControllerIntegrationTest {
                 .andExpect(jsonPath("$.message").value("Билет подтвержден"))
                 .andExpect(jsonPath("$.data.status").value("SOLD"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void ticketTransitions_ShouldKeepSessionCountersInSync() throws Exception {
+        PurchaseTicketDTO reserveDTO = PurchaseTicketDTO.builder()
+                .sessionId(testSession.getId())
+                .userId(testUser.getId())
+                .seatIds(List.of(availableSeats.get(0).getId(), availableSeats.get(1).getId()))
+                .build();
+        String response = mockMvc.perform(post("/api/tickets/reserve")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(reserveDTO)))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String firstTicket = objectMapper.readTree(response).path("data").get(0).path("ticketNumber").asText();
+        String secondTicket = objectMapper.readTree(response).path("data").get(1).path("ticketNumber").asText();
+
+        PurchaseTicketDTO purchaseDTO = PurchaseTicketDTO.builder()
+                .sessionId(testSession.getId())
+                .userId(testUser.getId())
+                .seatIds(List.of(availableSeats.get(2).getId()))
+                .build();
+        mockMvc.perform(post("/api/tickets/purchase")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(purchaseDTO)))
+                .andExpect(status().isCreated());
+        assertEquals(22, sessionRepository.findAvailableSeatsCount(testSession.getId()));
+
+        // Подтверждение переносит место из брони в продажу, отмена освобождает его
+        mockMvc.perform(post("/api/tickets/{ticketNumber}/confirm", firstTicket))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/tickets/{ticketNumber}/cancel", secondTicket))
+                .andExpect(status().isOk());
+
+        assertEquals(23, sessionRepository.findAvailableSeatsCount(testSession.getId()));
+        assertEquals(List.of(), sessionRepository.findSessionIdsWithStaleOccupancy(LocalDateTime.now().minusDays(1)));
+    }
+
+    @Test
+    void exportTickets_SoldAsCsv_ShouldWriteHeaderAndMatchingRows() throws Exception {
+        PurchaseTicketDTO purchaseDTO = PurchaseTicketDTO.builder()
+                .sessionId(testSession.getId())
+                .userId(testUser.getId())
+                .seatIds(List.of(availableSeats.get(0).getId()))
+                .build();
+        mockMvc.perform(post("/api/tickets/purchase")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(purchaseDTO)))
+                .andExpect(status().isCreated());
+        PurchaseTicketDTO reserveDTO = PurchaseTicketDTO.builder()
+                .sessionId(testSession.getId())
+                .userId(testUser.getId())
+                .seatIds(List.of(availableSeats.get(1).getId()))
+                .build();
+        mockMvc.perform(post("/api/tickets/reserve")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(reserveDTO)))
+                .andExpect(status().isCreated());
+
+        // Выгрузку вызываем напрямую: в асинхронном потоке MockMvc не видны данные транзакции теста
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long exported = ticketExporter.export(LocalDate.now(), LocalDate.now(),
+                Ticket.TicketStatus.SOLD, TicketExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(1, exported);
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].endsWith("id,ticketNumber,status,createdAt,purchaseTime,sessionId,sessionTime,"
+                + "movieTitle,hallName,rowNumber,seatNumber,price,userId,userName"));
+        assertTrue(lines[1].contains(",SOLD,"));
+        assertTrue(lines[1].contains(",Тестовый фильм,Красный зал,"));
+        assertTrue(lines[1].contains(",300.0,"));
+        assertTrue(lines[1].endsWith(",Тест Пользователь"));
+    }
+
+    @Test
+    void exportTickets_Ndjson_ShouldWriteOneObjectPerLine() throws Exception {
+        PurchaseTicketDTO purchaseDTO = PurchaseTicketDTO.builder()
+                .sessionId(testSession.getId())
+                .userId(testUser.getId())
+                .seatIds(List.of(availableSeats.get(0).getId(), availableSeats.get(1).getId()))
+                .build();
+        mockMvc.perform(post("/api/tickets/purchase")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(purchaseDTO)))
+                .andExpect(status().isCreated());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ticketExporter.export(null, null, null, TicketExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertTrue(first.path("id").asLong() < second.path("id").asLong());
+        assertEquals("Тестовый фильм", first.path("movieTitle").asText());
+        assertEquals(testSession.getId(), first.path("sessionId").asLong());
+    }
+
+    @Test
+    void exportTickets_SoldReservation_ShouldBeExportedBySaleDate() throws Exception {
+        PurchaseTicketDTO reserveDTO = PurchaseTicketDTO.builder()
+                .sessionId(testSession.getId())
+                .userId(testUser.getId())
+                .seatIds(List.of(availableSeats.get(0).getId()))
+                .build();
+        String response = mockMvc.perform(post("/api/tickets/reserve")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(reserveDTO)))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String ticketNumber = objectMapper.readTree(response).path("data").get(0).path("ticketNumber").asText();
+        // Бронь сделана два дня назад, выкуплена сегодня
+        ticketRepository.flush();
+        jdbcTemplate.update("UPDATE tickets SET created_at = ? WHERE ticket_number = ?",
+                LocalDateTime.now().minusDays(2), ticketNumber);
+        mockMvc.perform(post("/api/tickets/{ticketNumber}/confirm", ticketNumber))
+                .andExpect(status().isOk());
+
+        LocalDate reservedOn = LocalDate.now().minusDays(2);
+        assertEquals(1, ticketExporter.export(LocalDate.now(), LocalDate.now(),
+                Ticket.TicketStatus.SOLD, TicketExportFormat.CSV, new ByteArrayOutputStream()));
+        assertEquals(0, ticketExporter.export(reservedOn, reservedOn,
+                Ticket.TicketStatus.SOLD, TicketExportFormat.CSV, new ByteArrayOutputStream()));
+        // Без фильтра по статусу интервал по-прежнему по дате создания
+        assertEquals(1, ticketExporter.export(reservedOn, reservedOn,
+                null, TicketExportFormat.CSV, new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void exportTickets_WithoutAdminRole_ShouldBeForbidden() throws Exception {
+        mockMvc.perform(get("/api/tickets/export").with(user("customer").roles("USER")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/tickets/export"))
+                .andExpect(status().is3xxRedirection());
+    }
+
+    @Test
+    void exportTickets_InvalidParameters_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/tickets/export").param("format", "xlsx")
+                        .with(user("admin").roles("ADMIN")))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/tickets/export")
+                        .param("from", "2030-01-02")
+                        .param("to", "2030-01-01")
+                        .with(user("admin").roles("ADMIN")))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void ticketListEndpoints_ShouldStayWithinQueryBudget() throws Exception {
+        PurchaseTicketDTO purchaseDTO = PurchaseTicketDTO.builder()
+                .sessionId(testSession.getId())
+                .userId(testUser.getId())
+                .seatIds(List.of(
+                        availableSeats.get(0).getId(),
+                        availableSeats.get(1).getId(),
+                        availableSeats.get(2).getId()))
+                .build();
+        mockMvc.perform(post("/api/tickets/purchase")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(purchaseDTO)))
+                .andExpect(status().isCreated());
+
+        // Один запрос на список, сколько бы билетов в нем ни было
+        queryBudget.expect("GET /api/tickets/by-session/{sessionId}", 1, 3, () ->
+                mockMvc.perform(get("/api/tickets/by-session/{sessionId}", testSession.getId()))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.data.length()").value(3)));
+        queryBudget.expect("GET /api/tickets/by-user/{userId}", 1, 3, () ->
+                mockMvc.perform(get("/api/tickets/by-user/{userId}", testUser.getId()))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.data.items.length()").value(3)));
+        // Страница из двух билетов читает size + 1 строк
+        queryBudget.expect("GET /api/tickets?size=2", 1, 3, () ->
+                mockMvc.perform(get("/api/tickets").param("size", "2"))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.data.items.length()").value(2))
+                        .andExpect(jsonPath("$.data.hasMore").value(true)));
+    }
+}
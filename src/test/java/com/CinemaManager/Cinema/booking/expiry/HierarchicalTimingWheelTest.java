@@ -0,0 +1,64 @@
+package com.CinemaManager.Cinema.booking.expiry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void advanceTo_ShouldFireOnlyDueItems() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 64, 0);
+        wheel.schedule("soon", 5_000);
+        wheel.schedule("later", 900_000);
+
+        assertTrue(wheel.advanceTo(4_999).isEmpty());
+        assertEquals(List.of("soon"), wheel.advanceTo(5_000));
+        assertEquals(1, wheel.size());
+        assertTrue(wheel.advanceTo(899_999).isEmpty());
+        assertEquals(List.of("later"), wheel.advanceTo(900_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void schedule_WhenDeadlinePassed_ShouldFireOnNextAdvance() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 64, 10_000);
+        wheel.schedule("overdue", 3_000);
+
+        assertEquals(List.of("overdue"), wheel.advanceTo(10_000));
+    }
+
+    @Test
+    void advanceTo_ShouldNeverFireEarlyOrLateAcrossLevels() {
+        long start = 123_000;
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(1000, 8, start);
+        Random random = new Random(42);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            // Сроки охватывают все уровни колеса и выходят за его диапазон
+            long deadline = start + 1 + (long) (random.nextDouble() * 6_000_000);
+            deadlines.add(deadline);
+            wheel.schedule(deadline, deadline);
+        }
+
+        int fired = 0;
+        for (long now = start; now <= start + 6_001_000; now += 1000) {
+            for (Long deadline : wheel.advanceTo(now)) {
+                assertTrue(deadline <= now, "Fired before deadline");
+                assertTrue(now - deadline < 1000, "Fired more than one tick late");
+                fired++;
+            }
+        }
+        assertEquals(deadlines.size(), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void constructor_WhenWheelSizeNotPowerOfTwo_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new HierarchicalTimingWheel<>(1000, 60, 0));
+    }
+}
@@ -0,0 +1,92 @@
+package com.CinemaManager.Cinema.booking.generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeTicketNumberGeneratorTest {
+
+    @Test
+    void nextTicketNumber_SameMillisecond_ShouldNeverCollide() {
+        long frozenNow = SnowflakeTicketNumberGenerator.EPOCH_MILLIS + 1_000;
+        SnowflakeTicketNumberGenerator generator = new SnowflakeTicketNumberGenerator(7, () -> frozenNow);
+
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        IntStream.range(0, 20_000).parallel()
+                .forEach(i -> numbers.add(generator.nextTicketNumber()));
+
+        // 20 000 номеров при остановленных часах - больше, чем 4096 на миллисекунду
+        assertEquals(20_000, numbers.size());
+    }
+
+    @Test
+    void nextId_ClockMovesBackwards_ShouldStayMonotonic() {
+        long[] now = {SnowflakeTicketNumberGenerator.EPOCH_MILLIS + 5_000};
+        SnowflakeTicketNumberGenerator generator = new SnowflakeTicketNumberGenerator(1, () -> now[0]);
+
+        long first = generator.nextId();
+        now[0] -= 2_000;
+        long second = generator.nextId();
+
+        assertTrue(second > first);
+    }
+
+    @Test
+    void nextTicketNumber_ShouldCarryNodeIdAndValidChecksum() {
+        SnowflakeTicketNumberGenerator generator = new SnowflakeTicketNumberGenerator(1023);
+
+        String number = generator.nextTicketNumber();
+
+        assertTrue(number.startsWith("TKT-"));
+        assertEquals(18, number.length());
+        assertTrue(generator.isWellFormed(number));
+    }
+
+    @Test
+    void isWellFormed_ShouldRejectCorruptedNumbers() {
+        SnowflakeTicketNumberGenerator generator = new SnowflakeTicketNumberGenerator(3);
+        String number = generator.nextTicketNumber();
+        char[] chars = number.toCharArray();
+        chars[10] = chars[10] == '0' ? '1' : '0';
+
+        assertFalse(generator.isWellFormed(new String(chars)));
+        assertFalse(generator.isWellFormed("TKT-"));
+        assertFalse(generator.isWellFormed("ABC-123"));
+        assertFalse(generator.isWellFormed(null));
+    }
+
+    @Test
+    void isWellFormed_ShouldDetectAdjacentTransposition() {
+        SnowflakeTicketNumberGenerator generator = new SnowflakeTicketNumberGenerator(5);
+
+        for (int n = 0; n < 500; n++) {
+            char[] chars = generator.nextTicketNumber().toCharArray();
+            for (int i = 4; i < chars.length - 1; i++) {
+                if (chars[i] == chars[i + 1]) {
+                    continue;
+                }
+                char[] swapped = chars.clone();
+                swapped[i] = chars[i + 1];
+                swapped[i + 1] = chars[i];
+                assertFalse(generator.isWellFormed(new String(swapped)));
+            }
+        }
+    }
+
+    @Test
+    void isWellFormed_ShouldAcceptLegacyNumbers() {
+        SnowflakeTicketNumberGenerator generator = new SnowflakeTicketNumberGenerator(0);
+
+        assertTrue(generator.isWellFormed("TKT-1700000000000-42"));
+    }
+
+    @Test
+    void constructor_InvalidNodeId_ShouldFail() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeTicketNumberGenerator(1024));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeTicketNumberGenerator(-1));
+    }
+}
@@ -0,0 +1,53 @@
+package com.CinemaManager.Cinema.booking.idempotency;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryIdempotencyStoreTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    @Test
+    void begin_ShouldTrackKeyLifecycle() {
+        InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(10, Duration.ofMinutes(1), now::get);
+        StoredResponse response = new StoredResponse(201, "application/json", "{}".getBytes());
+
+        assertEquals(IdempotencyClaim.Outcome.STARTED, store.begin("k", "a").outcome());
+        assertEquals(IdempotencyClaim.Outcome.IN_PROGRESS, store.begin("k", "a").outcome());
+        assertEquals(IdempotencyClaim.Outcome.MISMATCH, store.begin("k", "b").outcome());
+
+        store.complete("k", response);
+        IdempotencyClaim replay = store.begin("k", "a");
+        assertEquals(IdempotencyClaim.Outcome.REPLAY, replay.outcome());
+        assertSame(response, replay.response());
+    }
+
+    @Test
+    void abandon_ShouldAllowRetry() {
+        InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(10, Duration.ofMinutes(1), now::get);
+
+        store.begin("k", "a");
+        store.abandon("k");
+
+        assertEquals(IdempotencyClaim.Outcome.STARTED, store.begin("k", "a").outcome());
+    }
+
+    @Test
+    void begin_ShouldEvictExpiredAndEldestEntries() {
+        InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(2, Duration.ofSeconds(10), now::get);
+
+        store.begin("first", "a");
+        store.begin("second", "a");
+        store.begin("third", "a");
+        assertEquals(2, store.size());
+        assertEquals(IdempotencyClaim.Outcome.STARTED, store.begin("first", "a").outcome());
+
+        now.addAndGet(10_000);
+        store.begin("fourth", "a");
+        assertEquals(1, store.size());
+    }
+}
@@ -0,0 +1,69 @@
+package com.CinemaManager.Cinema.booking.inventory;
+
+import com.CinemaManager.Cinema.booking.inventory.BestAvailableSeatFinder.SeatBlock;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BestAvailableSeatFinderTest {
+
+    @Test
+    void find_EmptyHall_ShouldPickCenteredBlockInPreferredRow() {
+        SessionSeatBitmap bitmap = new SessionSeatBitmap(1L, 1L, 9, 20);
+
+        Optional<SeatBlock> block = BestAvailableSeatFinder.find(bitmap, 4);
+
+        assertEquals(Optional.of(new SeatBlock(6, 9, 4)), block);
+    }
+
+    @Test
+    void find_WhenPreferredRowCenterTaken_ShouldUseClosestFreeRun() {
+        SessionSeatBitmap bitmap = new SessionSeatBitmap(1L, 1L, 9, 20);
+        // В 6-м ряду заняты места 8..13, слева свободно 7 мест, справа - 7
+        for (int seat = 8; seat <= 13; seat++) {
+            assertTrue(bitmap.tryClaim(bitmap.indexOf(6, seat)));
+        }
+
+        SeatBlock block = BestAvailableSeatFinder.find(bitmap, 4).orElseThrow();
+
+        assertEquals(6, block.row());
+        assertTrue(block.firstSeat() == 4 || block.firstSeat() == 14);
+        for (int seat = block.firstSeat(); seat <= block.lastSeat(); seat++) {
+            assertFalse(bitmap.isOccupied(bitmap.indexOf(6, seat)));
+        }
+    }
+
+    @Test
+    void find_WhenPreferredRowFull_ShouldMoveToNeighbourRows() {
+        SessionSeatBitmap bitmap = new SessionSeatBitmap(1L, 1L, 9, 20);
+        for (int seat = 1; seat <= 20; seat++) {
+            bitmap.tryClaim(bitmap.indexOf(6, seat));
+            bitmap.tryClaim(bitmap.indexOf(7, seat));
+        }
+
+        assertEquals(5, BestAvailableSeatFinder.find(bitmap, 2).orElseThrow().row());
+    }
+
+    @Test
+    void find_RowsSpanningWords_ShouldNotCrossRowBoundary() {
+        // 3 ряда по 50 мест: ряды пересекают границы 64-битных слов
+        SessionSeatBitmap bitmap = new SessionSeatBitmap(1L, 1L, 3, 50);
+        for (int row = 1; row <= 3; row++) {
+            for (int seat = 1; seat <= 47; seat++) {
+                bitmap.tryClaim(bitmap.indexOf(row, seat));
+            }
+        }
+        // В каждом ряду свободны только 3 последних места
+        assertTrue(BestAvailableSeatFinder.find(bitmap, 4).isEmpty());
+        assertEquals(48, BestAvailableSeatFinder.find(bitmap, 3).orElseThrow().firstSeat());
+    }
+
+    @Test
+    void find_WhenGroupLargerThanRow_ShouldReturnEmpty() {
+        SessionSeatBitmap bitmap = new SessionSeatBitmap(1L, 1L, 5, 10);
+
+        assertTrue(BestAvailableSeatFinder.find(bitmap, 11).isEmpty());
+    }
+}
@@ -0,0 +1,57 @@
+package com.CinemaManager.Cinema.booking.inventory;
+
+import com.CinemaManager.Cinema.booking.entity.Seat;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HallLayoutTest {
+
+    @Test
+    void indexOf_ShouldMapSeatIdsToBitmapIndexesAndBack() {
+        HallLayout layout = HallLayout.of(1L, 3, 4, seats(3, 4, 1000L));
+
+        // Ряд 2, место 3: индекс (2 - 1) * 4 + (3 - 1) = 6, ID = 1000 + 6
+        assertEquals(6, layout.indexOf(1006L));
+        assertEquals(1006L, layout.seatIdAt(6));
+        assertEquals(2, layout.rowNumberOf(6));
+        assertEquals(3, layout.seatNumberOf(6));
+        assertEquals(12, layout.seatCount());
+    }
+
+    @Test
+    void indexesOf_WhenSeatNotInHall_ShouldReturnNull() {
+        HallLayout layout = HallLayout.of(1L, 2, 2, seats(2, 2, 1L));
+
+        assertArrayEquals(new int[]{3, 0}, layout.indexesOf(List.of(4L, 1L)));
+        assertNull(layout.indexesOf(List.of(1L, 99L)));
+        assertEquals(-1, layout.indexOf(99L));
+    }
+
+    @Test
+    void of_SeatsOutsideGeometry_ShouldBeSkipped() {
+        // Зал уменьшили до 2x2, а места 3x3 еще не переинициализированы
+        HallLayout layout = HallLayout.of(1L, 2, 2, seats(3, 3, 1L));
+
+        assertEquals(4, layout.seatCount());
+        assertEquals(-1, layout.indexOf(3L));
+        assertEquals(-1, layout.indexOf(7L));
+        assertEquals(5L, layout.seatIdAt(3));
+    }
+
+    private static List<Seat> seats(int rows, int seatsPerRow, long firstId) {
+        List<Seat> seats = new ArrayList<>();
+        long id = firstId;
+        for (int row = 1; row <= rows; row++) {
+            for (int number = 1; number <= seatsPerRow; number++) {
+                Seat seat = Seat.builder().rowNumber(row).seatNumber(number).build();
+                seat.setId(id++);
+                seats.add(seat);
+            }
+        }
+        return seats;
+    }
+}
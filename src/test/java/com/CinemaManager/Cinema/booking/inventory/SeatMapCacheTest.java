@@ -0,0 +1,62 @@
+package com.CinemaManager.Cinema.booking.inventory;
+
+import com.CinemaManager.Cinema.booking.inventory.SeatMapCache.SeatCell;
+import com.CinemaManager.Cinema.booking.inventory.SeatMapCache.SeatMap;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SeatMapCacheTest {
+
+    private final SeatInventory seatInventory = mock(SeatInventory.class);
+    private final SeatMapCache cache = new SeatMapCache(seatInventory);
+
+    @Test
+    void get_ShouldLoadOnlyOnce() {
+        AtomicInteger loads = new AtomicInteger();
+
+        SeatMap first = cache.get(1L, () -> {
+            loads.incrementAndGet();
+            return seatMap(1L, 10L, LocalDateTime.now().plusDays(1));
+        });
+        SeatMap second = cache.get(1L, () -> {
+            loads.incrementAndGet();
+            return seatMap(1L, 10L, LocalDateTime.now().plusDays(1));
+        });
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void evictHallAfterCommit_WithoutTransaction_ShouldDropOnlyThatHall() {
+        cache.get(1L, () -> seatMap(1L, 10L, LocalDateTime.now().plusDays(1)));
+        cache.get(2L, () -> seatMap(2L, 20L, LocalDateTime.now().plusDays(1)));
+
+        cache.evictHallAfterCommit(10L);
+
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void evictFinishedSessions_ShouldDropPastSessionsAndTheirBitmaps() {
+        cache.get(1L, () -> seatMap(1L, 10L, LocalDateTime.now().minusHours(3)));
+        cache.get(2L, () -> seatMap(2L, 10L, LocalDateTime.now().plusHours(3)));
+
+        cache.evictFinishedSessions();
+
+        assertEquals(1, cache.size());
+        verify(seatInventory).evictSession(1L);
+        verify(seatInventory, never()).evictSession(2L);
+    }
+
+    private static SeatMap seatMap(Long sessionId, Long hallId, LocalDateTime startTime) {
+        return new SeatMap(sessionId, 100L, hallId, "Movie", startTime, startTime.plusHours(2), 300.0,
+                "Hall", 1, 2, List.of(new SeatCell(1L, 1, 1), new SeatCell(2L, 1, 2)));
+    }
+}
@@ -0,0 +1,91 @@
+package com.CinemaManager.Cinema.booking.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionSeatBitmapTest {
+
+    @Test
+    void indexOf_ShouldMapRowAndSeatToBitIndex() {
+        SessionSeatBitmap bitmap = new SessionSeatBitmap(1L, 1L, 10, 15);
+
+        assertEquals(0, bitmap.indexOf(1, 1));
+        assertEquals(16, bitmap.indexOf(2, 2));
+        assertEquals(149, bitmap.indexOf(10, 15));
+        assertEquals(-1, bitmap.indexOf(11, 1));
+        assertEquals(-1, bitmap.indexOf(1, 0));
+    }
+
+    @Test
+    void toByteArray_ShouldPackSeatsLittleEndian() {
+        SessionSeatBitmap bitmap = new SessionSeatBitmap(1L, 1L, 10, 15);
+        bitmap.tryClaim(0, 9, 70, 149);
+
+        byte[] bytes = bitmap.toByteArray();
+
+        assertEquals(19, bytes.length);
+        assertEquals(0b1, bytes[0]);
+        assertEquals(0b10, bytes[1]);
+        assertEquals(0b1000000, bytes[8]);
+        assertEquals(0b100000, bytes[18]);
+    }
+
+    @Test
+    void tryClaim_WhenAnySeatTaken_ShouldClaimNothing() {
+        SessionSeatBitmap bitmap = new SessionSeatBitmap(1L, 1L, 5, 30);
+
+        assertTrue(bitmap.tryClaim(70));
+        assertFalse(bitmap.tryClaim(10, 63, 64, 70, 120));
+
+        assertFalse(bitmap.isOccupied(10));
+        assertFalse(bitmap.isOccupied(63));
+        assertFalse(bitmap.isOccupied(64));
+        assertFalse(bitmap.isOccupied(120));
+        assertEquals(1, bitmap.occupiedCount());
+    }
+
+    @Test
+    void release_ShouldFreeSeatsAndBumpVersion() {
+        SessionSeatBitmap bitmap = new SessionSeatBitmap(1L, 1L, 5, 5);
+        assertTrue(bitmap.tryClaim(3, 4));
+        long version = bitmap.version();
+
+        bitmap.release(3);
+
+        assertFalse(bitmap.isOccupied(3));
+        assertTrue(bitmap.isOccupied(4));
+        assertTrue(bitmap.version() > version);
+    }
+
+    @Test
+    void tryClaim_ConcurrentBuyers_ShouldHaveSingleWinnerPerSeat() throws Exception {
+        SessionSeatBitmap bitmap = new SessionSeatBitmap(1L, 1L, 10, 10);
+        int buyers = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(buyers);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger winners = new AtomicInteger();
+
+        for (int i = 0; i < buyers; i++) {
+            executor.submit(() -> {
+                start.await();
+                if (bitmap.tryClaim(40, 41, 42)) {
+                    winners.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, winners.get());
+        assertEquals(3, bitmap.occupiedCount());
+    }
+}
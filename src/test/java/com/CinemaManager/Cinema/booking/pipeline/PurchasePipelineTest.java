@@ -0,0 +1,137 @@
+package com.CinemaManager.Cinema.booking.pipeline;
+
+import com.CinemaManager.Cinema.booking.dto.PurchaseTicketDTO;
+import com.CinemaManager.Cinema.booking.dto.TicketPurchaseResponseDTO;
+import com.CinemaManager.Cinema.booking.entity.*;
+import com.CinemaManager.Cinema.booking.exception.BusinessException;
+import com.CinemaManager.Cinema.booking.repository.*;
+import com.CinemaManager.Cinema.booking.service.HallService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "cinema.booking.pipeline.enabled=true",
+        "cinema.booking.pipeline.batch-size=32",
+        "cinema.booking.pipeline.max-delay-ms=50"
+})
+@ActiveProfiles("test")
+class PurchasePipelineTest {
+
+    @Autowired
+    private PurchasePipeline purchasePipeline;
+
+    @Autowired
+    private HallService hallService;
+
+    @Autowired
+    private HallRepository hallRepository;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        ticketRepository.deleteAll();
+        sessionRepository.deleteAll();
+        seatRepository.deleteAll();
+        hallRepository.deleteAll();
+        movieRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void submit_ConflictingBuyers_EachShouldGetOwnOutcome() {
+        User user = userRepository.save(User.builder()
+                .firstName("Pipeline")
+                .lastName("User")
+                .email("pipeline@example.com")
+                .password("password123")
+                .phone("+79000000001")
+                .role(User.Role.ROLE_USER)
+                .build());
+        Movie movie = movieRepository.save(Movie.builder()
+                .title("Pipeline")
+                .duration(Duration.ofMinutes(90))
+                .genre("Drama")
+                .ageRestriction(0)
+                .build());
+        Hall hall = hallRepository.save(Hall.builder()
+                .hallNumber("P-1")
+                .name("Pipeline hall")
+                .totalRows(2)
+                .seatsPerRow(10)
+                .build());
+        hallService.initializeSeats(hall.getId());
+        Session session = sessionRepository.save(Session.builder()
+                .startTime(LocalDateTime.now().plusDays(1))
+                .price(100.0)
+                .movie(movie)
+                .hall(hall)
+                .build());
+        List<Long> seatIds = seatRepository.findByHallId(hall.getId()).stream()
+                .map(Seat::getId)
+                .collect(Collectors.toList());
+
+        // 20 свободных мест и по два покупателя на каждое из первых 10
+        List<CompletableFuture<TicketPurchaseResponseDTO>> futures = new ArrayList<>();
+        for (Long seatId : seatIds) {
+            futures.add(purchasePipeline.submit(purchase(session, user, seatId)));
+        }
+        for (Long seatId : seatIds.subList(0, 10)) {
+            futures.add(purchasePipeline.submit(purchase(session, user, seatId)));
+        }
+
+        int sold = 0;
+        int rejected = 0;
+        for (CompletableFuture<TicketPurchaseResponseDTO> future : futures) {
+            try {
+                TicketPurchaseResponseDTO response = future.join();
+                assertEquals(1, response.getPurchasedTickets().size());
+                assertNotNull(response.getPurchasedTickets().get(0).getTicketNumber());
+                sold++;
+            } catch (CompletionException e) {
+                assertInstanceOf(BusinessException.class, e.getCause());
+                rejected++;
+            }
+        }
+
+        assertEquals(20, sold);
+        assertEquals(10, rejected);
+        assertEquals(20, ticketRepository.countSoldTicketsBySession(session.getId()));
+        assertTrue(purchasePipeline.getBatchCount() < futures.size(),
+                "Purchases should be committed in batches");
+    }
+
+    private static PurchaseTicketDTO purchase(Session session, User user, Long seatId) {
+        return PurchaseTicketDTO.builder()
+                .sessionId(session.getId())
+                .userId(user.getId())
+                .seatIds(List.of(seatId))
+                .build();
+    }
+}
@@ -0,0 +1,122 @@
+package com.CinemaManager.Cinema.booking.repository;
+
+import com.CinemaManager.Cinema.booking.support.SqlCapture;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Планы горячих запросов на H2: полный просмотр таблицы не должен вернуться незаметно.
+// EXPLAIN строится по SQL, который Hibernate сгенерировал для метода репозитория (SqlCapture)
+@SpringBootTest
+@ActiveProfiles("test")
+class QueryPlanTest {
+
+    private static final LocalDate DATE = LocalDate.of(2030, 1, 1);
+    private static final LocalDateTime FROM = DATE.atStartOfDay();
+    private static final LocalDateTime TO = DATE.plusDays(1).atStartOfDay();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Test
+    void sessionsByDate_ShouldUseStartTimeIndex() {
+        String plan = explainFirst(() -> sessionRepository.findByDate(DATE));
+
+        assertUsesIndex(plan, "IDX_SESSIONS_START_TIME");
+    }
+
+    @Test
+    void sessionsByDate_WrappedColumn_ShouldScanTable() {
+        // Прежняя форма DATE(start_time) = :date - проверяем, что тест вообще замечает полный просмотр
+        String plan = explain("SELECT * FROM sessions WHERE CAST(start_time AS DATE) = DATE '2030-01-01'");
+
+        assertTrue(plan.contains("tableScan"), plan);
+    }
+
+    @Test
+    void searchSessions_ShouldNotScanTable() {
+        String plan = explainFirst(() -> sessionRepository.searchSessions(null, null, DATE, DATE, null, null));
+
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    @Test
+    void hallSchedule_ShouldNotScanTable() {
+        String plan = explainFirst(() -> sessionRepository.findScheduleByHallId(1L));
+
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    @Test
+    void ticketsBySessionAndStatus_ShouldUseCompositeIndex() {
+        String plan = explainFirst(() -> ticketRepository.countSoldTicketsBySession(1L));
+
+        assertUsesIndex(plan, "IDX_TICKETS_SESSION_STATUS");
+    }
+
+    @Test
+    void hourlySales_ShouldUseStatusPurchaseTimeIndex() {
+        String plan = explainFirst(() -> ticketRepository.getHourlySalesByMovieAndHall(FROM, TO));
+
+        assertUsesIndex(plan, "IDX_TICKETS_STATUS_PURCHASE_TIME");
+    }
+
+    @Test
+    void expiredReservations_ShouldUseStatusCreatedAtIndex() {
+        String plan = explainFirst(() -> ticketRepository.findSessionIdsWithExpiredReservations(FROM));
+
+        assertUsesIndex(plan, "IDX_TICKETS_STATUS_CREATED_AT");
+    }
+
+    @Test
+    void ticketsByUser_ShouldNotScanTable() {
+        String plan = explainFirst(() -> ticketRepository.findByUserId(1L));
+
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    // План первого запроса, выполненного вызовом; догрузки связей идут следующими
+    private String explainFirst(Runnable repositoryCall) {
+        List<String> sql = SqlCapture.capture(repositoryCall);
+        assertFalse(sql.isEmpty(), "Repository call issued no SQL");
+        return explain(sql.get(0));
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                // H2 выбирает индексы при разборе запроса, значения параметров на план не влияют
+                int parameterCount = statement.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameterCount; i++) {
+                    statement.setObject(i, null);
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    return resultSet.getString(1);
+                }
+            }
+        });
+    }
+
+    private static void assertUsesIndex(String plan, String indexName) {
+        assertTrue(plan.toUpperCase().contains(indexName), plan);
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+}
@@ -0,0 +1,115 @@
+package com.CinemaManager.Cinema.booking.rollup;
+
+import com.CinemaManager.Cinema.booking.entity.*;
+import com.CinemaManager.Cinema.booking.repository.SalesRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// Без активной транзакции приращения применяются сразу - как после коммита
+@ExtendWith(MockitoExtension.class)
+class SalesRollupRecorderTest {
+
+    private static final LocalDateTime PURCHASE_TIME = LocalDateTime.of(2030, 1, 1, 19, 5);
+    private static final LocalDate DAY = PURCHASE_TIME.toLocalDate();
+
+    @Mock
+    private SalesRollupRepository salesRollupRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SalesRollupRecorder recorder;
+    private Session session;
+
+    @BeforeEach
+    void setUp() {
+        recorder = new SalesRollupRecorder(salesRollupRepository, transactionManager);
+
+        Movie movie = Movie.builder().title("The Matrix").build();
+        movie.setId(7L);
+        Hall hall = Hall.builder().name("Hall 1").build();
+        hall.setId(3L);
+        session = Session.builder().movie(movie).hall(hall).price(200.0).build();
+    }
+
+    @Test
+    void recordSold_ShouldApplyOneIncrementPerHourBucket() {
+        when(salesRollupRepository.increment(DAY, 19, 7L, 3L, 2L, 400.0)).thenReturn(1);
+
+        recorder.recordSold(List.of(
+                ticket(Ticket.TicketStatus.SOLD, PURCHASE_TIME),
+                ticket(Ticket.TicketStatus.SOLD, PURCHASE_TIME.plusMinutes(30)),
+                ticket(Ticket.TicketStatus.BOOKED, null)));
+
+        verify(salesRollupRepository).increment(DAY, 19, 7L, 3L, 2L, 400.0);
+        verify(salesRollupRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void recordSold_NewBucket_ShouldInsertRow() {
+        when(salesRollupRepository.increment(DAY, 19, 7L, 3L, 1L, 200.0)).thenReturn(0);
+
+        recorder.recordSold(List.of(ticket(Ticket.TicketStatus.SOLD, PURCHASE_TIME)));
+
+        ArgumentCaptor<SalesRollup> row = ArgumentCaptor.forClass(SalesRollup.class);
+        verify(salesRollupRepository).saveAndFlush(row.capture());
+        assertEquals(DAY, row.getValue().getSalesDate());
+        assertEquals(19, row.getValue().getSalesHour());
+        assertEquals(1L, row.getValue().getSoldCount());
+        assertEquals(200.0, row.getValue().getRevenue());
+    }
+
+    @Test
+    void recordSold_ConcurrentInsert_ShouldRetryAsIncrement() {
+        when(salesRollupRepository.increment(DAY, 19, 7L, 3L, 1L, 200.0)).thenReturn(0, 1);
+        when(salesRollupRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        recorder.recordSold(List.of(ticket(Ticket.TicketStatus.SOLD, PURCHASE_TIME)));
+
+        verify(salesRollupRepository, times(2)).increment(DAY, 19, 7L, 3L, 1L, 200.0);
+    }
+
+    @Test
+    void recordSold_ShouldUseTicketPriceOverCurrentSessionPrice() {
+        when(salesRollupRepository.increment(DAY, 19, 7L, 3L, 1L, 150.0)).thenReturn(1);
+        Ticket ticket = ticket(Ticket.TicketStatus.SOLD, PURCHASE_TIME);
+        // Билет продан по 150, потом цену сеанса подняли
+        ticket.setPrice(150.0);
+
+        recorder.recordSold(List.of(ticket));
+
+        verify(salesRollupRepository).increment(DAY, 19, 7L, 3L, 1L, 150.0);
+    }
+
+    @Test
+    void recordRefunded_ShouldSubtractFromPurchaseHour() {
+        when(salesRollupRepository.increment(DAY, 19, 7L, 3L, -1L, -200.0)).thenReturn(1);
+
+        // Билет уже отменен, но вычитается из часа покупки
+        recorder.recordRefunded(List.of(ticket(Ticket.TicketStatus.CANCELLED, PURCHASE_TIME)));
+
+        verify(salesRollupRepository).increment(DAY, 19, 7L, 3L, -1L, -200.0);
+    }
+
+    private Ticket ticket(Ticket.TicketStatus status, LocalDateTime purchaseTime) {
+        return Ticket.builder()
+                .session(session)
+                .status(status)
+                .purchaseTime(purchaseTime)
+                .build();
+    }
+}
@@ -0,0 +1,85 @@
+package com.CinemaManager.Cinema.booking.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HallTimelineTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    @Test
+    void overlaps_ShouldTreatIntervalsAsHalfOpen() {
+        HallTimeline timeline = new HallTimeline();
+        timeline.put(1L, at(10, 0), at(12, 0));
+
+        // Сеанс может начаться ровно в момент окончания предыдущего
+        assertFalse(timeline.overlaps(at(12, 0), at(14, 0), null));
+        assertFalse(timeline.overlaps(at(8, 0), at(10, 0), null));
+        assertTrue(timeline.overlaps(at(11, 59), at(14, 0), null));
+        assertTrue(timeline.overlaps(at(9, 0), at(13, 0), null));
+        assertFalse(timeline.overlaps(at(9, 0), at(13, 0), 1L));
+    }
+
+    @Test
+    void overlaps_LongSessionStartedEarlier_ShouldBeFound() {
+        HallTimeline timeline = new HallTimeline();
+        timeline.put(1L, at(8, 0), at(9, 0));
+        timeline.put(2L, at(9, 30), at(15, 0));
+        timeline.put(3L, at(15, 0), at(16, 0));
+
+        // Ближайший слева сеанс (9:30) начался задолго до запроса
+        assertTrue(timeline.overlaps(at(14, 0), at(14, 30), null));
+        timeline.remove(2L);
+        assertFalse(timeline.overlaps(at(14, 0), at(14, 30), null));
+    }
+
+    @Test
+    void overlaps_EmptyOrInvertedRange_ShouldBeFalse() {
+        HallTimeline timeline = new HallTimeline();
+        timeline.put(1L, at(10, 0), at(12, 0));
+
+        assertFalse(timeline.overlaps(at(11, 0), at(11, 0), null));
+        assertFalse(timeline.overlaps(at(13, 0), at(9, 0), null));
+    }
+
+    @Test
+    void put_SameSessionTwice_ShouldMoveIt() {
+        HallTimeline timeline = new HallTimeline();
+        timeline.put(1L, at(10, 0), at(12, 0));
+        timeline.put(1L, at(18, 0), at(20, 0));
+
+        assertEquals(1, timeline.size());
+        assertFalse(timeline.overlaps(at(10, 0), at(12, 0), null));
+        assertTrue(timeline.overlaps(at(19, 0), at(21, 0), null));
+    }
+
+    @Test
+    void overlaps_RandomSchedule_ShouldMatchLinearScan() {
+        Random random = new Random(42);
+        HallTimeline timeline = new HallTimeline();
+        LocalDateTime[][] sessions = new LocalDateTime[300][];
+        for (int i = 0; i < sessions.length; i++) {
+            LocalDateTime start = DAY.plusMinutes(random.nextInt(60 * 24 * 30));
+            sessions[i] = new LocalDateTime[]{start, start.plusMinutes(30 + random.nextInt(240))};
+            timeline.put(i, sessions[i][0], sessions[i][1]);
+        }
+
+        for (int query = 0; query < 2000; query++) {
+            LocalDateTime start = DAY.plusMinutes(random.nextInt(60 * 24 * 31));
+            LocalDateTime end = start.plusMinutes(1 + random.nextInt(300));
+            boolean expected = false;
+            for (LocalDateTime[] session : sessions) {
+                expected |= session[0].isBefore(end) && session[1].isAfter(start);
+            }
+            assertEquals(expected, timeline.overlaps(start, end, null));
+        }
+    }
+
+    private static LocalDateTime at(int hour, int minute) {
+        return DAY.withHour(hour).withMinute(minute);
+    }
+}
@@ -0,0 +1,149 @@
+package com.CinemaManager.Cinema.booking.service.impl;
+
+import com.CinemaManager.Cinema.booking.controller.AdminController.UserStatsDTO;
+import com.CinemaManager.Cinema.booking.dto.PurchaseTicketDTO;
+import com.CinemaManager.Cinema.booking.entity.*;
+import com.CinemaManager.Cinema.booking.repository.*;
+import com.CinemaManager.Cinema.booking.rollup.SalesRollupBackfill;
+import com.CinemaManager.Cinema.booking.service.AdminService;
+import com.CinemaManager.Cinema.booking.service.HallService;
+import com.CinemaManager.Cinema.booking.service.TicketService;
+import com.CinemaManager.Cinema.booking.support.QueryBudget;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Число SQL-запросов аналитики администратора: отчет не должен расти запросами вместе с данными
+@SpringBootTest
+@Transactional
+@ActiveProfiles("test")
+class AdminServiceQueryBudgetTest {
+
+    @RegisterExtension
+    static QueryBudget queryBudget = new QueryBudget();
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private HallService hallService;
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private HallRepository hallRepository;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SalesRollupRepository salesRollupRepository;
+
+    @Autowired
+    private SalesRollupBackfill salesRollupBackfill;
+
+    private Session session;
+
+    @BeforeEach
+    void setUp() {
+        salesRollupRepository.deleteAll();
+        ticketRepository.deleteAll();
+        sessionRepository.deleteAll();
+        movieRepository.deleteAll();
+        seatRepository.deleteAll();
+        hallRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User user = userRepository.save(User.builder()
+                .firstName("Budget")
+                .lastName("User")
+                .email("budget@example.com")
+                .password("password123")
+                .phone("+79000000001")
+                .role(User.Role.ROLE_USER)
+                .build());
+        Movie movie = movieRepository.save(Movie.builder()
+                .title("Budget Movie")
+                .duration(Duration.ofMinutes(100))
+                .genre("Drama")
+                .ageRestriction(0)
+                .build());
+        Hall hall = hallRepository.save(Hall.builder()
+                .hallNumber("Q-1")
+                .name("Budget Hall")
+                .totalRows(5)
+                .seatsPerRow(5)
+                .build());
+        hallService.initializeSeats(hall.getId());
+        session = sessionRepository.save(Session.builder()
+                .startTime(LocalDateTime.now().plusDays(1))
+                .price(200.0)
+                .movie(movie)
+                .hall(hall)
+                .build());
+
+        List<Long> seatIds = seatRepository.findByHallId(hall.getId()).stream()
+                .limit(2)
+                .map(Seat::getId)
+                .toList();
+        ticketService.purchaseTickets(PurchaseTicketDTO.builder()
+                .sessionId(session.getId())
+                .userId(user.getId())
+                .seatIds(seatIds)
+                .build());
+        // Тестовая транзакция не коммитится, приращения витрины после коммита не срабатывают.
+        // Сегодняшний день через AdminService не пересобрать - вызываем пересборку напрямую
+        salesRollupBackfill.backfill(LocalDate.now(), LocalDate.now());
+    }
+
+    @Test
+    void dashboardAndReports_ShouldStayWithinQueryBudget() throws Exception {
+        queryBudget.expect("AdminService.getDashboardStats", 5, 5, () ->
+                assertEquals(2L, adminService.getDashboardStats().totalTicketsSold()));
+        // Отчет за год: дневной ряд - один запрос, а не запрос на каждый день
+        queryBudget.expect("AdminService.getRevenueStats (365 days)", 2, 2, () ->
+                assertEquals(400.0, adminService.getRevenueStats(LocalDate.now().minusDays(364), LocalDate.now())
+                        .totalRevenue()));
+        queryBudget.expect("AdminService.getPopularMovies", 2, 2, () ->
+                assertEquals(1, adminService.getPopularMovies(10).ticketsByMovie().size()));
+        queryBudget.expect("AdminService.getTicketsByHour", 1, 1, () ->
+                assertEquals(2L, adminService.getTicketsByHour(LocalDate.now(), LocalDate.now()).values().stream()
+                        .mapToLong(Long::longValue).sum()));
+        queryBudget.expect("AdminService.getLowAttendanceSessions", 1, 1, () ->
+                assertEquals(1, adminService.getLowAttendanceSessions(50).size()));
+        // Страница пользователей и их статистика - два запроса независимо от размера страницы
+        queryBudget.expect("AdminService.getAllUsersStats", 2, 2, () -> {
+            UserStatsDTO stats = adminService.getAllUsersStats(null, 50).getItems().get(0);
+            assertEquals(2, stats.totalTickets());
+            assertEquals(400.0, stats.totalSpent());
+            assertEquals(2, stats.ticketsThisMonth());
+        });
+        queryBudget.expect("AdminService.getSessionsByDateRange", 1, 1, () ->
+                assertEquals(1, adminService.getSessionsByDateRange(LocalDate.now(),
+                        session.getStartTime().toLocalDate()).size()));
+    }
+}
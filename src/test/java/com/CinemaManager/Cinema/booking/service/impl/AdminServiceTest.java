@@ -1,8 +1,16 @@
 package com.CinemaManager.Cinema.booking.service.impl;
 
+import com.CinemaManager.Cinema.booking.concurrency.SessionLockManager;
 import com.CinemaManager.Cinema.booking.controller.AdminController.*;
 import com.CinemaManager.Cinema.booking.entity.*;
+import com.CinemaManager.Cinema.booking.exception.BusinessException;
+import com.CinemaManager.Cinema.booking.expiry.ReservationExpiryService;
+import com.CinemaManager.Cinema.booking.inventory.SeatInventory;
+import com.CinemaManager.Cinema.booking.inventory.SeatMapCache;
 import com.CinemaManager.Cinema.booking.repository.*;
+import com.CinemaManager.Cinema.booking.rollup.SalesRollupBackfill;
+import com.CinemaManager.Cinema.booking.rollup.SalesRollupRecorder;
+import com.CinemaManager.Cinema.booking.schedule.HallScheduleIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,6 +22,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -36,6 +45,30 @@ class AdminServiceTest {
     @Mock
     private HallRepository hallRepository;
 
+    @Mock
+    private SeatInventory seatInventory;
+
+    @Mock
+    private SessionLockManager sessionLockManager;
+
+    @Mock
+    private ReservationExpiryService reservationExpiryService;
+
+    @Mock
+    private SeatMapCache seatMapCache;
+
+    @Mock
+    private HallScheduleIndex hallScheduleIndex;
+
+    @Mock
+    private SalesRollupRepository salesRollupRepository;
+
+    @Mock
+    private SalesRollupRecorder salesRollupRecorder;
+
+    @Mock
+    private SalesRollupBackfill salesRollupBackfill;
+
     @InjectMocks
     private AdminServiceImpl adminService;
 
@@ -44,14 +77,15 @@ class AdminServiceTest {
         // Настройка моков для базовых методов
         when(movieRepository.count()).thenReturn(10L);
         when(sessionRepository.count()).thenReturn(50L);
-        when(ticketRepository.countByStatus(Ticket.TicketStatus.SOLD)).thenReturn(200L);
+        when(salesRollupRepository.countSoldTickets()).thenReturn(200L);
         when(userRepository.count()).thenReturn(100L);
     }
 
     @Test
     void getDashboardStats_ShouldReturnStats() {
-        when(ticketRepository.calculateRevenueByPeriod(any(), any())).thenReturn(5000.0);
-        when(ticketRepository.countSoldTicketsByDate(any(), any())).thenReturn(20L);
+        LocalDate today = LocalDate.now();
+        List<Object[]> todaysSales = List.<Object[]>of(new Object[]{today, 20L, 5000.0});
+        when(salesRollupRepository.getDailySales(today, today)).thenReturn(todaysSales);
 
         DashboardStatsDTO stats = adminService.getDashboardStats();
 
@@ -62,6 +96,7 @@ class AdminServiceTest {
         assertEquals(100L, stats.totalUsers());
         assertEquals(5000.0, stats.todaysRevenue());
         assertEquals(20L, stats.todaysTickets());
+        verifyNoInteractions(ticketRepository);
     }
 
     @Test
@@ -74,8 +109,8 @@ class AdminServiceTest {
         Object[] revenueData2 = new Object[]{"Inception", 600.0};
         List<Object[]> revenueData = Arrays.asList(revenueData1, revenueData2);
 
-        when(ticketRepository.getTicketCountByMovie(any(), any())).thenReturn(ticketData);
-        when(ticketRepository.getRevenueByMovie(any(), any())).thenReturn(revenueData);
+        when(salesRollupRepository.getTicketCountByMovie(any(), any())).thenReturn(ticketData);
+        when(salesRollupRepository.getRevenueByMovie(any(), any())).thenReturn(revenueData);
 
         PopularMoviesDTO result = adminService.getPopularMovies(10);
 
@@ -84,6 +119,45 @@ class AdminServiceTest {
         assertEquals(2, result.revenueByMovie().size());
     }
 
+    @Test
+    void getRevenueStats_ShouldBuildDailySeriesFromOneQuery() {
+        LocalDate start = LocalDate.of(2030, 1, 1);
+        LocalDate end = LocalDate.of(2030, 1, 5);
+        List<Object[]> dailySales = Arrays.asList(
+                new Object[]{LocalDate.of(2030, 1, 2), 3L, 900.0},
+                new Object[]{LocalDate.of(2030, 1, 4), 1L, 300.0});
+        when(salesRollupRepository.getDailySales(start, end)).thenReturn(dailySales);
+        when(salesRollupRepository.getRevenueByMovie(start, end)).thenReturn(List.of());
+
+        RevenueStatsDTO result = adminService.getRevenueStats(start, end);
+
+        // Дни без продаж заполняются нулями, итог и средняя цена считаются по тому же ряду
+        assertEquals(5, result.dailyRevenue().size());
+        assertEquals(0.0, result.dailyRevenue().get(LocalDate.of(2030, 1, 1)));
+        assertEquals(900.0, result.dailyRevenue().get(LocalDate.of(2030, 1, 2)));
+        assertEquals(0.0, result.dailyRevenue().get(LocalDate.of(2030, 1, 5)));
+        assertEquals(1200.0, result.totalRevenue());
+        assertEquals(300.0, result.averageTicketPrice());
+        verifyNoInteractions(ticketRepository);
+    }
+
+    @Test
+    void getTicketsByHour_ShouldFillAllHours() {
+        LocalDate start = LocalDate.of(2030, 1, 1);
+        LocalDate end = LocalDate.of(2030, 1, 7);
+        List<Object[]> hourly = Arrays.asList(
+                new Object[]{10, 4L},
+                new Object[]{19, 12L});
+        when(salesRollupRepository.getTicketsByHour(start, end)).thenReturn(hourly);
+
+        Map<Integer, Long> result = adminService.getTicketsByHour(start, end);
+
+        assertEquals(24, result.size());
+        assertEquals(0L, result.get(0));
+        assertEquals(4L, result.get(10));
+        assertEquals(12L, result.get(19));
+    }
+
     @Test
     void cancelSession_ValidSession_ShouldCancelSession() {
         Movie movie = Movie.builder().duration(java.time.Duration.ofMinutes(120)).build();
@@ -99,6 +173,35 @@ class AdminServiceTest {
         verify(sessionRepository).delete(session);
     }
 
+    @Test
+    void cancelSession_WithSoldTickets_ShouldSubtractThemFromRollup() {
+        Session session = Session.builder()
+                .startTime(LocalDateTime.now().plusDays(1))
+                .build();
+        Ticket sold = Ticket.builder().session(session).status(Ticket.TicketStatus.SOLD).build();
+        Ticket booked = Ticket.builder().session(session).status(Ticket.TicketStatus.BOOKED).build();
+
+        when(sessionRepository.findById(1L)).thenReturn(java.util.Optional.of(session));
+        when(ticketRepository.findBySessionId(1L)).thenReturn(Arrays.asList(sold, booked));
+
+        adminService.cancelSession(1L);
+
+        // Бронь в витрине не учитывалась - вычитается только проданный билет
+        verify(salesRollupRecorder).recordRefunded(List.of(sold));
+        assertEquals(Ticket.TicketStatus.CANCELLED, booked.getStatus());
+    }
+
+    @Test
+    void backfillSalesRollup_IncludingToday_ShouldBeRejected() {
+        LocalDate today = LocalDate.now();
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> adminService.backfillSalesRollup(today.minusDays(3), today));
+
+        assertEquals("Only past days can be rebuilt", exception.getMessage());
+        verifyNoInteractions(salesRollupBackfill);
+    }
+
     @Test
     void getSystemHealth_ShouldReturnHealthInfo() {
         when(sessionRepository.countByStartTimeAfter(any())).thenReturn(15L);
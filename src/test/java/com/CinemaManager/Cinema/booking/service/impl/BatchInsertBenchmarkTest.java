@@ -0,0 +1,179 @@
+package com.CinemaManager.Cinema.booking.service.impl;
+
+import com.CinemaManager.Cinema.booking.dto.PurchaseTicketDTO;
+import com.CinemaManager.Cinema.booking.entity.*;
+import com.CinemaManager.Cinema.booking.repository.*;
+import com.CinemaManager.Cinema.booking.service.HallService;
+import com.CinemaManager.Cinema.booking.service.TicketService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Сравнение построчных и пакетных INSERT: batch_size=1 против настроенного в application.properties
+@SpringBootTest
+@ActiveProfiles("test")
+@Slf4j
+class BatchInsertBenchmarkTest {
+
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    private HallService hallService;
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private HallRepository hallRepository;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        ticketRepository.deleteAll();
+        sessionRepository.deleteAll();
+        seatRepository.deleteAll();
+        hallRepository.deleteAll();
+        movieRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void initializeSeats_30x40Hall_BatchedShouldUseFarFewerStatements() {
+        Hall perRowHall = saveHall("B-1", 30, 40);
+        Hall batchedHall = saveHall("B-2", 30, 40);
+
+        Measurement perRow = measure("seats 30x40, per-row", 1,
+                () -> hallService.initializeSeats(perRowHall.getId()));
+        Measurement batched = measure("seats 30x40, batched", BATCH_SIZE,
+                () -> hallService.initializeSeats(batchedHall.getId()));
+        logMeasurements(perRow, batched);
+
+        assertEquals(1200, perRow.inserts());
+        assertEquals(1200, batched.inserts());
+        assertTrue(batched.statements() * 10 < perRow.statements(),
+                "Batched seat initialization should prepare at least 10x fewer statements");
+    }
+
+    @Test
+    void purchaseTickets_TenSeats_BatchedShouldUseFewerStatements() {
+        User user = userRepository.save(User.builder()
+                .firstName("Bench")
+                .lastName("User")
+                .email("bench@example.com")
+                .password("password123")
+                .phone("+79000000000")
+                .role(User.Role.ROLE_USER)
+                .build());
+        Movie movie = movieRepository.save(Movie.builder()
+                .title("Benchmark")
+                .duration(Duration.ofMinutes(90))
+                .genre("Drama")
+                .ageRestriction(0)
+                .build());
+        Hall hall = saveHall("B-3", 5, 10);
+        hallService.initializeSeats(hall.getId());
+        List<Long> seatIds = seatRepository.findByHallId(hall.getId()).stream()
+                .map(Seat::getId)
+                .limit(10)
+                .collect(Collectors.toList());
+        Session perRowSession = saveSession(movie, hall, 1);
+        Session batchedSession = saveSession(movie, hall, 2);
+
+        Measurement perRow = measure("purchase 10 seats, per-row", 1,
+                () -> ticketService.purchaseTickets(purchase(perRowSession, user, seatIds)));
+        Measurement batched = measure("purchase 10 seats, batched", BATCH_SIZE,
+                () -> ticketService.purchaseTickets(purchase(batchedSession, user, seatIds)));
+        logMeasurements(perRow, batched);
+
+        assertEquals(10, perRow.inserts());
+        assertEquals(10, batched.inserts());
+        assertTrue(batched.statements() < perRow.statements());
+    }
+
+    private Measurement measure(String label, int batchSize, Runnable work) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        long started = System.nanoTime();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            entityManager.unwrap(org.hibernate.Session.class).setJdbcBatchSize(batchSize);
+            work.run();
+        });
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        return new Measurement(label, statistics.getPrepareStatementCount(),
+                statistics.getEntityInsertCount(), elapsedMillis);
+    }
+
+    private Hall saveHall(String hallNumber, int rows, int seatsPerRow) {
+        return hallRepository.save(Hall.builder()
+                .hallNumber(hallNumber)
+                .name("Benchmark " + hallNumber)
+                .totalRows(rows)
+                .seatsPerRow(seatsPerRow)
+                .build());
+    }
+
+    private Session saveSession(Movie movie, Hall hall, int daysAhead) {
+        return sessionRepository.save(Session.builder()
+                .startTime(LocalDateTime.now().plusDays(daysAhead))
+                .price(100.0)
+                .movie(movie)
+                .hall(hall)
+                .build());
+    }
+
+    private static PurchaseTicketDTO purchase(Session session, User user, List<Long> seatIds) {
+        return PurchaseTicketDTO.builder()
+                .sessionId(session.getId())
+                .userId(user.getId())
+                .seatIds(seatIds)
+                .build();
+    }
+
+    private static void logMeasurements(Measurement... measurements) {
+        for (Measurement m : measurements) {
+            log.info("{}: {} statements, {} inserts, {} ms", m.label(), m.statements(), m.inserts(), m.elapsedMillis());
+        }
+    }
+
+    private record Measurement(String label, long statements, long inserts, long elapsedMillis) {
+    }
+}
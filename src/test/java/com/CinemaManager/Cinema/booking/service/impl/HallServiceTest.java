@@ -3,6 +3,7 @@ package com.CinemaManager.Cinema.booking.service.impl;
 import com.CinemaManager.Cinema.booking.dto.HallDTO;
 import com.CinemaManager.Cinema.booking.entity.Hall;
 import com.CinemaManager.Cinema.booking.entity.Seat;
+import com.CinemaManager.Cinema.booking.exception.BusinessException;
 import com.CinemaManager.Cinema.booking.exception.ResourceNotFoundException;
 import com.CinemaManager.Cinema.booking.mapper.CinemaMapper;
 import com.CinemaManager.Cinema.booking.repository.HallRepository;
@@ -14,6 +15,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -83,4 +85,15 @@ class HallServiceTest {
         assertNotNull(result);
         verify(hallRepository).save(testHall);
     }
+
+    @Test
+    void getAvailableHalls_WithInvertedRange_ShouldThrowBusinessException() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 18, 0);
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> hallService.getAvailableHalls(start, start.minusHours(2)));
+        assertEquals("End time must be after start time", exception.getMessage());
+        assertThrows(BusinessException.class, () -> hallService.getAvailableHalls(start, start));
+        verifyNoInteractions(hallRepository);
+    }
 }
\ No newline at end of file
@@ -1,20 +1,23 @@
 package com.CinemaManager.Cinema.booking.service.impl;
 
+import com.CinemaManager.Cinema.booking.dto.CursorPage;
 import com.CinemaManager.Cinema.booking.dto.MovieDTO;
 import com.CinemaManager.Cinema.booking.entity.Movie;
 import com.CinemaManager.Cinema.booking.exception.ResourceNotFoundException;
+import com.CinemaManager.Cinema.booking.inventory.SeatMapCache;
 import com.CinemaManager.Cinema.booking.mapper.CinemaMapper;
 import com.CinemaManager.Cinema.booking.repository.MovieRepository;
+import com.CinemaManager.Cinema.booking.schedule.HallScheduleIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.time.Duration;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,6 +33,12 @@ class MovieServiceTest {
     @Mock
     private CinemaMapper cinemaMapper;
 
+    @Mock
+    private SeatMapCache seatMapCache;
+
+    @Mock
+    private HallScheduleIndex hallScheduleIndex;
+
     @InjectMocks
     private MovieServiceImpl movieService;
 
@@ -83,14 +92,16 @@ class MovieServiceTest {
         Movie movie2 = Movie.builder().title("Inception").build();
         MovieDTO movieDTO2 = MovieDTO.builder().id(2L).title("Inception").build();
 
-        when(movieRepository.findAll()).thenReturn(Arrays.asList(testMovie, movie2));
+        when(movieRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(51))).thenReturn(Arrays.asList(testMovie, movie2));
         when(cinemaMapper.toDTO(testMovie)).thenReturn(testMovieDTO);
         when(cinemaMapper.toDTO(movie2)).thenReturn(movieDTO2);
 
-        List<MovieDTO> result = movieService.getAllMovies();
+        CursorPage<MovieDTO> result = movieService.getAllMovies(null, 50);
 
-        assertEquals(2, result.size());
-        verify(movieRepository).findAll();
+        assertEquals(2, result.getItems().size());
+        assertFalse(result.isHasMore());
+        assertNull(result.getNextCursor());
+        verify(movieRepository).findByIdGreaterThanOrderByIdAsc(0L, Limit.of(51));
     }
 
     @Test
@@ -7,6 +7,7 @@ import com.CinemaManager.Cinema.booking.entity.Session;
 import com.CinemaManager.Cinema.booking.exception.BusinessException;
 import com.CinemaManager.Cinema.booking.mapper.CinemaMapper;
 import com.CinemaManager.Cinema.booking.repository.*;
+import com.CinemaManager.Cinema.booking.schedule.HallScheduleIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -39,6 +40,9 @@ class SessionServiceTest {
     @Mock
     private CinemaMapper cinemaMapper;
 
+    @Mock
+    private HallScheduleIndex hallScheduleIndex;
+
     @InjectMocks
     private SessionServiceImpl sessionService;
 
@@ -92,7 +96,7 @@ class SessionServiceTest {
     void createSession_ValidSession_ShouldSaveAndReturnDTO() {
         when(movieRepository.findById(1L)).thenReturn(Optional.of(movie));
         when(hallRepository.findById(1L)).thenReturn(Optional.of(hall));
-        when(sessionRepository.hasOverlappingSessions(any(), any(), any(), any())).thenReturn(false);
+        when(hallScheduleIndex.hasOverlap(any(), any(), any(), any())).thenReturn(false);
         when(sessionRepository.save(any(Session.class))).thenReturn(session);
         when(cinemaMapper.toDTO(session)).thenReturn(sessionDTO);
 
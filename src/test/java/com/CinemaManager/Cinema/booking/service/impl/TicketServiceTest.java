@@ -1,5 +1,6 @@
 package com.CinemaManager.Cinema.booking.service.impl;
 
+import com.CinemaManager.Cinema.booking.dto.CursorPage;
 import com.CinemaManager.Cinema.booking.dto.TicketDTO;
 import com.CinemaManager.Cinema.booking.entity.Ticket;
 import com.CinemaManager.Cinema.booking.exception.ResourceNotFoundException;
@@ -11,10 +12,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -65,16 +66,16 @@ class TicketServiceTest {
 
     @Test
     void getAllTickets_ShouldReturnAllTickets() {
-        Ticket ticket2 = Ticket.builder().ticketNumber("TKT-67890").build();
         TicketDTO ticketDTO2 = TicketDTO.builder().id(2L).ticketNumber("TKT-67890").build();
 
-        when(ticketRepository.findAll()).thenReturn(Arrays.asList(ticket, ticket2));
-        when(cinemaMapper.toDTO(ticket)).thenReturn(ticketDTO);
-        when(cinemaMapper.toDTO(ticket2)).thenReturn(ticketDTO2);
+        when(ticketRepository.findDTOsAfter(0L, Limit.of(51))).thenReturn(Arrays.asList(ticketDTO, ticketDTO2));
 
-        List<TicketDTO> result = ticketService.getAllTickets();
+        CursorPage<TicketDTO> result = ticketService.getAllTickets(null, 50);
 
-        assertEquals(2, result.size());
-        verify(ticketRepository).findAll();
+        assertEquals(2, result.getItems().size());
+        assertFalse(result.isHasMore());
+        assertNull(result.getNextCursor());
+        verifyNoInteractions(cinemaMapper);
+        verify(ticketRepository).findDTOsAfter(0L, Limit.of(51));
     }
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.CinemaManager.Cinema.booking.support;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Бюджет SQL-запросов на вызов эндпоинта или сервиса - по статистике Hibernate
+// (hibernate.generate_statistics в application-test.properties). Подключение в @SpringBootTest-классе:
+//
+//     @RegisterExtension
+//     static QueryBudget queryBudget = new QueryBudget();
+//
+//     queryBudget.expect("GET /api/tickets/by-session/{id}", 1, 3, () -> mockMvc.perform(...));
+//
+// Замер падает, если запросов или прочитанных строк больше бюджета. После тестов класса
+// в лог пишется таблица замеров с бюджетами. Статистика общая на приложение: фоновые задачи,
+// попавшие в замер, тоже посчитаются - бюджеты не стоит подгонять впритык к хрупким сценариям.
+@Slf4j
+public class QueryBudget implements BeforeEachCallback, AfterAllCallback {
+
+    private final List<Measurement> measurements = new CopyOnWriteArrayList<>();
+    private Statistics statistics;
+    private EntityManager entityManager;
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        ApplicationContext applicationContext = SpringExtension.getApplicationContext(context);
+        EntityManagerFactory entityManagerFactory = applicationContext.getBean(EntityManagerFactory.class);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+    }
+
+    // Строки - результаты запросов плюс сущности, догруженные по одной (ленивые связи, поиск по ID)
+    public Measurement expect(String label, long maxStatements, long maxRows, Action action) throws Exception {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Отложенные INSERT из подготовки теста не должны попасть в замер, а уже загруженные
+            // сущности - скрыть ленивые догрузки, которые в рабочем запросе пошли бы в базу
+            entityManager.flush();
+            entityManager.clear();
+        }
+        statistics.clear();
+        action.run();
+
+        long rows = statistics.getEntityFetchCount();
+        for (String query : statistics.getQueries()) {
+            rows += statistics.getQueryStatistics(query).getExecutionRowCount();
+        }
+        Measurement measurement = new Measurement(label, statistics.getPrepareStatementCount(), maxStatements,
+                rows, maxRows);
+        measurements.add(measurement);
+
+        if (measurement.statements() > maxStatements || measurement.rows() > maxRows) {
+            throw new AssertionError(String.format("%s exceeded its query budget: %d statements (budget %d), "
+                            + "%d rows (budget %d), queries: %s",
+                    label, measurement.statements(), maxStatements, measurement.rows(), maxRows,
+                    String.join(" | ", statistics.getQueries())));
+        }
+        return measurement;
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        if (measurements.isEmpty()) {
+            return;
+        }
+        StringBuilder table = new StringBuilder(String.format("%-50s %16s %16s", "call", "statements", "rows"));
+        for (Measurement m : measurements) {
+            table.append(String.format("%n%-50s %7d / %-7d %7d / %-7d",
+                    m.label(), m.statements(), m.maxStatements(), m.rows(), m.maxRows()));
+        }
+        log.info("Query budgets: {}{}{}", context.getRequiredTestClass().getSimpleName(), System.lineSeparator(), table);
+        measurements.clear();
+    }
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    public record Measurement(String label, long statements, long maxStatements, long rows, long maxRows) {
+    }
+}
@@ -0,0 +1,38 @@
+package com.CinemaManager.Cinema.booking.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// SQL, который Hibernate отправляет в базу из текущего потока. Подключен в application-test.properties
+// (hibernate.session_factory.statement_inspector), чтобы тесты планов проверяли сгенерированные запросы
+// репозиториев, а не рукописные копии:
+//
+//     List<String> sql = SqlCapture.capture(() -> sessionRepository.findByDate(date));
+//
+// Hibernate создает инспектор сам, поэтому состояние статическое; чужие потоки в замер не попадают.
+public class SqlCapture implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> captured = CAPTURED.get();
+        if (captured != null) {
+            captured.add(sql);
+        }
+        return sql;
+    }
+
+    public static List<String> capture(Runnable action) {
+        List<String> captured = new ArrayList<>();
+        CAPTURED.set(captured);
+        try {
+            action.run();
+        } finally {
+            CAPTURED.remove();
+        }
+        return captured;
+    }
+}